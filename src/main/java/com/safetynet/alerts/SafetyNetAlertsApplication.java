@@ -2,9 +2,11 @@ package com.safetynet.alerts;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class SafetyNetAlertsApplication {
     public static void main(String[] args) {
         SpringApplication.run(SafetyNetAlertsApplication.class, args);
@@ -0,0 +1,44 @@
+package com.safetynet.alerts.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor of the streams of {@link com.safetynet.alerts.controller.ReactiveAlertController}.
+ * <p>
+ * The streams are written item by item with blocking servlet writes, so a client reading slowly holds an executor
+ * thread while its write waits. The executor is therefore bounded: at most {@code alerts.reactive.async.threads}
+ * streams are written at once, {@code alerts.reactive.async.queue-capacity} more wait for a thread, and further
+ * streams are rejected instead of piling up. A stalled write fails once the connector's
+ * {@code server.tomcat.connection-timeout} elapses. The controller hands its streams to this executor itself,
+ * so the other asynchronous endpoints keep the application-wide MVC executor and timeout.
+ * Enabled with {@code alerts.reactive.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "alerts.reactive.enabled", havingValue = "true")
+public class ReactiveAsyncConfig {
+
+    @Value("${alerts.reactive.async.threads:8}")
+    private int threads;
+
+    @Value("${alerts.reactive.async.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * Creates the bounded executor writing the streams.
+     *
+     * @return the executor, shut down with the context
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reactiveAlertExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("reactive-alert-");
+        return executor;
+    }
+}
@@ -1,14 +1,28 @@
 package com.safetynet.alerts.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safetynet.alerts.dto.*;
+import com.safetynet.alerts.service.AlertCacheService;
+import com.safetynet.alerts.service.AlertCacheService.Query;
 import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataVersionService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -17,12 +31,23 @@ import java.util.List;
 @RestController
 public class AlertController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     private final AlertService alertService;
+    private final DataVersionService dataVersionService;
+    private final AlertCacheService alertCacheService;
     private static final Logger logger = LogManager.getLogger(AlertController.class.getName());
 
+    @Value("${alerts.flood.timeout-ms:60000}")
+    private long floodTimeoutMillis;
+
     @Autowired
-    public AlertController(AlertService alertService) {
+    public AlertController(AlertService alertService, DataVersionService dataVersionService, AlertCacheService alertCacheService) {
         this.alertService = alertService;
+        this.dataVersionService = dataVersionService;
+        this.alertCacheService = alertCacheService;
     }
 
     //Request Param au lieu du pathVariable
@@ -30,17 +55,23 @@ public class AlertController {
      * Retrieves a list of person information by last name.
      *
      * @param lastName the last name to search
+     * @param request the current request, read for {@code If-None-Match}
      * @return list of {@link PersonInfoDTO} or {@code 400 Bad Request} if missing,
-     * {@code 404 Not Found} if none found
+     * {@code 404 Not Found} if none found,
+     * {@code 304 Not Modified} if the data did not change since the tag in {@code If-None-Match}
      */
     @GetMapping("/personInfolastName={lastName}")
-    public ResponseEntity<List<PersonInfoDTO>> getPersonInfo(@PathVariable("lastName") String lastName) {
+    public ResponseEntity<List<PersonInfoDTO>> getPersonInfo(@PathVariable("lastName") String lastName, WebRequest request) {
         if (lastName == null || lastName.isBlank()) {
             logger.error("lastName parameter is missing or blank");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        List<PersonInfoDTO> personInfoDTOList = alertService.getPersonInfoLastName(lastName);
+        if (request.checkNotModified(dataVersionService.etag())) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+
+        List<PersonInfoDTO> personInfoDTOList = alertCacheService.get(Query.PERSON_INFO, lastName, () -> alertService.getPersonInfoLastName(lastName));
 
         if (personInfoDTOList.isEmpty()) {
             logger.info("No persons found with last name: {}", lastName);
@@ -55,17 +86,23 @@ public class AlertController {
      * Retrieves children living at a specified address and their household members.
      *
      * @param address the address to search
+     * @param request the current request, read for {@code If-None-Match}
      * @return list of {@link ChildAlertDTO} or {@code 400 Bad Request} if missing,
-     * {@code 404 Not Found} if none found
+     * {@code 404 Not Found} if none found,
+     * {@code 304 Not Modified} if the data did not change since the tag in {@code If-None-Match}
      */
     @GetMapping("/childAlert")
-    public ResponseEntity<List<ChildAlertDTO>> getChildAlertByAddress(@RequestParam String address) {
+    public ResponseEntity<List<ChildAlertDTO>> getChildAlertByAddress(@RequestParam String address, WebRequest request) {
         if (address == null || address.isBlank()) {
             logger.error("Address parameter is missing or blank ");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        List<ChildAlertDTO> children = alertService.getChildByAddress(address);
+        if (request.checkNotModified(dataVersionService.etag())) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+
+        List<ChildAlertDTO> children = alertCacheService.get(Query.CHILD_ALERT, address, () -> alertService.getChildByAddress(address));
 
         if (children.isEmpty()) {
             logger.info("No children found at address: {}", address);
@@ -78,19 +115,52 @@ public class AlertController {
 
     /**
      * Retrieves all email addresses of residents in a given city.
+     * With {@code limit} or {@code cursor}, returns one page sorted by email; the cursor of the next page,
+     * if any, is sent in the {@code X-Next-Cursor} header.
      *
-     * @param city the name of the city
-     * @return list of {@link CommunityEmailDTO} or {@code 400 Bad Request} if missing,
-     * {@code 404 Not Found} if none found
+     * @param city    the name of the city
+     * @param limit   the maximum number of emails of a page, capped by the server
+     * @param cursor  the cursor returned with the previous page
+     * @param request the current request, read for {@code If-None-Match}
+     * @return list of {@link CommunityEmailDTO} or {@code 400 Bad Request} if missing or invalid,
+     * {@code 404 Not Found} if none found,
+     * {@code 304 Not Modified} if the data did not change since the tag in {@code If-None-Match}
      */
     @GetMapping("/communityEmail")
-    public ResponseEntity<List<CommunityEmailDTO>> getEmailByCity(@RequestParam String city) {
+    public ResponseEntity<List<CommunityEmailDTO>> getEmailByCity(@RequestParam String city,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  WebRequest request) {
         if (city == null || city.isBlank()) {
             logger.error("City parameter is missing or blank");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        if (limit != null && limit < 1) {
+            logger.error("Invalid page limit {}", limit);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
 
-        List<CommunityEmailDTO> emails = alertService.getEmailByCity(city);
+        if (request.checkNotModified(dataVersionService.etag())) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+
+        if (limit != null || cursor != null) {
+            PageDTO<CommunityEmailDTO> page;
+            try {
+                page = alertService.getEmailByCity(city, cursor, limit == null ? Integer.MAX_VALUE : limit);
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid cursor {}", cursor);
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            if (page.getItems().isEmpty() && cursor == null) {
+                logger.info("No emails found in city: {}", city);
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            logger.info("Retrieved a page of {} email(s) in city: {}", page.getItems().size(), city);
+            return new ResponseEntity<>(page.getItems(), nextCursor(page), HttpStatus.OK);
+        }
+
+        List<CommunityEmailDTO> emails = alertCacheService.get(Query.COMMUNITY_EMAIL, city, () -> alertService.getEmailByCity(city));
 
         if (emails.isEmpty()) {
             logger.info("No emails found in city: {}", city);
@@ -105,17 +175,23 @@ public class AlertController {
      * Retrieves phone numbers of residents served by a specific fire station.
      *
      * @param firestation the fire station number
+     * @param request the current request, read for {@code If-None-Match}
      * @return list of {@link PhoneAlertDTO} or {@code 400 Bad Request} if missing,
-     * {@code 404 Not Found} if none found
+     * {@code 404 Not Found} if none found,
+     * {@code 304 Not Modified} if the data did not change since the tag in {@code If-None-Match}
      */
     @GetMapping("/phoneAlert")
-    public ResponseEntity<List<PhoneAlertDTO>> getPhoneByFireStation(@RequestParam String firestation) {
+    public ResponseEntity<List<PhoneAlertDTO>> getPhoneByFireStation(@RequestParam String firestation, WebRequest request) {
         if (firestation == null || firestation.isBlank()) {
             logger.error("Firestation parameter is missing or blank");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        List<PhoneAlertDTO> phones = alertService.getPhoneNumberByFireStation(firestation);
+        if (request.checkNotModified(dataVersionService.etag())) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+
+        List<PhoneAlertDTO> phones = alertCacheService.get(Query.PHONE_ALERT, firestation, () -> alertService.getPhoneNumberByFireStation(firestation));
 
         if (phones.isEmpty()) {
             logger.info("No phone numbers found for firestation: {}", firestation);
@@ -130,17 +206,23 @@ public class AlertController {
      * Retrieves persons living at a specified address with fire station coverage information.
      *
      * @param address the address to search
+     * @param request the current request, read for {@code If-None-Match}
      * @return list of {@link FireDTO} or {@code 400 Bad Request} if missing,
-     * {@code 404 Not Found} if none found
+     * {@code 404 Not Found} if none found,
+     * {@code 304 Not Modified} if the data did not change since the tag in {@code If-None-Match}
      */
     @GetMapping("/fire")
-    public ResponseEntity<List<FireDTO>> getPersonByAddress(@RequestParam String address) {
+    public ResponseEntity<List<FireDTO>> getPersonByAddress(@RequestParam String address, WebRequest request) {
         if (address == null || address.isBlank()) {
             logger.error("Address parameter is missing or blank");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        List<FireDTO> fireDTOList = alertService.getPersonByAddress(address);
+        if (request.checkNotModified(dataVersionService.etag())) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+
+        List<FireDTO> fireDTOList = alertCacheService.get(Query.FIRE, address, () -> alertService.getPersonByAddress(address));
 
         if (fireDTOList.isEmpty()) {
             logger.info("No persons found at fire address: {}", address);
@@ -153,29 +235,106 @@ public class AlertController {
 
     /**
      * Retrieves flood-related data (residents and their medical records) for a list of station numbers.
+     * The response is streamed one resident at a time, so its size does not depend on memory.
+     * With {@code limit} or {@code cursor}, returns one page sorted by address then name; the cursor of the
+     * next page, if any, is sent in the {@code X-Next-Cursor} header.
+     * A stream still running after {@code alerts.flood.timeout-ms} is ended.
      *
      * @param stations the list of station numbers
-     * @return list of {@link FloodStationsDTO} or {@code 400 Bad Request} if input is invalid,
-     * {@code 404 Not Found} if none found
+     * @param limit    the maximum number of residents of a page, capped by the server
+     * @param cursor   the cursor returned with the previous page
+     * @param request  the current request, read for {@code If-None-Match}
+     * @param response the response the residents are written to
+     * @return the task streaming the list of {@link FloodStationsDTO}, or {@code null} with
+     * {@code 400 Bad Request} if input is invalid,
+     * {@code 404 Not Found} if none found,
+     * {@code 304 Not Modified} if the data did not change since the tag in {@code If-None-Match}
      */
     @GetMapping("/flood/stations")
-    public ResponseEntity<List<FloodStationsDTO>> getPersonByListOfStations(@RequestParam List<String> stations) {
+    public WebAsyncTask<Void> getPersonByListOfStations(@RequestParam List<String> stations,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        WebRequest request,
+                                                        HttpServletResponse response) {
         if (stations == null || stations.isEmpty()) {
             logger.error("Stations parameter is missing or empty");
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        if (limit != null && limit < 1) {
+            logger.error("Invalid page limit {}", limit);
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
         }
 
-        List<FloodStationsDTO> result = alertService.getPersonByListOfStations(stations);
+        if (request.checkNotModified(dataVersionService.etag())) {
+            // The 304 status and the tag are already set on the response
+            return null;
+        }
 
-        if (result.isEmpty()) {
+        Iterator<FloodStationsDTO> result;
+        String nextCursor = null;
+        if (limit != null || cursor != null) {
+            PageDTO<FloodStationsDTO> page;
+            try {
+                page = alertService.getPersonByListOfStations(stations, cursor, limit == null ? Integer.MAX_VALUE : limit);
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid cursor {}", cursor);
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+            }
+            result = page.getItems().iterator();
+            nextCursor = page.getNextCursor();
+        } else {
+            result = alertService.streamPersonByListOfStations(stations).iterator();
+        }
+
+        if (!result.hasNext() && cursor == null) {
             if (logger.isInfoEnabled()) {
                 String stationList = String.join(", ", stations);
                 logger.info("No data found for stations: {}", stationList);
             }
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return null;
+        }
+
+        logger.info("Streaming flood alert data for {} station(s)", stations.size());
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                while (result.hasNext()) {
+                    generator.writeObject(result.next());
+                }
+                generator.writeEndArray();
+            } catch (IOException e) {
+                logger.error("Error streaming flood alert data", e);
+                throw e;
+            }
+        };
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (nextCursor != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, nextCursor);
         }
+        return StreamingResponses.stream(response, floodTimeoutMillis, body);
+    }
 
-        logger.info("Retrieved flood alert data for {} station(s)", stations.size());
-        return new ResponseEntity<>(result, HttpStatus.OK);
+    /**
+     * Retrieves the counters of the alert result cache.
+     *
+     * @return the cache size and its hit, miss, eviction and invalidation counts
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return new ResponseEntity<>(alertCacheService.getStats(), HttpStatus.OK);
+    }
+
+    private static HttpHeaders nextCursor(PageDTO<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.set(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return headers;
     }
 }
@@ -0,0 +1,56 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.BatchOperationDTO;
+import com.safetynet.alerts.dto.BatchResultDTO;
+import com.safetynet.alerts.service.BatchService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller applying several mutations of persons, fire stations and medical records at once.
+ */
+@RestController
+public class BatchController {
+
+    private static final Logger logger = LogManager.getLogger(BatchController.class.getName());
+
+    private final BatchService batchService;
+
+    @Autowired
+    public BatchController(BatchService batchService) {
+        this.batchService = batchService;
+    }
+
+    /**
+     * Applies a batch of mutations, all or nothing, and persists them in a single write.
+     * Each mutation follows the rules of the matching POST, PUT or DELETE endpoint and sees the effect
+     * of the previous ones.
+     *
+     * @param operations the mutations, in order
+     * @return {@code 200 OK} with the number of mutations applied,
+     * {@code 400 Bad Request} if the batch is empty,
+     * or the status of the first refused mutation with the list of errors, in which case nothing is applied
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResultDTO> applyBatch(@RequestBody List<BatchOperationDTO> operations) {
+        if (operations == null || operations.isEmpty()) {
+            logger.error("Empty batch");
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        BatchResultDTO result = batchService.apply(operations);
+        if (!result.getErrors().isEmpty()) {
+            logger.warn("Batch refused: {} error(s)", result.getErrors().size());
+            return new ResponseEntity<>(result, HttpStatus.valueOf(result.getErrors().getFirst().getStatus()));
+        }
+        logger.info("Batch applied: {} mutation(s)", result.getApplied());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+}
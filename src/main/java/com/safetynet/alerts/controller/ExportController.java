@@ -0,0 +1,102 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST controller exporting the current dataset.
+ * <p>
+ * A large export to a slow client can outlast the default async request timeout, so the export runs under
+ * its own, {@code data.export.timeout-ms}.
+ */
+@RestController
+public class ExportController {
+
+    private static final Logger logger = LogManager.getLogger(ExportController.class.getName());
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ExportService exportService;
+
+    @Value("${data.export.timeout-ms:600000}")
+    private long timeoutMillis;
+
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Streams a consistent snapshot of the dataset, captured when the request is received.
+     *
+     * @param format   {@code json} for a document shaped like data.json, {@code ndjson} for one item per line
+     * @param section  a single section to export, all sections if absent
+     * @param gzip     true to gzip the response ({@code Content-Encoding: gzip})
+     * @param response the response the export is written to
+     * @return the task streaming the export with {@code 200 OK},
+     * or {@code null} with {@code 400 Bad Request} if the format or the section is unknown
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> export(@RequestParam(defaultValue = "json") String format,
+                                     @RequestParam(required = false) String section,
+                                     @RequestParam(defaultValue = "false") boolean gzip,
+                                     HttpServletResponse response) {
+        ExportService.Format exportFormat;
+        try {
+            exportFormat = ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.error("Unknown export format {}", format);
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        Set<DataSection> sections = EnumSet.allOf(DataSection.class);
+        if (section != null) {
+            DataSection dataSection = DataSection.fromKey(section);
+            if (dataSection == null) {
+                logger.error("Unknown export section {}", section);
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+            }
+            sections = EnumSet.of(dataSection);
+        }
+
+        ExportService.DataSnapshot snapshot = exportService.snapshot();
+        Set<DataSection> exported = sections;
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                exportService.write(snapshot, exported, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                exportService.write(snapshot, exported, exportFormat, out);
+            }
+            out.flush();
+        };
+        logger.info("Exporting {} as {}", exported, exportFormat);
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(exportFormat == ExportService.Format.JSON ? MediaType.APPLICATION_JSON_VALUE : NDJSON);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return StreamingResponses.stream(response, timeoutMillis, body);
+    }
+}
@@ -2,6 +2,7 @@ package com.safetynet.alerts.controller;
 
 import com.safetynet.alerts.dto.FireStationResponseDTO;
 import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.service.DataVersionService;
 import com.safetynet.alerts.service.FireStationService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -9,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Optional;
 
@@ -21,10 +23,12 @@ public class FireStationController {
     private static final Logger logger = LogManager.getLogger(FireStationController.class.getName());
 
     private final FireStationService fireStationService;
+    private final DataVersionService dataVersionService;
 
     @Autowired
-    public FireStationController(FireStationService fireStationService) {
+    public FireStationController(FireStationService fireStationService, DataVersionService dataVersionService) {
         this.fireStationService = fireStationService;
+        this.dataVersionService = dataVersionService;
     }
 
     /**
@@ -56,15 +60,21 @@ public class FireStationController {
      * Retrieves all persons covered by a specific fire station number.
      *
      * @param stationNumber the fire station number
-     * @return DTO containing list of persons and counts
+     * @param request       the current request, read for {@code If-None-Match}
+     * @return DTO containing list of persons and counts,
+     * {@code 304 Not Modified} if the data did not change since the tag in {@code If-None-Match}
      */
     @GetMapping("/firestation")
-    public ResponseEntity<FireStationResponseDTO> getPersonByStationNumber(@RequestParam("stationNumber") String stationNumber) {
+    public ResponseEntity<FireStationResponseDTO> getPersonByStationNumber(@RequestParam("stationNumber") String stationNumber, WebRequest request) {
         if (stationNumber == null || stationNumber.isBlank()) {
             logger.error("Station number parameter is missing or blank");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
+        if (request.checkNotModified(dataVersionService.etag())) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+
         FireStationResponseDTO response = fireStationService.getPersonByStationNumber(stationNumber);
         logger.info("Retrieved fire station response for station number: {}", stationNumber);
         return new ResponseEntity<>(response, HttpStatus.OK);
@@ -0,0 +1,76 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.ImportResultDTO;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.service.BulkImportService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * REST controller importing persons, fire stations or medical records in bulk.
+ */
+@RestController
+public class ImportController {
+
+    private static final Logger logger = LogManager.getLogger(ImportController.class.getName());
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BulkImportService bulkImportService;
+
+    @Autowired
+    public ImportController(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    /**
+     * Imports an NDJSON body, one person, fire station or medical record per line.
+     * The items are added in a single batch and persisted once; the response streams one NDJSON result
+     * per non-blank line: {@code CREATED}, {@code DUPLICATE} or {@code INVALID} with a message.
+     *
+     * @param section the section to import into: persons, firestations or medicalrecords
+     * @param body    the NDJSON request body
+     * @return {@code 200 OK} with the per-line results,
+     * {@code 400 Bad Request} if the section is unknown
+     */
+    @PostMapping(value = "/import/{section}", consumes = {NDJSON, MediaType.TEXT_PLAIN_VALUE}, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> importSection(@PathVariable String section, InputStream body) {
+        DataSection dataSection = DataSection.fromKey(section);
+        if (dataSection == null) {
+            logger.error("Unknown import section {}", section);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<ImportResultDTO> results = bulkImportService.importLines(dataSection, body);
+        logger.info("Imported {} line(s) into {}", results.size(), dataSection.getKey());
+        StreamingResponseBody stream = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                for (ImportResultDTO result : results) {
+                    generator.writeObject(result);
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                logger.error("Error streaming import results", e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(stream);
+    }
+}
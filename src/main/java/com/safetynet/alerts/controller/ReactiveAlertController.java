@@ -0,0 +1,190 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.*;
+import com.safetynet.alerts.service.ReactiveAlertService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import reactor.core.publisher.Flux;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streaming variant of {@link AlertController} for clients polling many addresses or stations at once.
+ * <p>
+ * Every endpoint answers the same query as its {@link AlertController} counterpart under {@code /reactive},
+ * as an NDJSON stream with one item per line. The response is written asynchronously: the request thread
+ * is released at once, and the next item is only requested once the previous one is written, so a slow
+ * client never makes the result buffer up. Writes are blocking though, so a slow client does hold a thread
+ * of the bounded executor configured in {@link com.safetynet.alerts.config.ReactiveAsyncConfig} until its
+ * write completes or times out. A stream still running after {@code alerts.reactive.async.timeout-ms} is ended.
+ * Both only apply to these endpoints. The address endpoints accept several addresses.
+ * Since nothing is computed upfront, an empty result is an empty stream rather than {@code 404 Not Found}.
+ * Enabled with {@code alerts.reactive.enabled}.
+ */
+@RestController
+@RequestMapping(value = "/reactive", produces = MediaType.APPLICATION_NDJSON_VALUE)
+@ConditionalOnProperty(name = "alerts.reactive.enabled", havingValue = "true")
+public class ReactiveAlertController {
+
+    private static final Logger logger = LogManager.getLogger(ReactiveAlertController.class.getName());
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ReactiveAlertService reactiveAlertService;
+    private final AsyncTaskExecutor executor;
+
+    @Value("${alerts.reactive.async.timeout-ms:30000}")
+    private long timeoutMillis;
+
+    @Autowired
+    public ReactiveAlertController(ReactiveAlertService reactiveAlertService, @Qualifier("reactiveAlertExecutor") AsyncTaskExecutor executor) {
+        this.reactiveAlertService = reactiveAlertService;
+        this.executor = executor;
+    }
+
+    /**
+     * Streams person information by last name.
+     *
+     * @param lastName the last name to search
+     * @param response the response the stream is written to
+     * @return the task streaming {@link PersonInfoDTO}, or {@code null} with {@code 400 Bad Request} if missing
+     */
+    @GetMapping("/personInfo")
+    public WebAsyncTask<Void> getPersonInfo(@RequestParam String lastName, HttpServletResponse response) {
+        if (isBlank(lastName)) {
+            logger.error("lastName parameter is missing or blank");
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        return stream(response, reactiveAlertService.getPersonInfoLastName(lastName));
+    }
+
+    /**
+     * Streams the children living at the given addresses and their household members.
+     *
+     * @param address the addresses to search
+     * @param response the response the stream is written to
+     * @return the task streaming {@link ChildAlertDTO}, or {@code null} with {@code 400 Bad Request} if missing
+     */
+    @GetMapping("/childAlert")
+    public WebAsyncTask<Void> getChildAlertByAddress(@RequestParam List<String> address, HttpServletResponse response) {
+        if (address.isEmpty() || address.stream().anyMatch(ReactiveAlertController::isBlank)) {
+            logger.error("Address parameter is missing or blank");
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        logger.info("Streaming child alerts for {} address(es)", address.size());
+        return stream(response, reactiveAlertService.getChildByAddress(address));
+    }
+
+    /**
+     * Streams the email addresses of the residents of a city.
+     *
+     * @param city the name of the city
+     * @param response the response the stream is written to
+     * @return the task streaming {@link CommunityEmailDTO}, or {@code null} with {@code 400 Bad Request} if missing
+     */
+    @GetMapping("/communityEmail")
+    public WebAsyncTask<Void> getEmailByCity(@RequestParam String city, HttpServletResponse response) {
+        if (isBlank(city)) {
+            logger.error("City parameter is missing or blank");
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        return stream(response, reactiveAlertService.getEmailByCity(city));
+    }
+
+    /**
+     * Streams the phone numbers of the residents served by a fire station.
+     *
+     * @param firestation the fire station number
+     * @param response the response the stream is written to
+     * @return the task streaming {@link PhoneAlertDTO}, or {@code null} with {@code 400 Bad Request} if missing
+     */
+    @GetMapping("/phoneAlert")
+    public WebAsyncTask<Void> getPhoneByFireStation(@RequestParam String firestation, HttpServletResponse response) {
+        if (isBlank(firestation)) {
+            logger.error("Firestation parameter is missing or blank");
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        return stream(response, reactiveAlertService.getPhoneNumberByFireStation(firestation));
+    }
+
+    /**
+     * Streams the residents of the given addresses with fire station coverage information.
+     *
+     * @param address the addresses to search
+     * @param response the response the stream is written to
+     * @return the task streaming {@link FireDTO}, or {@code null} with {@code 400 Bad Request} if missing
+     */
+    @GetMapping("/fire")
+    public WebAsyncTask<Void> getPersonByAddress(@RequestParam List<String> address, HttpServletResponse response) {
+        if (address.isEmpty() || address.stream().anyMatch(ReactiveAlertController::isBlank)) {
+            logger.error("Address parameter is missing or blank");
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        logger.info("Streaming fire alerts for {} address(es)", address.size());
+        return stream(response, reactiveAlertService.getPersonByAddress(address));
+    }
+
+    /**
+     * Streams flood-related data for a list of station numbers.
+     *
+     * @param stations the list of station numbers
+     * @param response the response the stream is written to
+     * @return the task streaming {@link FloodStationsDTO}, or {@code null} with {@code 400 Bad Request} if input is invalid
+     */
+    @GetMapping("/flood/stations")
+    public WebAsyncTask<Void> getPersonByListOfStations(@RequestParam List<String> stations, HttpServletResponse response) {
+        if (stations.isEmpty()) {
+            logger.error("Stations parameter is missing or empty");
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        logger.info("Streaming flood alert data for {} station(s)", stations.size());
+        return stream(response, reactiveAlertService.getPersonByListOfStations(stations));
+    }
+
+    private WebAsyncTask<Void> stream(HttpServletResponse response, Flux<?> items) {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return StreamingResponses.stream(response, timeoutMillis, executor, out -> {
+            // Closing the stream cancels the subscription if the client goes away or the request times out
+            try (Stream<?> stream = items.toStream(1);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                Iterator<?> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                    generator.writeRaw('\n');
+                    // Written item by item: the next one is only requested once this one is sent
+                    generator.flush();
+                }
+            }
+        });
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
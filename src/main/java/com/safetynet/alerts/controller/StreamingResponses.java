@@ -0,0 +1,57 @@
+package com.safetynet.alerts.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+
+/**
+ * Streamed response bodies with a timeout, and optionally an executor, of their own.
+ * <p>
+ * A {@link StreamingResponseBody} returned by a handler always runs under the application-wide MVC async
+ * timeout and executor. The tasks built here carry their own instead, and write straight to the servlet
+ * response: its status and headers must be set before the task is returned. A handler answering without
+ * a body sets the status and returns {@code null} instead of a task.
+ */
+final class StreamingResponses {
+
+    private StreamingResponses() {
+    }
+
+    /**
+     * Builds a task writing a body on the application-wide MVC async executor.
+     *
+     * @param response      the response to write to
+     * @param timeoutMillis the time after which the request is ended, even if the body is still being written
+     * @param body          writes the body
+     * @return the task to return from the handler
+     */
+    static WebAsyncTask<Void> stream(HttpServletResponse response, long timeoutMillis, StreamingResponseBody body) {
+        return new WebAsyncTask<>(timeoutMillis, write(response, body));
+    }
+
+    /**
+     * Builds a task writing a body on the given executor.
+     *
+     * @param response      the response to write to
+     * @param timeoutMillis the time after which the request is ended, even if the body is still being written
+     * @param executor      the executor running the task
+     * @param body          writes the body
+     * @return the task to return from the handler
+     */
+    static WebAsyncTask<Void> stream(HttpServletResponse response, long timeoutMillis, AsyncTaskExecutor executor, StreamingResponseBody body) {
+        return new WebAsyncTask<>(timeoutMillis, executor, write(response, body));
+    }
+
+    private static Callable<Void> write(HttpServletResponse response, StreamingResponseBody body) {
+        return () -> {
+            OutputStream out = response.getOutputStream();
+            body.writeTo(out);
+            out.flush();
+            return null;
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.safetynet.alerts.dto;
+
+/**
+ * Reason why one mutation of a batch was refused.
+ */
+public class BatchErrorDTO {
+
+    private int index;
+    private int status;
+    private String message;
+
+    public BatchErrorDTO(int index, int status, String message) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
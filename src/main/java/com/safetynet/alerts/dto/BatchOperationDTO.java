@@ -0,0 +1,57 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One mutation of a batch: the creation, update or deletion of a person, fire station or medical record.
+ * The value holds the same body as the matching POST or PUT endpoint; for a deletion, only its key fields
+ * (first and last name, or address) are read.
+ */
+public class BatchOperationDTO {
+
+    /**
+     * Kind of mutation, with the semantics of the matching POST, PUT or DELETE endpoint.
+     */
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private Operation op;
+    private String section;
+    private JsonNode value;
+
+    public BatchOperationDTO(Operation op, String section, JsonNode value) {
+        this.op = op;
+        this.section = section;
+        this.value = value;
+    }
+
+    public BatchOperationDTO() {
+    }
+
+    public Operation getOp() {
+        return op;
+    }
+
+    public void setOp(Operation op) {
+        this.op = op;
+    }
+
+    public String getSection() {
+        return section;
+    }
+
+    public void setSection(String section) {
+        this.section = section;
+    }
+
+    public JsonNode getValue() {
+        return value;
+    }
+
+    public void setValue(JsonNode value) {
+        this.value = value;
+    }
+}
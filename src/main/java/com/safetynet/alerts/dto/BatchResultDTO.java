@@ -0,0 +1,33 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch: either every mutation was applied, or none was and the errors say why.
+ */
+public class BatchResultDTO {
+
+    private int applied;
+    private List<BatchErrorDTO> errors;
+
+    public BatchResultDTO(int applied, List<BatchErrorDTO> errors) {
+        this.applied = applied;
+        this.errors = errors;
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public void setApplied(int applied) {
+        this.applied = applied;
+    }
+
+    public List<BatchErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BatchErrorDTO> errors) {
+        this.errors = errors;
+    }
+}
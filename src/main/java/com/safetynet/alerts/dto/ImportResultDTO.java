@@ -0,0 +1,53 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one line of a bulk import.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResultDTO {
+
+    /**
+     * What happened to an imported line.
+     */
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private int line;
+    private Status status;
+    private String message;
+
+    public ImportResultDTO(int line, Status status, String message) {
+        this.line = line;
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
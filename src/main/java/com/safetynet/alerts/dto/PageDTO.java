@@ -0,0 +1,40 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+
+/**
+ * One page of a paginated result, with the cursor of the next page.
+ *
+ * @param <T> the type of the items
+ */
+public class PageDTO<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+    public PageDTO(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    /**
+     * Returns the cursor of the next page.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.safetynet.alerts.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Sections of the persisted dataset, named after their key in data.json.
+ */
+public enum DataSection {
+    PERSONS("persons"),
+    FIRE_STATIONS("firestations"),
+    MEDICAL_RECORDS("medicalrecords");
+
+    private final String key;
+
+    DataSection(String key) {
+        this.key = key;
+    }
+
+    @JsonValue
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Finds the section stored under a data.json key.
+     *
+     * @param key the key of the section in data.json
+     * @return the section, or null if the key is not a known section
+     */
+    public static DataSection fromKey(String key) {
+        for (DataSection section : values()) {
+            if (section.key.equals(key)) {
+                return section;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,82 @@
+package com.safetynet.alerts.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * One record of the mutation journal.
+ * An entry states the whole current value of one key, so replaying it twice gives the same result:
+ * a PUT replaces the stored value, a DELETE removes it.
+ * Persons and medical records are keyed by [firstName, lastName]; fire stations are keyed by
+ * [address] and their value is the array of every mapping of that address.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JournalEntry {
+
+    public enum Operation {
+        PUT,
+        DELETE
+    }
+
+    private DataSection section;
+    private Operation op;
+    private List<String> key;
+    private JsonNode value;
+
+    public JournalEntry(DataSection section, Operation op, List<String> key, JsonNode value) {
+        this.section = section;
+        this.op = op;
+        this.key = key;
+        this.value = value;
+    }
+
+    public JournalEntry() {
+    }
+
+    public static JournalEntry put(DataSection section, List<String> key, JsonNode value) {
+        return new JournalEntry(section, Operation.PUT, key, value);
+    }
+
+    public static JournalEntry delete(DataSection section, List<String> key) {
+        return new JournalEntry(section, Operation.DELETE, key, null);
+    }
+
+    public DataSection getSection() {
+        return section;
+    }
+
+    public void setSection(DataSection section) {
+        this.section = section;
+    }
+
+    public Operation getOp() {
+        return op;
+    }
+
+    public void setOp(Operation op) {
+        this.op = op;
+    }
+
+    public List<String> getKey() {
+        return key;
+    }
+
+    public void setKey(List<String> key) {
+        this.key = key;
+    }
+
+    public JsonNode getValue() {
+        return value;
+    }
+
+    public void setValue(JsonNode value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return this.op + " " + this.section.getKey() + " " + this.key;
+    }
+}
@@ -1,31 +1,111 @@
 package com.safetynet.alerts.repository;
 
 import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.utils.KeyUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SequencedMap;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Repository class for managing FireStation objects in memory.
+ * An address may be mapped to several stations, so the repository keeps both a
+ * station number -> addresses index and an address -> mappings index.
+ * Each mapping is stored under a sequence number, in insertion order, so that updating or deleting
+ * a mapping found through the address index does not scan every mapping.
+ * Stored mappings are never modified: an update replaces the instance, so published
+ * snapshots stay immutable.
+ * <p>
+ * The repository is thread-safe: reads are optimistic and lock-free in the common case,
+ * writes are exclusive (see {@link RepositoryLock}).
  */
 @Repository
 public class FireStationRepository {
 
     private static final Logger logger = LogManager.getLogger(FireStationRepository.class.getName());
 
-    private final List<FireStation> fireStationList = new ArrayList<>();
+    private final RepositoryLock lock;
+    private final Map<Long, FireStation> fireStations = new LinkedHashMap<>();
+    private final Map<String, SequencedMap<Long, FireStation>> fireStationsByAddress = new HashMap<>();
+    private final Map<String, Set<String>> addressesByStation = new HashMap<>();
+    private final List<Consumer<List<FireStation>>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private long nextSequence;
+    private long version;
+    private final AtomicReference<Snapshot<FireStation>> snapshot = new AtomicReference<>(new Snapshot<>(0, List.of()));
+
+    /**
+     * Creates an empty repository with a lock of its own.
+     */
+    public FireStationRepository() {
+        this(new RepositoryLock());
+    }
+
+    /**
+     * Creates an empty repository guarded by the lock shared with the other repositories.
+     *
+     * @param lock the lock guarding the repositories
+     */
+    @Autowired
+    public FireStationRepository(RepositoryLock lock) {
+        this.lock = lock;
+    }
 
     /**
      * Retrieves all fire stations in the repository.
+     * The returned list is the shared current snapshot and cannot be modified.
      *
      * @return a list of all stored fire stations
      */
     public List<FireStation> getAllFireStation() {
-        return new ArrayList<>(fireStationList);
+        return getSnapshot().getItems();
+    }
+
+    /**
+     * Retrieves the current immutable snapshot of the repository.
+     * The snapshot of a version is copied by the first reads after the write, outside any monitor:
+     * concurrent readers do not queue behind one another, at worst they copy the same version twice.
+     *
+     * @return the current snapshot
+     */
+    public Snapshot<FireStation> getSnapshot() {
+        Snapshot<FireStation> current = snapshot.get();
+        if (current.getVersion() == getVersion()) {
+            return current;
+        }
+        return publishSnapshot();
+    }
+
+    /**
+     * Returns the current data version, incremented by every mutation.
+     *
+     * @return the repository version
+     */
+    public long getVersion() {
+        return lock.read(() -> version);
+    }
+
+    /**
+     * Registers a listener notified of every mutation with the mappings it touched, before and after the change.
+     * Listeners run under the write lock: they must be quick and must not write to the repositories.
+     *
+     * @param listener the listener to notify
+     */
+    public void addChangeListener(Consumer<List<FireStation>> listener) {
+        changeListeners.add(listener);
     }
 
     /**
@@ -34,7 +114,54 @@ public class FireStationRepository {
      * @param fireStation the fire station to add
      */
     public void addFireStation(FireStation fireStation) {
-        fireStationList.add(fireStation);
+        lock.write(() -> {
+            store(KeyUtils.normalize(fireStation.getAddress()), fireStation);
+            changed(List.of(fireStation));
+        });
+    }
+
+    /**
+     * Adds several mappings in a single write, published as one new version.
+     * Like {@link #addFireStation(FireStation)}, a mapping is added even if its address is already served
+     * by another station.
+     *
+     * @param fireStations the mappings to add, in order
+     */
+    public void appendFireStations(List<FireStation> fireStations) {
+        if (fireStations.isEmpty()) {
+            return;
+        }
+        lock.write(() -> {
+            for (FireStation fireStation : fireStations) {
+                store(KeyUtils.normalize(fireStation.getAddress()), fireStation);
+            }
+            changed(fireStations);
+        });
+    }
+
+    /**
+     * Maps several new addresses in a single write, published as one new version.
+     * A mapping whose address is already mapped, or earlier in the list, is skipped.
+     *
+     * @param fireStations the mappings to add
+     * @return the mappings actually added, in list order
+     */
+    public List<FireStation> addAllFireStations(List<FireStation> fireStations) {
+        return lock.write(() -> {
+            List<FireStation> added = new ArrayList<>();
+            for (FireStation fireStation : fireStations) {
+                String addressKey = KeyUtils.normalize(fireStation.getAddress());
+                if (fireStationsByAddress.containsKey(addressKey)) {
+                    continue;
+                }
+                store(addressKey, fireStation);
+                added.add(fireStation);
+            }
+            if (!added.isEmpty()) {
+                changed(added);
+            }
+            return added;
+        });
     }
 
     /**
@@ -45,25 +172,46 @@ public class FireStationRepository {
      * @param fireStation the updated fire station object
      */
     public void updateFireStation(FireStation fireStation) {
-        fireStationList.stream()
-                .filter(fireStationLooking -> fireStationLooking.getAddress().equalsIgnoreCase(fireStation.getAddress()))
-                .findFirst()
-                .ifPresentOrElse(fireStationUpdate -> fireStationUpdate.setStation(fireStation.getStation()),
-                        () -> logger.warn("Attempted to update non-existing FireStation for {}",
-                                fireStation.getAddress())
-                );
+        lock.write(() -> {
+            String addressKey = KeyUtils.normalize(fireStation.getAddress());
+            SequencedMap<Long, FireStation> mappings = fireStationsByAddress.get(addressKey);
+            if (mappings == null) {
+                logger.warn("Attempted to update non-existing FireStation for {}", fireStation.getAddress());
+                return;
+            }
+            Map.Entry<Long, FireStation> first = mappings.firstEntry();
+            FireStation current = first.getValue();
+            FireStation updated = new FireStation(current.getAddress(), fireStation.getStation());
+            mappings.put(first.getKey(), updated);
+            fireStations.put(first.getKey(), updated);
+            unindexStationIfUnused(current.getStation(), addressKey);
+            indexStation(updated.getStation(), addressKey);
+            changed(List.of(current, updated));
+        });
     }
 
     /**
      * Deletes a fire station from the repository by its address.
+     * When the address is mapped to several stations, only the first mapping is removed.
      *
      * @param address the address of the fire station to delete
      */
     public void deleteFireStation(String address) {
-        fireStationList.stream()
-                .filter(fireStationLooking -> fireStationLooking.getAddress().equalsIgnoreCase(address))
-                .findFirst()
-                .ifPresent(fireStationList::remove);
+        lock.write(() -> {
+            String addressKey = KeyUtils.normalize(address);
+            SequencedMap<Long, FireStation> mappings = fireStationsByAddress.get(addressKey);
+            if (mappings == null) {
+                return;
+            }
+            Map.Entry<Long, FireStation> first = mappings.pollFirstEntry();
+            if (mappings.isEmpty()) {
+                fireStationsByAddress.remove(addressKey);
+            }
+            FireStation removed = first.getValue();
+            fireStations.remove(first.getKey());
+            unindexStationIfUnused(removed.getStation(), addressKey);
+            changed(List.of(removed));
+        });
     }
 
     /**
@@ -73,10 +221,114 @@ public class FireStationRepository {
      * @return an Optional containing the fire station if found, or empty otherwise
      */
     public Optional<FireStation> getFireStationByAddress(String address) {
-        return fireStationList.stream()
-                .filter(fireStationLooking -> fireStationLooking.getAddress().equalsIgnoreCase(address))
-                .findFirst();
+        String addressKey = KeyUtils.normalize(address);
+        return Optional.ofNullable(lock.read(() -> {
+            SequencedMap<Long, FireStation> mappings = fireStationsByAddress.get(addressKey);
+            return mappings == null ? null : mappings.firstEntry().getValue();
+        }));
     }
+
+    /**
+     * Retrieves every mapping of an address, in insertion order.
+     *
+     * @param address the address to search
+     * @return the mappings of this address, or an empty list if the address is unknown
+     */
+    public List<FireStation> getFireStationsByAddress(String address) {
+        String addressKey = KeyUtils.normalize(address);
+        return lock.read(() -> {
+            SequencedMap<Long, FireStation> mappings = fireStationsByAddress.get(addressKey);
+            return mappings == null ? new ArrayList<FireStation>() : new ArrayList<>(mappings.values());
+        });
+    }
+
+    /**
+     * Replaces every mapping of an address with the given ones, in a single write.
+     *
+     * @param address     the address whose mappings are replaced
+     * @param fireStations the new mappings of this address, empty to remove the address
+     */
+    public void replaceFireStations(String address, List<FireStation> fireStations) {
+        replaceFireStations(Map.of(address, fireStations));
+    }
+
+    /**
+     * Replaces the mappings of several addresses in a single write, published as one new version.
+     * Readers see either none or all of the changes.
+     *
+     * @param mappingsByAddress the new mappings of each address, an empty list removing the address
+     */
+    public void replaceFireStations(Map<String, List<FireStation>> mappingsByAddress) {
+        if (mappingsByAddress.isEmpty()) {
+            return;
+        }
+        lock.write(() -> {
+            // Every previous mapping is unlinked before the new ones are stored, so that two spellings
+            // of the same address in the map do not remove each other's replacements
+            List<FireStation> touched = new ArrayList<>();
+            for (String address : mappingsByAddress.keySet()) {
+                String addressKey = KeyUtils.normalize(address);
+                SequencedMap<Long, FireStation> mappings = fireStationsByAddress.remove(addressKey);
+                if (mappings != null) {
+                    for (Map.Entry<Long, FireStation> mapping : mappings.entrySet()) {
+                        fireStations.remove(mapping.getKey());
+                        unindexStationIfUnused(mapping.getValue().getStation(), addressKey);
+                        touched.add(mapping.getValue());
+                    }
+                }
+            }
+            mappingsByAddress.forEach((address, replacements) -> {
+                String addressKey = KeyUtils.normalize(address);
+                touched.addAll(replacements);
+                for (FireStation fireStation : replacements) {
+                    store(addressKey, fireStation);
+                }
+            });
+            changed(touched);
+        });
+    }
+
+    /**
+     * Retrieves the addresses covered by a station number.
+     * Each address is returned once, as spelled by its first mapping.
+     *
+     * @param station the station number
+     * @return the covered addresses, or an empty set if the station is unknown
+     */
+    public Set<String> getAddressesByStation(String station) {
+        String stationKey = KeyUtils.normalize(station);
+        return lock.read(() -> {
+            Set<String> addresses = new LinkedHashSet<>();
+            Set<String> addressKeys = addressesByStation.get(stationKey);
+            if (addressKeys != null) {
+                for (String addressKey : addressKeys) {
+                    addresses.add(fireStationsByAddress.get(addressKey).firstEntry().getValue().getAddress());
+                }
+            }
+            return addresses;
+        });
+    }
+
+    /**
+     * Retrieves the station numbers serving an address.
+     *
+     * @param address the address to search
+     * @return the distinct station numbers serving this address, in mapping order
+     */
+    public Set<String> getStationsByAddress(String address) {
+        String addressKey = KeyUtils.normalize(address);
+        return lock.read(() -> {
+            Set<String> stations = new LinkedHashSet<>();
+            SequencedMap<Long, FireStation> mappings = fireStationsByAddress.get(addressKey);
+            if (mappings != null) {
+                for (FireStation mapping : mappings.values()) {
+                    stations.add(mapping.getStation());
+                }
+            }
+            return stations;
+        });
+    }
+
     /**
      * Returns a blank/default FireStation object.
      *
@@ -85,4 +337,44 @@ public class FireStationRepository {
     public FireStation blankFireStation() {
         return new FireStation("", "");
     }
+
+    private void store(String addressKey, FireStation fireStation) {
+        long sequence = nextSequence++;
+        fireStations.put(sequence, fireStation);
+        fireStationsByAddress.computeIfAbsent(addressKey, a -> new LinkedHashMap<>()).put(sequence, fireStation);
+        indexStation(fireStation.getStation(), addressKey);
+    }
+
+    private void indexStation(String station, String addressKey) {
+        addressesByStation.computeIfAbsent(KeyUtils.normalize(station), s -> new LinkedHashSet<>()).add(addressKey);
+    }
+
+    private void unindexStationIfUnused(String station, String addressKey) {
+        String stationKey = KeyUtils.normalize(station);
+        SequencedMap<Long, FireStation> mappings = fireStationsByAddress.get(addressKey);
+        if (mappings != null && mappings.values().stream().anyMatch(m -> KeyUtils.normalize(m.getStation()).equals(stationKey))) {
+            return;
+        }
+        Set<String> addressKeys = addressesByStation.get(stationKey);
+        if (addressKeys != null) {
+            addressKeys.remove(addressKey);
+            if (addressKeys.isEmpty()) {
+                addressesByStation.remove(stationKey);
+            }
+        }
+    }
+
+    private void changed(List<FireStation> touched) {
+        version++;
+        for (Consumer<List<FireStation>> listener : changeListeners) {
+            listener.accept(touched);
+        }
+    }
+
+    private Snapshot<FireStation> publishSnapshot() {
+        Snapshot<FireStation> copy = lock.read(() -> new Snapshot<>(version, fireStations.values()));
+        // Never replaces a newer snapshot published by a reader that copied after a later write
+        return snapshot.accumulateAndGet(copy, (published, candidate) ->
+                candidate.getVersion() > published.getVersion() ? candidate : published);
+    }
 }
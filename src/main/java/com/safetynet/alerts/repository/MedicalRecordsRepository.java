@@ -1,39 +1,178 @@
 package com.safetynet.alerts.repository;
 
 import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.utils.KeyUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Repository class for managing in-memory medical records.
+ * Records are indexed by their normalized (firstName, lastName) key so that
+ * joining a person with its medical record costs a single hash lookup.
+ * Stored records are never modified: an update replaces the instance, so published
+ * snapshots stay immutable.
+ * <p>
+ * The repository is thread-safe: reads are optimistic and lock-free in the common case,
+ * writes are exclusive (see {@link RepositoryLock}).
  */
 @Repository
 public class MedicalRecordsRepository {
 
     private static final Logger logger = LogManager.getLogger(MedicalRecordsRepository.class.getName());
-    private final List<MedicalRecords> medicalRecordsList = new ArrayList<>();
+    private final RepositoryLock lock;
+    private final Map<String, MedicalRecords> medicalRecordsIndex = new LinkedHashMap<>();
+    private final List<Consumer<List<MedicalRecords>>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private long version;
+    private final AtomicReference<Snapshot<MedicalRecords>> snapshot = new AtomicReference<>(new Snapshot<>(0, List.of()));
+
+    /**
+     * Creates an empty repository with a lock of its own.
+     */
+    public MedicalRecordsRepository() {
+        this(new RepositoryLock());
+    }
+
+    /**
+     * Creates an empty repository guarded by the lock shared with the other repositories.
+     *
+     * @param lock the lock guarding the repositories
+     */
+    @Autowired
+    public MedicalRecordsRepository(RepositoryLock lock) {
+        this.lock = lock;
+    }
 
     /**
      * Retrieves all medical records.
+     * The returned list is the shared current snapshot and cannot be modified.
      *
      * @return A list of all stored medical records.
      */
     public List<MedicalRecords> getAllMedicalRecords() {
-        return new ArrayList<>(medicalRecordsList);
+        return getSnapshot().getItems();
+    }
+
+    /**
+     * Retrieves the current immutable snapshot of the repository.
+     * The snapshot of a version is copied by the first reads after the write, outside any monitor:
+     * concurrent readers do not queue behind one another, at worst they copy the same version twice.
+     *
+     * @return The current snapshot.
+     */
+    public Snapshot<MedicalRecords> getSnapshot() {
+        Snapshot<MedicalRecords> current = snapshot.get();
+        if (current.getVersion() == getVersion()) {
+            return current;
+        }
+        return publishSnapshot();
+    }
+
+    /**
+     * Returns the current data version, incremented by every mutation.
+     *
+     * @return The repository version.
+     */
+    public long getVersion() {
+        return lock.read(() -> version);
+    }
+
+    /**
+     * Registers a listener notified of every mutation with the medical records it touched, before and after the change.
+     * Listeners run under the write lock: they must be quick and must not write to the repositories.
+     *
+     * @param listener the listener to notify
+     */
+    public void addChangeListener(Consumer<List<MedicalRecords>> listener) {
+        changeListeners.add(listener);
     }
 
     /**
      * Adds a new medical record to the repository.
+     * A record whose first and last name are already present is ignored.
      *
      * @param medicalRecords The medical record to add.
      */
     public void addMedicalRecords(MedicalRecords medicalRecords) {
-        medicalRecordsList.add(medicalRecords);
+        lock.write(() -> {
+            MedicalRecords existing = medicalRecordsIndex.putIfAbsent(
+                    KeyUtils.nameKey(medicalRecords.getFirstName(), medicalRecords.getLastName()), medicalRecords);
+            if (existing != null) {
+                logger.warn("Medical record for {} {} already exists, add ignored",
+                        medicalRecords.getFirstName(), medicalRecords.getLastName());
+                return;
+            }
+            changed(List.of(medicalRecords));
+        });
+    }
+
+    /**
+     * Adds several new medical records in a single write, published as one new version.
+     * A record whose first and last name are already present, or earlier in the list, is skipped.
+     *
+     * @param medicalRecords The medical records to add.
+     * @return The medical records actually added, in list order.
+     */
+    public List<MedicalRecords> addAllMedicalRecords(List<MedicalRecords> medicalRecords) {
+        return lock.write(() -> {
+            List<MedicalRecords> added = new ArrayList<>();
+            for (MedicalRecords record : medicalRecords) {
+                if (medicalRecordsIndex.putIfAbsent(KeyUtils.nameKey(record.getFirstName(), record.getLastName()), record) == null) {
+                    added.add(record);
+                }
+            }
+            if (!added.isEmpty()) {
+                changed(added);
+            }
+            return added;
+        });
+    }
+
+    /**
+     * Adds a medical record, or replaces the stored record with the same first and last name.
+     *
+     * @param medicalRecords The medical record to store.
+     */
+    public void saveMedicalRecords(MedicalRecords medicalRecords) {
+        lock.write(() -> {
+            medicalRecordsIndex.put(KeyUtils.nameKey(medicalRecords.getFirstName(), medicalRecords.getLastName()), medicalRecords);
+            changed(List.of(medicalRecords));
+        });
+    }
+
+    /**
+     * Stores and removes several medical records in a single write, published as one new version.
+     * Readers see either none or all of the changes.
+     *
+     * @param saved   The medical records to add or replace, matched by first and last name.
+     * @param deleted The medical records to remove, matched by first and last name.
+     */
+    public void applyChanges(List<MedicalRecords> saved, List<MedicalRecords> deleted) {
+        if (saved.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+        lock.write(() -> {
+            List<MedicalRecords> touched = new ArrayList<>(deleted);
+            touched.addAll(saved);
+            for (MedicalRecords medicalRecords : deleted) {
+                medicalRecordsIndex.remove(KeyUtils.nameKey(medicalRecords.getFirstName(), medicalRecords.getLastName()));
+            }
+            for (MedicalRecords medicalRecords : saved) {
+                medicalRecordsIndex.put(KeyUtils.nameKey(medicalRecords.getFirstName(), medicalRecords.getLastName()), medicalRecords);
+            }
+            changed(touched);
+        });
     }
 
     /**
@@ -44,10 +183,8 @@ public class MedicalRecordsRepository {
      * @return An Optional containing the medical record if found, or empty otherwise.
      */
     public Optional<MedicalRecords> getMedicalRecords(String firstName, String lastName) {
-        return medicalRecordsList.stream()
-                .filter(medicalRecordsLooking -> medicalRecordsLooking.getFirstName().equalsIgnoreCase(firstName)
-                        && medicalRecordsLooking.getLastName().equalsIgnoreCase(lastName))
-                .findFirst();
+        String key = KeyUtils.nameKey(firstName, lastName);
+        return Optional.ofNullable(lock.read(() -> medicalRecordsIndex.get(key)));
     }
 
     /**
@@ -56,19 +193,19 @@ public class MedicalRecordsRepository {
      * @param medicalRecords The medical record containing updated information.
      */
     public void updateMedicalRecords(MedicalRecords medicalRecords) {
-        medicalRecordsList.stream()
-                .filter(mr -> mr.getFirstName().equalsIgnoreCase(medicalRecords.getFirstName()) &&
-                        mr.getLastName().equalsIgnoreCase(medicalRecords.getLastName()))
-                .findFirst()
-                .ifPresentOrElse(
-                        mrToUpdate -> {
-                            mrToUpdate.setBirthdate(medicalRecords.getBirthdate());
-                            mrToUpdate.setMedications(medicalRecords.getMedications());
-                            mrToUpdate.setAllergies(medicalRecords.getAllergies());
-                        },
-                        () -> logger.warn("Attempted to update non-existing medical record for {} {}",
-                                medicalRecords.getFirstName(), medicalRecords.getLastName())
-                );
+        lock.write(() -> {
+            String key = KeyUtils.nameKey(medicalRecords.getFirstName(), medicalRecords.getLastName());
+            MedicalRecords current = medicalRecordsIndex.get(key);
+            if (current == null) {
+                logger.warn("Attempted to update non-existing medical record for {} {}",
+                        medicalRecords.getFirstName(), medicalRecords.getLastName());
+                return;
+            }
+            MedicalRecords updated = new MedicalRecords(current.getFirstName(), current.getLastName(),
+                    medicalRecords.getBirthdate(), medicalRecords.getMedications(), medicalRecords.getAllergies());
+            medicalRecordsIndex.put(key, updated);
+            changed(List.of(current, updated));
+        });
     }
 
     /**
@@ -78,11 +215,12 @@ public class MedicalRecordsRepository {
      * @param lastName  The last name of the person.
      */
     public void deleteMedicalRecords(String firstName, String lastName) {
-        medicalRecordsList.stream()
-                .filter(personLooking -> personLooking.getFirstName().equalsIgnoreCase(firstName)
-                        && personLooking.getLastName().equalsIgnoreCase(lastName))
-                .findFirst()
-                .ifPresent(medicalRecordsList::remove);
+        lock.write(() -> {
+            MedicalRecords removed = medicalRecordsIndex.remove(KeyUtils.nameKey(firstName, lastName));
+            if (removed != null) {
+                changed(List.of(removed));
+            }
+        });
     }
 
     /**
@@ -93,4 +231,18 @@ public class MedicalRecordsRepository {
     public MedicalRecords blankMedicalRecords() {
         return new MedicalRecords("", "", "", new ArrayList<>(), new ArrayList<>());
     }
+
+    private void changed(List<MedicalRecords> touched) {
+        version++;
+        for (Consumer<List<MedicalRecords>> listener : changeListeners) {
+            listener.accept(touched);
+        }
+    }
+
+    private Snapshot<MedicalRecords> publishSnapshot() {
+        Snapshot<MedicalRecords> copy = lock.read(() -> new Snapshot<>(version, medicalRecordsIndex.values()));
+        // Never replaces a newer snapshot published by a reader that copied after a later write
+        return snapshot.accumulateAndGet(copy, (published, candidate) ->
+                candidate.getVersion() > published.getVersion() ? candidate : published);
+    }
 }
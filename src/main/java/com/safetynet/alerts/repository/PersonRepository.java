@@ -1,39 +1,188 @@
 package com.safetynet.alerts.repository;
 
 import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.utils.KeyUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Repository class for managing Person objects in memory.
+ * Persons are indexed by their normalized (firstName, lastName) key, in insertion order,
+ * and by their normalized address so that a household can be read without scanning everyone.
+ * Stored persons are never modified: an update replaces the instance, so published
+ * snapshots stay immutable.
+ * <p>
+ * The repository is thread-safe: reads are optimistic and lock-free in the common case,
+ * writes are exclusive (see {@link RepositoryLock}).
  */
 @Repository
 public class PersonRepository {
 
     private static final Logger logger = LogManager.getLogger(PersonRepository.class.getName());
-    private final List<Person> personList = new ArrayList<>();
+    private final RepositoryLock lock;
+    private final Map<String, Person> personIndex = new LinkedHashMap<>();
+    private final Map<String, Map<String, Person>> personsByAddress = new HashMap<>();
+    private final List<Consumer<List<Person>>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private long version;
+    private final AtomicReference<Snapshot<Person>> snapshot = new AtomicReference<>(new Snapshot<>(0, List.of()));
+
+    /**
+     * Creates an empty repository with a lock of its own.
+     */
+    public PersonRepository() {
+        this(new RepositoryLock());
+    }
+
+    /**
+     * Creates an empty repository guarded by the lock shared with the other repositories.
+     *
+     * @param lock the lock guarding the repositories
+     */
+    @Autowired
+    public PersonRepository(RepositoryLock lock) {
+        this.lock = lock;
+    }
 
     /**
      * Retrieves all persons in the repository.
+     * The returned list is the shared current snapshot and cannot be modified.
      *
      * @return a list of all stored persons
      */
     public List<Person> getAllPersons() {
-        return new ArrayList<>(personList);
+        return getSnapshot().getItems();
+    }
+
+    /**
+     * Retrieves the current immutable snapshot of the repository.
+     * The snapshot of a version is copied by the first reads after the write, outside any monitor:
+     * concurrent readers do not queue behind one another, at worst they copy the same version twice.
+     *
+     * @return the current snapshot
+     */
+    public Snapshot<Person> getSnapshot() {
+        Snapshot<Person> current = snapshot.get();
+        if (current.getVersion() == getVersion()) {
+            return current;
+        }
+        return publishSnapshot();
+    }
+
+    /**
+     * Returns the current data version, incremented by every mutation.
+     *
+     * @return the repository version
+     */
+    public long getVersion() {
+        return lock.read(() -> version);
+    }
+
+    /**
+     * Registers a listener notified of every mutation with the persons it touched, before and after the change.
+     * Listeners run under the write lock: they must be quick and must not write to the repositories.
+     *
+     * @param listener the listener to notify
+     */
+    public void addChangeListener(Consumer<List<Person>> listener) {
+        changeListeners.add(listener);
     }
 
     /**
      * Adds a new person to the repository.
+     * A person whose first and last name are already present is ignored.
      *
      * @param person the person to add
      */
     public void addPerson(Person person) {
-        personList.add(person);
+        lock.write(() -> {
+            String key = KeyUtils.nameKey(person.getFirstName(), person.getLastName());
+            Person existing = personIndex.putIfAbsent(key, person);
+            if (existing != null) {
+                logger.warn("Person {} {} already exists, add ignored", person.getFirstName(), person.getLastName());
+                return;
+            }
+            indexAddress(KeyUtils.normalize(person.getAddress()), key, person);
+            changed(List.of(person));
+        });
+    }
+
+    /**
+     * Adds several new persons in a single write, published as one new version.
+     * A person whose first and last name are already present, or earlier in the list, is skipped.
+     *
+     * @param persons the persons to add
+     * @return the persons actually added, in list order
+     */
+    public List<Person> addAllPersons(List<Person> persons) {
+        return lock.write(() -> {
+            List<Person> added = new ArrayList<>();
+            for (Person person : persons) {
+                String key = KeyUtils.nameKey(person.getFirstName(), person.getLastName());
+                if (personIndex.putIfAbsent(key, person) == null) {
+                    indexAddress(KeyUtils.normalize(person.getAddress()), key, person);
+                    added.add(person);
+                }
+            }
+            if (!added.isEmpty()) {
+                changed(added);
+            }
+            return added;
+        });
+    }
+
+    /**
+     * Adds a person, or replaces the stored person with the same first and last name.
+     *
+     * @param person the person to store
+     */
+    public void savePerson(Person person) {
+        lock.write(() -> {
+            Person previous = store(person);
+            changed(previous == null ? List.of(person) : List.of(previous, person));
+        });
+    }
+
+    /**
+     * Stores and removes several persons in a single write, published as one new version.
+     * Readers see either none or all of the changes.
+     *
+     * @param saved   the persons to add or replace, matched by first and last name
+     * @param deleted the persons to remove, matched by first and last name
+     */
+    public void applyChanges(List<Person> saved, List<Person> deleted) {
+        if (saved.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+        lock.write(() -> {
+            List<Person> touched = new ArrayList<>();
+            for (Person person : deleted) {
+                Person removed = remove(KeyUtils.nameKey(person.getFirstName(), person.getLastName()));
+                if (removed != null) {
+                    touched.add(removed);
+                }
+            }
+            for (Person person : saved) {
+                Person previous = store(person);
+                if (previous != null) {
+                    touched.add(previous);
+                }
+                touched.add(person);
+            }
+            changed(touched);
+        });
     }
 
     /**
@@ -44,10 +193,25 @@ public class PersonRepository {
      * @return an Optional containing the matched person, or empty if not found
      */
     public Optional<Person> getPerson(String firstName, String lastName) {
-        return personList.stream()
-                .filter(personLooking -> personLooking.getFirstName().equalsIgnoreCase(firstName) &&
-                        personLooking.getLastName().equalsIgnoreCase(lastName))
-                .findFirst();
+        String key = KeyUtils.nameKey(firstName, lastName);
+        return Optional.ofNullable(lock.read(() -> personIndex.get(key)));
+    }
+
+    /**
+     * Retrieves all persons living at the given address (case-insensitive).
+     *
+     * @param address the address to search
+     * @return the persons living at this address, in insertion order
+     */
+    public List<Person> getPersonsByAddress(String address) {
+        String addressKey = KeyUtils.normalize(address);
+        return lock.read(() -> {
+            Map<String, Person> household = personsByAddress.get(addressKey);
+            if (household == null) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(household.values());
+        });
     }
 
     /**
@@ -57,21 +221,26 @@ public class PersonRepository {
      * @param person the updated person object
      */
     public void updatePerson(Person person) {
-        personList.stream()
-                .filter(personLooking -> personLooking.getFirstName().equalsIgnoreCase(person.getFirstName()) &&
-                        personLooking.getLastName().equalsIgnoreCase(person.getLastName()))
-                .findFirst()
-                .ifPresentOrElse(
-                        personUpdate -> {
-                            personUpdate.setAddress(person.getAddress());
-                            personUpdate.setCity(person.getCity());
-                            personUpdate.setZip(person.getZip());
-                            personUpdate.setPhone(person.getPhone());
-                            personUpdate.setEmail(person.getEmail());
-                        },
-                        () -> logger.warn("Attempted to update non-existing person for {} {}",
-                                person.getFirstName(), person.getLastName())
-                );
+        lock.write(() -> {
+            String key = KeyUtils.nameKey(person.getFirstName(), person.getLastName());
+            Person current = personIndex.get(key);
+            if (current == null) {
+                logger.warn("Attempted to update non-existing person for {} {}",
+                        person.getFirstName(), person.getLastName());
+                return;
+            }
+            Person updated = new Person(current.getFirstName(), current.getLastName(), person.getAddress(),
+                    person.getCity(), person.getZip(), person.getPhone(), person.getEmail());
+            personIndex.put(key, updated);
+
+            String oldAddress = KeyUtils.normalize(current.getAddress());
+            String newAddress = KeyUtils.normalize(updated.getAddress());
+            if (!oldAddress.equals(newAddress)) {
+                unindexAddress(oldAddress, key);
+            }
+            indexAddress(newAddress, key, updated);
+            changed(List.of(current, updated));
+        });
     }
 
     /**
@@ -81,11 +250,12 @@ public class PersonRepository {
      * @param lastName  the person's last name
      */
     public void deletePerson(String firstName, String lastName) {
-        personList.stream()
-                .filter(personLooking -> personLooking.getFirstName().equalsIgnoreCase(firstName) &&
-                        personLooking.getLastName().equalsIgnoreCase(lastName))
-                .findFirst()
-                .ifPresent(personList::remove);
+        lock.write(() -> {
+            Person removed = remove(KeyUtils.nameKey(firstName, lastName));
+            if (removed != null) {
+                changed(List.of(removed));
+            }
+        });
     }
 
     /**
@@ -96,4 +266,51 @@ public class PersonRepository {
     public Person blankPerson() {
         return new Person("", "", "", "", "", "", "");
     }
+
+    private Person store(Person person) {
+        String key = KeyUtils.nameKey(person.getFirstName(), person.getLastName());
+        Person current = personIndex.put(key, person);
+        String newAddress = KeyUtils.normalize(person.getAddress());
+        if (current != null && !KeyUtils.normalize(current.getAddress()).equals(newAddress)) {
+            unindexAddress(KeyUtils.normalize(current.getAddress()), key);
+        }
+        indexAddress(newAddress, key, person);
+        return current;
+    }
+
+    private Person remove(String key) {
+        Person removed = personIndex.remove(key);
+        if (removed != null) {
+            unindexAddress(KeyUtils.normalize(removed.getAddress()), key);
+        }
+        return removed;
+    }
+
+    private void indexAddress(String addressKey, String key, Person person) {
+        personsByAddress.computeIfAbsent(addressKey, a -> new LinkedHashMap<>()).put(key, person);
+    }
+
+    private void unindexAddress(String addressKey, String key) {
+        Map<String, Person> household = personsByAddress.get(addressKey);
+        if (household != null) {
+            household.remove(key);
+            if (household.isEmpty()) {
+                personsByAddress.remove(addressKey);
+            }
+        }
+    }
+
+    private void changed(List<Person> touched) {
+        version++;
+        for (Consumer<List<Person>> listener : changeListeners) {
+            listener.accept(touched);
+        }
+    }
+
+    private Snapshot<Person> publishSnapshot() {
+        Snapshot<Person> copy = lock.read(() -> new Snapshot<>(version, personIndex.values()));
+        // Never replaces a newer snapshot published by a reader that copied after a later write
+        return snapshot.accumulateAndGet(copy, (published, candidate) ->
+                candidate.getVersion() > published.getVersion() ? candidate : published);
+    }
 }
@@ -0,0 +1,112 @@
+package com.safetynet.alerts.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency guard shared by the in-memory repositories.
+ * Reads first run optimistically without locking and are validated afterwards;
+ * if a writer interfered they are replayed under the read lock. Writes are exclusive.
+ * <p>
+ * A single instance guards the three repositories, so a change spanning them can be applied in one
+ * write, and a read spanning them sees all of it or none of it. The thread holding the write lock may
+ * read and write again without blocking: a repository method called inside such a write runs directly.
+ * <p>
+ * Optimistic readers may observe the indexes in an intermediate state and may run twice, so they must
+ * copy whatever they return, and their only side effects must be idempotent ones, such as publishing a
+ * snapshot that never replaces a newer one. An exception thrown by a read that no writer overlapped is
+ * propagated; one thrown by an overlapped read is taken for a torn read, and the read is replayed.
+ */
+@Component
+public final class RepositoryLock {
+
+    private final StampedLock lock = new StampedLock();
+
+    private volatile Thread writer;
+
+    /**
+     * Runs a read, optimistically first, then under the read lock if a write interfered.
+     *
+     * @param reader the read to run, free of side effects other than idempotent ones
+     * @param <T>    the type of the result
+     * @return the result of a read that did not overlap any write
+     */
+    public <T> T read(Supplier<T> reader) {
+        if (writer == Thread.currentThread()) {
+            return reader.get();
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            T result;
+            try {
+                result = reader.get();
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    // No writer interfered: the failure is the read's own
+                    throw e;
+                }
+                // The read raced with a writer and saw inconsistent state: retry under the read lock
+                return readLocked(reader);
+            }
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        return readLocked(reader);
+    }
+
+    /**
+     * Runs a read under the read lock, excluding writers for its whole duration.
+     *
+     * @param reader the read to run
+     * @param <T>    the type of the result
+     * @return the result of the read
+     */
+    public <T> T readLocked(Supplier<T> reader) {
+        if (writer == Thread.currentThread()) {
+            return reader.get();
+        }
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a mutation under the exclusive write lock.
+     *
+     * @param writer the mutation to run
+     */
+    public void write(Runnable writer) {
+        write(() -> {
+            writer.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a mutation under the exclusive write lock and returns its result.
+     *
+     * @param writer the mutation to run
+     * @param <T>    the type of the result
+     * @return the result of the mutation
+     */
+    public <T> T write(Supplier<T> writer) {
+        Thread current = Thread.currentThread();
+        if (this.writer == current) {
+            return writer.get();
+        }
+        long stamp = lock.writeLock();
+        this.writer = current;
+        try {
+            return writer.get();
+        } finally {
+            this.writer = null;
+            lock.unlockWrite(stamp);
+        }
+    }
+}
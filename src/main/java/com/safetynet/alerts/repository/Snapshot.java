@@ -0,0 +1,39 @@
+package com.safetynet.alerts.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable view of the content of a repository at a given data version.
+ * Repositories publish a snapshot of each data version on its first read; readers share it without copying.
+ *
+ * @param <T> the type of the stored entities
+ */
+public final class Snapshot<T> {
+
+    private final long version;
+    private final List<T> items;
+
+    public Snapshot(long version, Collection<? extends T> items) {
+        this.version = version;
+        this.items = List.copyOf(items);
+    }
+
+    /**
+     * Returns the data version this snapshot was taken at.
+     *
+     * @return the repository version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the entities of this snapshot.
+     *
+     * @return an unmodifiable list of entities, in insertion order
+     */
+    public List<T> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,244 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.CacheStatsDTO;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.utils.KeyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of alert query results, placed in front of {@link AlertService}.
+ * <p>
+ * Results are keyed by query and normalized parameter; once {@code alerts.cache.max-entries} results are held
+ * ({@code 0} disables the cache), the least recently used one is dropped. The cache listens to the repositories
+ * and a mutation only drops the results it can affect: those of the addresses, cities and last names of the
+ * touched persons and of the stations serving their addresses, those of the address and last name of the person
+ * behind a touched medical record, and those of the addresses and stations of the touched mappings.
+ * A result computed while a mutation happened is returned but not stored, since it may predate the change.
+ * The results holding ages are computed against the current date, so they are all dropped on the first query
+ * of a new day, like on a mutation.
+ * Cached results are shared between requests and must not be modified.
+ */
+@Service
+public class AlertCacheService {
+
+    /**
+     * The cached alert queries, each with the kind of value its parameter is and whether its results hold ages.
+     */
+    public enum Query {
+        CHILD_ALERT(Dimension.ADDRESS, true),
+        FIRE(Dimension.ADDRESS, true),
+        PHONE_ALERT(Dimension.STATION, false),
+        PERSON_INFO(Dimension.LAST_NAME, true),
+        COMMUNITY_EMAIL(Dimension.CITY, false);
+
+        private final Dimension dimension;
+        private final boolean dated;
+
+        Query(Dimension dimension, boolean dated) {
+            this.dimension = dimension;
+            this.dated = dated;
+        }
+    }
+
+    private enum Dimension {
+        ADDRESS, STATION, LAST_NAME, CITY;
+
+        private String normalize(String value) {
+            // Last names and cities are matched with equalsIgnoreCase, which does not trim
+            if (this == LAST_NAME || this == CITY) {
+                return value == null ? "" : value.toLowerCase(Locale.ROOT);
+            }
+            return KeyUtils.normalize(value);
+        }
+    }
+
+    private static final char SEPARATOR = '\u001F';
+
+    private final PersonRepository personRepository;
+    private final FireStationRepository fireStationRepository;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, List<?>> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<?>> eldest) {
+            if (size() > maxEntries) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    @Value("${alerts.cache.max-entries:1000}")
+    private int maxEntries;
+
+    // Guarded by lock
+    private LocalDate day = LocalDate.now();
+    private long mutations;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    @Autowired
+    public AlertCacheService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        personRepository.addChangeListener(this::personsChanged);
+        fireStationRepository.addChangeListener(this::fireStationsChanged);
+        medicalRecordsRepository.addChangeListener(this::medicalRecordsChanged);
+    }
+
+    /**
+     * Returns the cached result of a query, computing and storing it on a miss.
+     *
+     * @param query     the query
+     * @param parameter the parameter of the query
+     * @param loader    computes the result on a miss
+     * @param <T>       the type of the result items
+     * @return the result of the query
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Query query, String parameter, Supplier<List<T>> loader) {
+        if (maxEntries <= 0) {
+            return loader.get();
+        }
+        String key = key(query, parameter);
+        long mutationsBefore;
+        lock.lock();
+        try {
+            checkDay();
+            List<?> cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return (List<T>) cached;
+            }
+            misses++;
+            mutationsBefore = mutations;
+        } finally {
+            lock.unlock();
+        }
+
+        // Computed outside the lock, so that a slow query does not hold back hits
+        List<T> result = List.copyOf(loader.get());
+        lock.lock();
+        try {
+            // A day change during the computation counts as a mutation, the ages may be a day old
+            checkDay();
+            if (mutations == mutationsBefore) {
+                entries.put(key, result);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the counters of the cache.
+     *
+     * @return the current size and the hit, miss, eviction and invalidation counts
+     */
+    public CacheStatsDTO getStats() {
+        lock.lock();
+        try {
+            return new CacheStatsDTO(entries.size(), hits, misses, evictions, invalidations);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void personsChanged(List<Person> persons) {
+        List<String> keys = new ArrayList<>();
+        for (Person person : persons) {
+            addKeys(keys, Dimension.ADDRESS, person.getAddress());
+            addKeys(keys, Dimension.CITY, person.getCity());
+            addKeys(keys, Dimension.LAST_NAME, person.getLastName());
+            for (String station : fireStationRepository.getStationsByAddress(person.getAddress())) {
+                addKeys(keys, Dimension.STATION, station);
+            }
+        }
+        invalidate(keys);
+    }
+
+    private void medicalRecordsChanged(List<MedicalRecords> medicalRecords) {
+        List<String> keys = new ArrayList<>();
+        for (MedicalRecords record : medicalRecords) {
+            addKeys(keys, Dimension.LAST_NAME, record.getLastName());
+            personRepository.getPerson(record.getFirstName(), record.getLastName())
+                    .ifPresent(person -> addKeys(keys, Dimension.ADDRESS, person.getAddress()));
+        }
+        invalidate(keys);
+    }
+
+    private void fireStationsChanged(List<FireStation> fireStations) {
+        List<String> keys = new ArrayList<>();
+        for (FireStation fireStation : fireStations) {
+            addKeys(keys, Dimension.ADDRESS, fireStation.getAddress());
+            addKeys(keys, Dimension.STATION, fireStation.getStation());
+        }
+        invalidate(keys);
+    }
+
+    private static void addKeys(List<String> keys, Dimension dimension, String value) {
+        for (Query query : Query.values()) {
+            if (query.dimension == dimension) {
+                keys.add(key(query, value));
+            }
+        }
+    }
+
+    private void invalidate(List<String> keys) {
+        // Keys are collected before locking: the listeners run under a repository write lock,
+        // and reading another repository while holding this lock could deadlock with its writers
+        lock.lock();
+        try {
+            mutations++;
+            for (String key : keys) {
+                if (entries.remove(key) != null) {
+                    invalidations++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkDay() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(day)) {
+            return;
+        }
+        day = today;
+        mutations++;
+        Iterator<String> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (Query.valueOf(key.substring(0, key.indexOf(SEPARATOR))).dated) {
+                keys.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    private static String key(Query query, String parameter) {
+        return query.name() + SEPARATOR + query.dimension.normalize(parameter);
+    }
+}
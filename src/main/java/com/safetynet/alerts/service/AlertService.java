@@ -6,18 +6,23 @@ import com.safetynet.alerts.model.MedicalRecords;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FireStationRepository;
 import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.utils.CursorUtils;
 import com.safetynet.alerts.utils.DateUtils;
+import com.safetynet.alerts.utils.KeyUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service providing alert-related functionalities such as child alerts,
  * fire alerts, and emergency information based on address or station number.
+ * <p>
+ * The joins of one address or one person are also exposed to {@link ReactiveAlertService}, which streams them.
  */
 @Service
 public class AlertService {
@@ -28,8 +33,11 @@ public class AlertService {
     private final FireStationRepository fireStationRepository;
     private final MedicalRecordsService medicalRecordsService;
 
+    @Value("${alerts.page.max-size:500}")
+    private int maxPageSize;
+
     @Autowired
-    private AlertService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsService medicalRecordsService) {
+    AlertService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsService medicalRecordsService) {
         this.personRepository = personRepository;
         this.fireStationRepository = fireStationRepository;
         this.medicalRecordsService = medicalRecordsService;
@@ -43,16 +51,11 @@ public class AlertService {
      * @return list of {@link ChildAlertDTO} representing children and their household
      */
     public List<ChildAlertDTO> getChildByAddress(String address) {
-        List<Person> persons = personRepository.getAllPersons();
-
-        List<Person> personSameAddress = persons.stream()
-                .filter(p -> p.getAddress().equalsIgnoreCase(address))
-                .toList();
+        List<Person> personSameAddress = personRepository.getPersonsByAddress(address);
 
         return personSameAddress.stream()
                 .map(person -> {
-                    MedicalRecords medicalRecords = medicalRecordsService.getMedicalRecordsByName(person.getFirstName(), person.getLastName())
-                            .orElse(medicalRecordsService.blankMedicalRecords());
+                    MedicalRecords medicalRecords = medicalRecords(person);
                     int age = DateUtils.calculateAge(medicalRecords.getBirthdate());
                     if (age <= 18) {
                         return new ChildAlertDTO(person, medicalRecords, personSameAddress);
@@ -71,16 +74,19 @@ public class AlertService {
      * @return list of {@link PhoneAlertDTO} containing phone numbers
      */
     public List<PhoneAlertDTO> getPhoneNumberByFireStation(String fireStationNumber) {
-        List<Person> personList = personRepository.getAllPersons();
-        List<FireStation> fireStationList = fireStationRepository.getAllFireStation();
-
-        Set<String> coveredAddresses = fireStationList.stream()
-                .filter(fs -> fs.getStation().equals(fireStationNumber))
-                .map(FireStation::getAddress)
-                .collect(Collectors.toSet());
+        return fireStationRepository.getAddressesByStation(fireStationNumber).stream()
+                .flatMap(address -> getPhoneNumberByAddress(address).stream())
+                .toList();
+    }
 
-        return personList.stream()
-                .filter(p -> coveredAddresses.contains(p.getAddress()))
+    /**
+     * Retrieves the phone numbers of the residents of an address.
+     *
+     * @param address the address to search
+     * @return list of {@link PhoneAlertDTO} containing phone numbers
+     */
+    List<PhoneAlertDTO> getPhoneNumberByAddress(String address) {
+        return personRepository.getPersonsByAddress(address).stream()
                 .map(p -> new PhoneAlertDTO(p.getPhone()))
                 .toList();
     }
@@ -99,14 +105,8 @@ public class AlertService {
                     return fireStationRepository.blankFireStation();
                 });
 
-        return personRepository.getAllPersons().stream()
-                .filter(p -> p.getAddress().equalsIgnoreCase(address))
-                .map(person -> {
-                    MedicalRecords medicalRecords = medicalRecordsService
-                            .getMedicalRecordsByName(person.getFirstName(), person.getLastName())
-                            .orElseGet(medicalRecordsService::blankMedicalRecords);
-                    return new FireDTO(person, station, medicalRecords);
-                })
+        return personRepository.getPersonsByAddress(address).stream()
+                .map(person -> new FireDTO(person, station, medicalRecords(person)))
                 .toList();
     }
 
@@ -118,19 +118,68 @@ public class AlertService {
      * @return list of {@link FloodStationsDTO} with person and medical data
      */
     public List<FloodStationsDTO> getPersonByListOfStations(List<String> fireStationsNumber) {
-        Set<String> fireStationAddresses = fireStationRepository.getAllFireStation().stream()
-                .filter(fs -> fireStationsNumber.contains(fs.getStation()))
-                .map(FireStation::getAddress)
-                .collect(Collectors.toSet());
+        return streamPersonByListOfStations(fireStationsNumber).toList();
+    }
 
-        return personRepository.getAllPersons().stream()
-                .filter(p -> fireStationAddresses.contains(p.getAddress()))
-                .map(p -> {
-                    MedicalRecords medicalRecords = medicalRecordsService.getMedicalRecordsByName(p.getFirstName(), p.getLastName())
-                            .orElse(medicalRecordsService.blankMedicalRecords());
-                    return new FloodStationsDTO(p, medicalRecords);
-                })
-                .toList();
+    /**
+     * Streams information about all residents covered by a list of fire station numbers.
+     * Only the covered addresses are collected upfront; residents are read from the address index
+     * one address at a time as the stream is consumed.
+     *
+     * @param fireStationsNumber the list of station numbers
+     * @return lazy stream of {@link FloodStationsDTO} with person and medical data
+     */
+    public Stream<FloodStationsDTO> streamPersonByListOfStations(List<String> fireStationsNumber) {
+        Set<String> fireStationAddresses = new LinkedHashSet<>();
+        for (String fireStationNumber : fireStationsNumber) {
+            fireStationAddresses.addAll(fireStationRepository.getAddressesByStation(fireStationNumber));
+        }
+
+        return fireStationAddresses.stream()
+                .flatMap(address -> personRepository.getPersonsByAddress(address).stream())
+                .map(p -> new FloodStationsDTO(p, medicalRecords(p)));
+    }
+
+    /**
+     * Retrieves one page of the residents covered by a list of fire station numbers.
+     * Residents are sorted by address, then by name, and the cursor holds the last address and name
+     * returned: a page resumes right after them, so residents present all along are returned exactly once
+     * even if the data changes between pages. Only the households of the page are read.
+     *
+     * @param fireStationsNumber the list of station numbers
+     * @param cursor             the cursor returned with the previous page, null for the first page
+     * @param limit              the maximum number of residents, capped by {@code alerts.page.max-size}
+     * @return the page of {@link FloodStationsDTO}
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PageDTO<FloodStationsDTO> getPersonByListOfStations(List<String> fireStationsNumber, String cursor, int limit) {
+        List<String> after = cursor == null ? null : CursorUtils.decode(cursor, 2);
+        int size = pageSize(limit);
+        NavigableMap<String, String> addresses = new TreeMap<>();
+        for (String fireStationNumber : fireStationsNumber) {
+            for (String address : fireStationRepository.getAddressesByStation(fireStationNumber)) {
+                addresses.putIfAbsent(KeyUtils.normalize(address), address);
+            }
+        }
+
+        List<FloodStationsDTO> items = new ArrayList<>();
+        String[] last = null;
+        for (Map.Entry<String, String> address : (after == null ? addresses : addresses.tailMap(after.get(0), true)).entrySet()) {
+            List<Person> household = new ArrayList<>(personRepository.getPersonsByAddress(address.getValue()));
+            household.sort(Comparator.comparing((Person p) -> KeyUtils.nameKey(p.getFirstName(), p.getLastName())));
+            for (Person p : household) {
+                String nameKey = KeyUtils.nameKey(p.getFirstName(), p.getLastName());
+                if (after != null && address.getKey().equals(after.get(0)) && nameKey.compareTo(after.get(1)) <= 0) {
+                    continue;
+                }
+                if (items.size() == size) {
+                    return new PageDTO<>(items, CursorUtils.encode(last));
+                }
+                items.add(new FloodStationsDTO(p, medicalRecords(p)));
+                last = new String[]{address.getKey(), nameKey};
+            }
+        }
+        return new PageDTO<>(items, null);
     }
 
     /**
@@ -142,14 +191,20 @@ public class AlertService {
     public List<PersonInfoDTO> getPersonInfoLastName(String lastName) {
         return personRepository.getAllPersons().stream()
                 .filter(p -> p.getLastName().equalsIgnoreCase(lastName))
-                .map(p -> {
-                    MedicalRecords medicalRecords = medicalRecordsService.getMedicalRecordsByName(p.getFirstName(), p.getLastName())
-                            .orElse(medicalRecordsService.blankMedicalRecords());
-                    return new PersonInfoDTO(p, medicalRecords);
-                })
+                .map(this::getPersonInfo)
                 .toList();
     }
 
+    /**
+     * Retrieves the personal and medical information of a person.
+     *
+     * @param person the person
+     * @return the {@link PersonInfoDTO} of the person
+     */
+    PersonInfoDTO getPersonInfo(Person person) {
+        return new PersonInfoDTO(person, medicalRecords(person));
+    }
+
     /**
      * Retrieves the email addresses of all residents living in a given city.
      *
@@ -164,4 +219,45 @@ public class AlertService {
                 .toList();
     }
 
+    /**
+     * Retrieves one page of the email addresses of the residents living in a given city.
+     * Emails are sorted and the cursor holds the last email returned: a page resumes right after it,
+     * so emails present all along are returned exactly once even if the data changes between pages.
+     *
+     * @param city   the city to search
+     * @param cursor the cursor returned with the previous page, null for the first page
+     * @param limit  the maximum number of emails, capped by {@code alerts.page.max-size}
+     * @return the page of {@link CommunityEmailDTO} with unique email addresses
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PageDTO<CommunityEmailDTO> getEmailByCity(String city, String cursor, int limit) {
+        String after = cursor == null ? null : CursorUtils.decode(cursor, 1).getFirst();
+        int size = pageSize(limit);
+        // Keeps the smallest emails after the cursor, one more than the page to know if another page follows
+        TreeSet<String> emails = new TreeSet<>();
+        for (Person p : personRepository.getAllPersons()) {
+            String email = p.getEmail();
+            if (email != null && p.getCity().equalsIgnoreCase(city) && (after == null || email.compareTo(after) > 0)
+                    && emails.add(email) && emails.size() > size + 1) {
+                emails.pollLast();
+            }
+        }
+
+        String nextCursor = null;
+        if (emails.size() > size) {
+            emails.pollLast();
+            nextCursor = CursorUtils.encode(emails.last());
+        }
+        return new PageDTO<>(emails.stream().map(CommunityEmailDTO::new).toList(), nextCursor);
+    }
+
+    private MedicalRecords medicalRecords(Person person) {
+        return medicalRecordsService.getMedicalRecordsByName(person.getFirstName(), person.getLastName())
+                .orElseGet(medicalRecordsService::blankMedicalRecords);
+    }
+
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
 }
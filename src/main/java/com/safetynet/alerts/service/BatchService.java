@@ -0,0 +1,251 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.BatchErrorDTO;
+import com.safetynet.alerts.dto.BatchOperationDTO;
+import com.safetynet.alerts.dto.BatchResultDTO;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.utils.KeyUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service applying a batch of heterogeneous mutations, all or nothing.
+ * <p>
+ * The batch is first played against a working copy of the keys it touches, layered over the repositories,
+ * with the rules of the single-item endpoints: a mutation sees the effect of the previous ones, so a batch
+ * may create a person then update it. If any mutation is refused, nothing is applied. Otherwise the final
+ * state of every touched key is written to each repository, then persisted with a single journal write.
+ * The batch is validated and applied under the write lock shared by the repositories and the journal lock,
+ * so no other writer can change the keys in between and readers see the whole batch or none of it;
+ * it is undone if the journal write fails.
+ */
+@Service
+public class BatchService {
+
+    private static final Logger logger = LogManager.getLogger(BatchService.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final PersonRepository personRepository;
+    private final FireStationRepository fireStationRepository;
+    private final MedicalRecordsRepository medicalRecordsRepository;
+    private final JSONWriterService jsonWriterService;
+
+    @Autowired
+    public BatchService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository, JSONWriterService jsonWriterService) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        this.medicalRecordsRepository = medicalRecordsRepository;
+        this.jsonWriterService = jsonWriterService;
+    }
+
+    /**
+     * Applies every mutation of a batch, or none of them.
+     *
+     * @param operations the mutations, applied in order
+     * @return the number of mutations applied, or the errors of the refused mutations
+     */
+    public BatchResultDTO apply(List<BatchOperationDTO> operations) {
+        BatchResultDTO result = jsonWriterService.saveChanges(() -> plan(operations));
+        if (result.getErrors().isEmpty()) {
+            logger.info("Batch of {} mutation(s) applied", operations.size());
+        } else {
+            logger.warn("Batch of {} mutation(s) refused: {} error(s)", operations.size(), result.getErrors().size());
+        }
+        return result;
+    }
+
+    /**
+     * Plays a batch against the repositories. Runs under their write lock, so the batch is validated
+     * against the state it is applied to.
+     */
+    private JSONWriterService.Plan<BatchResultDTO> plan(List<BatchOperationDTO> operations) {
+        WorkingCopy copy = new WorkingCopy();
+        List<BatchErrorDTO> errors = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                play(copy, operations.get(i));
+            } catch (BatchException e) {
+                errors.add(new BatchErrorDTO(i, e.status.value(), e.getMessage()));
+            }
+        }
+        if (!errors.isEmpty()) {
+            return JSONWriterService.Plan.none(new BatchResultDTO(0, errors));
+        }
+
+        List<Person> savedPersons = new ArrayList<>();
+        List<Person> deletedPersons = new ArrayList<>();
+        copy.persons.forEach((key, person) -> (person.isPresent() ? savedPersons : deletedPersons).add(person.orElse(copy.personNames.get(key))));
+        List<MedicalRecords> savedMedicalRecords = new ArrayList<>();
+        List<MedicalRecords> deletedMedicalRecords = new ArrayList<>();
+        copy.medicalRecords.forEach((key, record) -> (record.isPresent() ? savedMedicalRecords : deletedMedicalRecords).add(record.orElse(copy.medicalRecordNames.get(key))));
+        Map<String, List<FireStation>> fireStations = new LinkedHashMap<>();
+        copy.fireStations.forEach((addressKey, mappings) -> fireStations.put(copy.addresses.get(addressKey), mappings));
+
+        List<Person> persons = new ArrayList<>(savedPersons);
+        persons.addAll(deletedPersons);
+        List<MedicalRecords> medicalRecords = new ArrayList<>(savedMedicalRecords);
+        medicalRecords.addAll(deletedMedicalRecords);
+        return new JSONWriterService.Plan<>(new BatchResultDTO(operations.size(), List.of()), persons, fireStations.keySet(), medicalRecords, () -> {
+            personRepository.applyChanges(savedPersons, deletedPersons);
+            fireStationRepository.replaceFireStations(fireStations);
+            medicalRecordsRepository.applyChanges(savedMedicalRecords, deletedMedicalRecords);
+        });
+    }
+
+    private void play(WorkingCopy copy, BatchOperationDTO operation) throws BatchException {
+        DataSection section = operation.getSection() == null ? null : DataSection.fromKey(operation.getSection());
+        if (operation.getOp() == null || section == null || operation.getValue() == null) {
+            throw new BatchException(HttpStatus.BAD_REQUEST, "op, section and value are required");
+        }
+        switch (section) {
+            case PERSONS -> playPerson(copy, operation.getOp(), read(operation, Person.class));
+            case FIRE_STATIONS -> playFireStation(copy, operation.getOp(), read(operation, FireStation.class));
+            case MEDICAL_RECORDS -> playMedicalRecords(copy, operation.getOp(), read(operation, MedicalRecords.class));
+        }
+    }
+
+    private void playPerson(WorkingCopy copy, BatchOperationDTO.Operation op, Person person) throws BatchException {
+        requireName(person.getFirstName(), person.getLastName());
+        String key = KeyUtils.nameKey(person.getFirstName(), person.getLastName());
+        Optional<Person> current = copy.persons.containsKey(key)
+                ? copy.persons.get(key)
+                : personRepository.getPerson(person.getFirstName(), person.getLastName());
+        String name = person.getFirstName() + " " + person.getLastName();
+        switch (op) {
+            case CREATE -> {
+                if (current.isPresent()) {
+                    throw new BatchException(HttpStatus.CONFLICT, "Person " + name + " already exists");
+                }
+                copy.persons.put(key, Optional.of(person));
+            }
+            case UPDATE -> {
+                Person existing = existing(current, name);
+                copy.persons.put(key, Optional.of(new Person(existing.getFirstName(), existing.getLastName(),
+                        person.getAddress(), person.getCity(), person.getZip(), person.getPhone(), person.getEmail())));
+            }
+            case DELETE -> {
+                copy.personNames.putIfAbsent(key, existing(current, name));
+                copy.persons.put(key, Optional.empty());
+            }
+        }
+    }
+
+    private void playFireStation(WorkingCopy copy, BatchOperationDTO.Operation op, FireStation fireStation) throws BatchException {
+        if (isBlank(fireStation.getAddress()) || (op != BatchOperationDTO.Operation.DELETE && isBlank(fireStation.getStation()))) {
+            throw new BatchException(HttpStatus.BAD_REQUEST, "address and station are required");
+        }
+        String addressKey = KeyUtils.normalize(fireStation.getAddress());
+        List<FireStation> mappings = new ArrayList<>(copy.fireStations.containsKey(addressKey)
+                ? copy.fireStations.get(addressKey)
+                : fireStationRepository.getFireStationsByAddress(fireStation.getAddress()));
+        if (op == BatchOperationDTO.Operation.CREATE) {
+            if (!mappings.isEmpty()) {
+                throw new BatchException(HttpStatus.CONFLICT, "Fire station already exists at " + fireStation.getAddress());
+            }
+            mappings.add(fireStation);
+        } else if (mappings.isEmpty()) {
+            throw new BatchException(HttpStatus.NOT_FOUND, "No fire station at " + fireStation.getAddress());
+        } else if (op == BatchOperationDTO.Operation.UPDATE) {
+            mappings.set(0, new FireStation(mappings.getFirst().getAddress(), fireStation.getStation()));
+        } else {
+            mappings.removeFirst();
+        }
+        copy.fireStations.put(addressKey, mappings);
+        copy.addresses.putIfAbsent(addressKey, fireStation.getAddress());
+    }
+
+    private void playMedicalRecords(WorkingCopy copy, BatchOperationDTO.Operation op, MedicalRecords record) throws BatchException {
+        requireName(record.getFirstName(), record.getLastName());
+        String key = KeyUtils.nameKey(record.getFirstName(), record.getLastName());
+        Optional<MedicalRecords> current = copy.medicalRecords.containsKey(key)
+                ? copy.medicalRecords.get(key)
+                : medicalRecordsRepository.getMedicalRecords(record.getFirstName(), record.getLastName());
+        String name = record.getFirstName() + " " + record.getLastName();
+        switch (op) {
+            case CREATE -> {
+                if (current.isPresent()) {
+                    throw new BatchException(HttpStatus.CONFLICT, "Medical record for " + name + " already exists");
+                }
+                copy.medicalRecords.put(key, Optional.of(record));
+            }
+            case UPDATE -> {
+                MedicalRecords existing = existing(current, name);
+                copy.medicalRecords.put(key, Optional.of(new MedicalRecords(existing.getFirstName(), existing.getLastName(),
+                        record.getBirthdate(), record.getMedications(), record.getAllergies())));
+            }
+            case DELETE -> {
+                copy.medicalRecordNames.putIfAbsent(key, existing(current, name));
+                copy.medicalRecords.put(key, Optional.empty());
+            }
+        }
+    }
+
+    private <T> T read(BatchOperationDTO operation, Class<T> type) throws BatchException {
+        try {
+            return objectMapper.treeToValue(operation.getValue(), type);
+        } catch (JsonProcessingException e) {
+            throw new BatchException(HttpStatus.BAD_REQUEST, e.getOriginalMessage());
+        }
+    }
+
+    private static <T> T existing(Optional<T> current, String name) throws BatchException {
+        if (current.isEmpty()) {
+            throw new BatchException(HttpStatus.NOT_FOUND, name + " not found");
+        }
+        return current.get();
+    }
+
+    private static void requireName(String firstName, String lastName) throws BatchException {
+        if (isBlank(firstName) || isBlank(lastName)) {
+            throw new BatchException(HttpStatus.BAD_REQUEST, "firstName and lastName are required");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Final state of the keys touched by a batch. An empty Optional marks a deleted person or record;
+     * the stored one is kept aside to name the deletion.
+     */
+    private static final class WorkingCopy {
+        private final Map<String, Optional<Person>> persons = new LinkedHashMap<>();
+        private final Map<String, Person> personNames = new LinkedHashMap<>();
+        private final Map<String, List<FireStation>> fireStations = new LinkedHashMap<>();
+        private final Map<String, String> addresses = new LinkedHashMap<>();
+        private final Map<String, Optional<MedicalRecords>> medicalRecords = new LinkedHashMap<>();
+        private final Map<String, MedicalRecords> medicalRecordNames = new LinkedHashMap<>();
+    }
+
+    private static final class BatchException extends Exception {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final HttpStatus status;
+
+        BatchException(HttpStatus status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Binary encoding of one section of the dataset, loaded at startup instead of JSON when it is up to date.
+ * JSON stays the interchange format; binary section files only exist to start fast.
+ * <p>
+ * Layout, all integers big-endian:
+ * <pre>
+ * magic "SNAB", format version, section ordinal (byte), record count
+ * string table: count, then (UTF-8 length, UTF-8 bytes) per string
+ * body length, body
+ * </pre>
+ * Records only hold indexes into the string table (-1 for null), so every distinct string is decoded
+ * once and shared by all the records using it.
+ */
+@Service
+public class BinarySnapshotService {
+
+    private static final int MAGIC = 0x534E4142;
+    private static final int FORMAT_VERSION = 2;
+    private static final int NULL = -1;
+
+    /**
+     * Encodes a section to a stream.
+     *
+     * @param section the section the items belong to
+     * @param items   the persons, fire stations or medical records of the section
+     * @param target  the stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(DataSection section, List<?> items, OutputStream target) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(body);
+        for (Object item : items) {
+            switch (section) {
+                case PERSONS -> {
+                    Person person = (Person) item;
+                    strings.write(records, person.getFirstName());
+                    strings.write(records, person.getLastName());
+                    strings.write(records, person.getAddress());
+                    strings.write(records, person.getCity());
+                    strings.write(records, person.getZip());
+                    strings.write(records, person.getPhone());
+                    strings.write(records, person.getEmail());
+                }
+                case FIRE_STATIONS -> {
+                    FireStation fireStation = (FireStation) item;
+                    strings.write(records, fireStation.getAddress());
+                    strings.write(records, fireStation.getStation());
+                }
+                case MEDICAL_RECORDS -> {
+                    MedicalRecords medicalRecord = (MedicalRecords) item;
+                    strings.write(records, medicalRecord.getFirstName());
+                    strings.write(records, medicalRecord.getLastName());
+                    strings.write(records, medicalRecord.getBirthdate());
+                    strings.write(records, medicalRecord.getMedications());
+                    strings.write(records, medicalRecord.getAllergies());
+                }
+            }
+        }
+        records.flush();
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeByte(section.ordinal());
+        out.writeInt(items.size());
+        out.writeInt(strings.values.size());
+        for (String value : strings.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(body.size());
+        body.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Maps a binary section file into memory and decodes its string table.
+     *
+     * @param path the section file
+     * @return a reader over the records of the section
+     * @throws IOException if the file cannot be read or is not a section file of a supported version
+     */
+    public Reader open(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported binary section file " + path);
+            }
+            DataSection section = DataSection.values()[buffer.get()];
+            int count = buffer.getInt();
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int length = buffer.getInt();
+            return new Reader(section, count, strings, buffer.slice(buffer.position(), length));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Truncated binary section file " + path, e);
+        }
+    }
+
+    private static final class StringTable {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        void write(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(NULL);
+                return;
+            }
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+            }
+            out.writeInt(index);
+        }
+
+        void write(DataOutputStream out, List<String> list) throws IOException {
+            if (list == null) {
+                out.writeInt(NULL);
+                return;
+            }
+            out.writeInt(list.size());
+            for (String value : list) {
+                write(out, value);
+            }
+        }
+    }
+
+    /**
+     * Decodes the records of a mapped binary section file.
+     */
+    public static final class Reader {
+
+        private final DataSection section;
+        private final int count;
+        private final String[] strings;
+        private final ByteBuffer body;
+
+        private Reader(DataSection section, int count, String[] strings, ByteBuffer body) {
+            this.section = section;
+            this.count = count;
+            this.strings = strings;
+            this.body = body;
+        }
+
+        /**
+         * Returns the section stored in the file.
+         *
+         * @return the section
+         */
+        public DataSection getSection() {
+            return section;
+        }
+
+        /**
+         * Decodes the persons of the file.
+         *
+         * @return the persons, in file order
+         * @throws IOException if the file holds another section or its records are corrupted
+         */
+        public List<Person> readPersons() throws IOException {
+            return read(DataSection.PERSONS, 7, in -> new Person(string(in), string(in), string(in), string(in), string(in), string(in), string(in)));
+        }
+
+        /**
+         * Decodes the fire stations of the file.
+         *
+         * @return the fire stations, in file order
+         * @throws IOException if the file holds another section or its records are corrupted
+         */
+        public List<FireStation> readFireStations() throws IOException {
+            return read(DataSection.FIRE_STATIONS, 2, in -> new FireStation(string(in), string(in)));
+        }
+
+        /**
+         * Decodes the medical records of the file.
+         *
+         * @return the medical records, in file order
+         * @throws IOException if the file holds another section or its records are corrupted
+         */
+        public List<MedicalRecords> readMedicalRecords() throws IOException {
+            return read(DataSection.MEDICAL_RECORDS, 5, in -> new MedicalRecords(string(in), string(in), string(in), list(in), list(in)));
+        }
+
+        /**
+         * Decodes every record before returning any, so that a corrupted file is rejected as a whole
+         * and the section can be loaded again from JSON without duplicates.
+         */
+        private <T> List<T> read(DataSection expected, int fields, Function<ByteBuffer, T> decoder) throws IOException {
+            if (section != expected) {
+                throw new IOException("Binary section file holds " + section.getKey() + ", not " + expected.getKey());
+            }
+            ByteBuffer in = body.duplicate();
+            try {
+                // A corrupted count must not size the list beyond what the body can hold
+                List<T> items = new ArrayList<>(Math.min(count, in.remaining() / (fields * Integer.BYTES)));
+                for (int i = 0; i < count; i++) {
+                    items.add(decoder.apply(in));
+                }
+                return items;
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Corrupted binary section file for " + section.getKey(), e);
+            }
+        }
+
+        private String string(ByteBuffer in) {
+            int index = in.getInt();
+            return index == NULL ? null : strings[index];
+        }
+
+        private List<String> list(ByteBuffer in) {
+            int size = in.getInt();
+            if (size == NULL) {
+                return null;
+            }
+            List<String> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(string(in));
+            }
+            return list;
+        }
+    }
+}
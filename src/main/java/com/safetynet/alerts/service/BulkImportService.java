@@ -0,0 +1,155 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.safetynet.alerts.dto.ImportResultDTO;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.utils.KeyUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Service importing many persons, fire stations or medical records at once from NDJSON, one item per line.
+ * <p>
+ * Each line is parsed and validated with the rules of the matching POST endpoint, and checked for duplicates
+ * against the repository indexes and the previous lines. Accepted items are then added in a single
+ * repository write and persisted with a single journal write, whatever their number; the write is
+ * undone if the journal write fails.
+ * Items are only added, never replaced: an existing key is reported as a duplicate.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LogManager.getLogger(BulkImportService.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader personReader = objectMapper.readerFor(Person.class);
+    private final ObjectReader fireStationReader = objectMapper.readerFor(FireStation.class);
+    private final ObjectReader medicalRecordsReader = objectMapper.readerFor(MedicalRecords.class);
+
+    private final PersonRepository personRepository;
+    private final FireStationRepository fireStationRepository;
+    private final MedicalRecordsRepository medicalRecordsRepository;
+    private final JSONWriterService jsonWriterService;
+
+    @Autowired
+    public BulkImportService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository, JSONWriterService jsonWriterService) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        this.medicalRecordsRepository = medicalRecordsRepository;
+        this.jsonWriterService = jsonWriterService;
+    }
+
+    /**
+     * Imports the items of an NDJSON stream into a section. Blank lines are ignored.
+     *
+     * @param section the section the items belong to
+     * @param body    the NDJSON stream, read to its end
+     * @return one result per non-blank line, in line order
+     */
+    public List<ImportResultDTO> importLines(DataSection section, InputStream body) {
+        return switch (section) {
+            case PERSONS -> importLines(body, personReader,
+                    (Person person) -> KeyUtils.nameKey(person.getFirstName(), person.getLastName()),
+                    person -> isBlank(person.getFirstName()) || isBlank(person.getLastName()) ? "firstName and lastName are required" : null,
+                    person -> personRepository.getPerson(person.getFirstName(), person.getLastName()).isPresent(),
+                    candidates -> jsonWriterService.saveChanges(candidates, List.of(), List.of(), () -> personRepository.addAllPersons(candidates)));
+            case FIRE_STATIONS -> importLines(body, fireStationReader,
+                    (FireStation fireStation) -> KeyUtils.normalize(fireStation.getAddress()),
+                    fireStation -> isBlank(fireStation.getAddress()) || isBlank(fireStation.getStation()) ? "address and station are required" : null,
+                    fireStation -> fireStationRepository.getFireStationByAddress(fireStation.getAddress()).isPresent(),
+                    candidates -> jsonWriterService.saveChanges(List.of(), candidates.stream().map(FireStation::getAddress).toList(), List.of(),
+                            () -> fireStationRepository.addAllFireStations(candidates)));
+            case MEDICAL_RECORDS -> importLines(body, medicalRecordsReader,
+                    (MedicalRecords record) -> KeyUtils.nameKey(record.getFirstName(), record.getLastName()),
+                    record -> isBlank(record.getFirstName()) || isBlank(record.getLastName()) ? "firstName and lastName are required" : null,
+                    record -> medicalRecordsRepository.getMedicalRecords(record.getFirstName(), record.getLastName()).isPresent(),
+                    candidates -> jsonWriterService.saveChanges(List.of(), List.of(), candidates, () -> medicalRecordsRepository.addAllMedicalRecords(candidates)));
+        };
+    }
+
+    private <T> List<ImportResultDTO> importLines(InputStream body, ObjectReader reader, Function<T, String> key,
+                                                  Function<T, String> validate, Predicate<T> exists,
+                                                  UnaryOperator<List<T>> addAndPersist) {
+        List<ImportResultDTO> results = new ArrayList<>();
+        List<T> candidates = new ArrayList<>();
+        List<ImportResultDTO> candidateResults = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                T item;
+                try {
+                    item = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    results.add(new ImportResultDTO(lineNumber, ImportResultDTO.Status.INVALID, e.getOriginalMessage()));
+                    continue;
+                }
+                String error = item == null ? "null item" : validate.apply(item);
+                if (error != null) {
+                    results.add(new ImportResultDTO(lineNumber, ImportResultDTO.Status.INVALID, error));
+                    continue;
+                }
+                if (!seen.add(key.apply(item)) || exists.test(item)) {
+                    results.add(new ImportResultDTO(lineNumber, ImportResultDTO.Status.DUPLICATE, "already exists"));
+                    continue;
+                }
+                ImportResultDTO result = new ImportResultDTO(lineNumber, ImportResultDTO.Status.CREATED, null);
+                results.add(result);
+                candidates.add(item);
+                candidateResults.add(result);
+            }
+        } catch (IOException e) {
+            logger.error("Error reading import stream", e);
+            throw new RuntimeException(e);
+        }
+
+        List<T> added = addAndPersist.apply(candidates);
+        if (added.size() < candidates.size()) {
+            // A concurrent request created some of the keys after they were checked
+            Set<T> addedItems = Collections.newSetFromMap(new IdentityHashMap<>());
+            addedItems.addAll(added);
+            for (int i = 0; i < candidates.size(); i++) {
+                if (!addedItems.contains(candidates.get(i))) {
+                    candidateResults.get(i).setStatus(ImportResultDTO.Status.DUPLICATE);
+                    candidateResults.get(i).setMessage("already exists");
+                }
+            }
+        }
+        logger.info("{} line(s) imported, {} item(s) created", results.size(), added.size());
+        return results;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
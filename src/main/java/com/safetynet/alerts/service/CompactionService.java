@@ -0,0 +1,106 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds the mutation journal back into the section files.
+ * <p>
+ * Runs on the scheduler thread when the journal exceeds a size or an age threshold: the journal is
+ * rotated, the repositories' published snapshots of the sections it touched are taken before the journal
+ * lock is released, the sections are rewritten from them, a new generation is recorded in the manifest,
+ * then the rotated journal is discarded. Since changes are applied and undone under the journal lock, the
+ * snapshots hold exactly the changes of the rotated journal: none appended to the fresh journal since, and
+ * none undone because it could not be written. Sections without journaled changes are left untouched,
+ * except on the first compaction, which writes every section so that the section files alone hold the
+ * dataset from then on. Request threads keep appending to the fresh journal while the sections are written.
+ */
+@Service
+public class CompactionService {
+
+    private static final Logger logger = LogManager.getLogger(CompactionService.class);
+
+    @Value("${data.compaction.max-journal-bytes:1048576}")
+    private long maxJournalBytes;
+
+    @Value("${data.compaction.max-age-ms:300000}")
+    private long maxAgeMillis;
+
+    private final PersonRepository personRepository;
+    private final FireStationRepository fireStationRepository;
+    private final MedicalRecordsRepository medicalRecordsRepository;
+    private final JournalService journalService;
+    private final SectionFileService sectionFileService;
+
+    @Autowired
+    public CompactionService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository, JournalService journalService, SectionFileService sectionFileService) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        this.medicalRecordsRepository = medicalRecordsRepository;
+        this.journalService = journalService;
+        this.sectionFileService = sectionFileService;
+    }
+
+    /**
+     * Compacts the journal if it is larger than the size threshold, if its oldest entry is older than
+     * the age threshold, or if a previous compaction was interrupted.
+     *
+     * @return true if a compaction ran
+     */
+    @Scheduled(fixedDelayString = "${data.compaction.check-interval-ms:10000}")
+    public boolean compactIfNeeded() {
+        long size = journalService.size();
+        boolean tooLarge = size >= maxJournalBytes;
+        boolean tooOld = size > 0 && journalService.oldestEntryAgeMillis() >= maxAgeMillis;
+        if (!tooLarge && !tooOld && !journalService.hasRotated()) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Rewrites the sections changed since the last compaction and discards the journal entries they now contain.
+     */
+    public synchronized void compact() {
+        long generation = sectionFileService.generation() + 1;
+        Map<DataSection, List<?>> snapshots = journalService.rotate(dirty -> {
+            Map<DataSection, List<?>> items = new EnumMap<>(DataSection.class);
+            if (!dirty.isEmpty()) {
+                for (DataSection section : generation == 1L ? EnumSet.allOf(DataSection.class) : dirty) {
+                    items.put(section, items(section));
+                }
+            }
+            return items;
+        });
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        // Written outside the journal lock: appends go on in the fresh journal meanwhile
+        snapshots.forEach(sectionFileService::write);
+        sectionFileService.writeManifest(generation);
+        journalService.discardRotated();
+        logger.info("Journal compacted into section(s) {}, generation {}", snapshots.keySet(), generation);
+    }
+
+    private List<?> items(DataSection section) {
+        return switch (section) {
+            case PERSONS -> personRepository.getSnapshot().getItems();
+            case FIRE_STATIONS -> fireStationRepository.getSnapshot().getItems();
+            case MEDICAL_RECORDS -> medicalRecordsRepository.getSnapshot().getItems();
+        };
+    }
+}
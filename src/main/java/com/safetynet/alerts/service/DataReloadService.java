@@ -0,0 +1,347 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.Snapshot;
+import com.safetynet.alerts.utils.KeyUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Service picking up a new data.json while the application runs.
+ * <p>
+ * When {@code data.watch.enabled} is set, a background thread watches the directory of {@code data.path}.
+ * Once the file has stopped changing for {@code data.watch.debounce-ms}, it is parsed in full off the
+ * request path, then diffed against the published snapshots of the repositories, without holding their lock.
+ * The diff is applied in a single write that excludes every other writer: only the persons, addresses and
+ * medical records that were added, changed or removed are applied, and readers see the three repositories
+ * change together. If another write came in since the snapshots, the diff is recomputed under the lock.
+ * The applied changes are journaled, so they survive a restart like any other mutation. This is how an
+ * edited data.json reaches the dataset once it has been compacted: data.json is import-only, compaction
+ * never rewrites it and startup no longer reads it.
+ * A file that cannot be parsed is ignored and the current data is kept.
+ */
+@Service
+public class DataReloadService {
+
+    private static final Logger logger = LogManager.getLogger(DataReloadService.class);
+
+    @Value("${data.path}")
+    private String dataPath;
+
+    @Value("${data.watch.enabled:false}")
+    private boolean watchEnabled;
+
+    @Value("${data.watch.debounce-ms:500}")
+    private long debounceMillis;
+
+    private final PersonRepository personRepository;
+    private final FireStationRepository fireStationRepository;
+    private final MedicalRecordsRepository medicalRecordsRepository;
+    private final JSONReaderService jsonReaderService;
+    private final JSONWriterService jsonWriterService;
+
+    private WatchService watchService;
+
+    private Thread watcher;
+
+    private volatile boolean running;
+
+    private FileTime lastModified;
+
+    @Autowired
+    public DataReloadService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository, JSONReaderService jsonReaderService, JSONWriterService jsonWriterService) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        this.medicalRecordsRepository = medicalRecordsRepository;
+        this.jsonReaderService = jsonReaderService;
+        this.jsonWriterService = jsonWriterService;
+    }
+
+    /**
+     * Starts watching data.path when file watching is enabled.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (!watchEnabled || running) {
+            return;
+        }
+        Path file = Path.of(dataPath).toAbsolutePath();
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.error("Error watching {}", dataPath, e);
+            throw new RuntimeException(e);
+        }
+        lastModified = lastModified(file);
+        running = true;
+        watcher = new Thread(() -> watch(file), "data-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Watching {} for changes", dataPath);
+    }
+
+    /**
+     * Stops watching data.path.
+     */
+    @PreDestroy
+    public void close() {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            current = watcher;
+            watcher = null;
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    logger.warn("Error closing watch service of {}", dataPath, e);
+                }
+                watchService = null;
+            }
+        }
+        if (current != null) {
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Parses data.json and applies its differences with the repositories.
+     *
+     * @return the number of persons, addresses and medical records added, changed or removed
+     */
+    public synchronized int reload() {
+        JSONReaderService.DataDocument document;
+        try {
+            document = jsonReaderService.readDocument(Path.of(dataPath));
+        } catch (IOException e) {
+            logger.error("Error reading {}, keeping the current data", dataPath, e);
+            throw new RuntimeException(e);
+        }
+
+        Planned planned = plan(document);
+        Changes changes = jsonWriterService.saveChanges(() -> {
+            if (isCurrent(planned)) {
+                return planned.plan();
+            }
+            logger.debug("The data changed while {} was diffed, diffing again", dataPath);
+            return plan(document).plan();
+        });
+        logger.info("{} reloaded: {} person(s) saved, {} deleted; {} address(es) changed; {} medical record(s) saved, {} deleted",
+                dataPath, changes.savedPersons(), changes.deletedPersons(), changes.changedAddresses(),
+                changes.savedMedicalRecords(), changes.deletedMedicalRecords());
+        return changes.total();
+    }
+
+    /**
+     * Diffs a document against the published snapshots of the repositories. Takes no lock: the versions
+     * of the snapshots are kept, to tell under the write lock whether the diff still applies.
+     */
+    private Planned plan(JSONReaderService.DataDocument document) {
+        Snapshot<Person> currentPersons = personRepository.getSnapshot();
+        Snapshot<FireStation> currentFireStationMappings = fireStationRepository.getSnapshot();
+        Snapshot<MedicalRecords> currentMedicalRecords = medicalRecordsRepository.getSnapshot();
+
+        Map<String, Person> persons = index(document.persons(), person -> KeyUtils.nameKey(person.getFirstName(), person.getLastName()));
+        List<Person> savedPersons = new ArrayList<>();
+        List<Person> deletedPersons = new ArrayList<>();
+        diff(currentPersons.getItems(), persons, person -> KeyUtils.nameKey(person.getFirstName(), person.getLastName()),
+                DataReloadService::samePerson, savedPersons, deletedPersons);
+
+        Map<String, MedicalRecords> medicalRecords = index(document.medicalRecords(), record -> KeyUtils.nameKey(record.getFirstName(), record.getLastName()));
+        List<MedicalRecords> savedMedicalRecords = new ArrayList<>();
+        List<MedicalRecords> deletedMedicalRecords = new ArrayList<>();
+        diff(currentMedicalRecords.getItems(), medicalRecords, record -> KeyUtils.nameKey(record.getFirstName(), record.getLastName()),
+                DataReloadService::sameMedicalRecords, savedMedicalRecords, deletedMedicalRecords);
+
+        Map<String, List<FireStation>> fireStations = mappingsByAddress(document.fireStations());
+        Map<String, List<FireStation>> changedAddresses = new LinkedHashMap<>();
+        Map<String, List<FireStation>> currentFireStations = mappingsByAddress(currentFireStationMappings.getItems());
+        currentFireStations.forEach((addressKey, mappings) -> {
+            if (!fireStations.containsKey(addressKey)) {
+                changedAddresses.put(mappings.getFirst().getAddress(), List.of());
+            }
+        });
+        fireStations.forEach((addressKey, mappings) -> {
+            List<FireStation> current = currentFireStations.get(addressKey);
+            if (current == null || !sameMappings(current, mappings)) {
+                changedAddresses.put(mappings.getFirst().getAddress(), mappings);
+            }
+        });
+
+        List<Person> changedPersons = new ArrayList<>(savedPersons);
+        changedPersons.addAll(deletedPersons);
+        List<MedicalRecords> changedMedicalRecords = new ArrayList<>(savedMedicalRecords);
+        changedMedicalRecords.addAll(deletedMedicalRecords);
+        Changes changes = new Changes(savedPersons.size(), deletedPersons.size(), changedAddresses.size(),
+                savedMedicalRecords.size(), deletedMedicalRecords.size());
+        JSONWriterService.Plan<Changes> plan = new JSONWriterService.Plan<>(changes, changedPersons, changedAddresses.keySet(), changedMedicalRecords, () -> {
+            personRepository.applyChanges(savedPersons, deletedPersons);
+            fireStationRepository.replaceFireStations(changedAddresses);
+            medicalRecordsRepository.applyChanges(savedMedicalRecords, deletedMedicalRecords);
+        });
+        return new Planned(plan, currentPersons.getVersion(), currentFireStationMappings.getVersion(), currentMedicalRecords.getVersion());
+    }
+
+    /**
+     * Tells whether no write came in since the snapshots of a diff. Called under the write lock, so the
+     * answer holds until the diff is applied.
+     */
+    private boolean isCurrent(Planned planned) {
+        return personRepository.getVersion() == planned.personVersion()
+                && fireStationRepository.getVersion() == planned.fireStationVersion()
+                && medicalRecordsRepository.getVersion() == planned.medicalRecordsVersion();
+    }
+
+    private void watch(Path file) {
+        Path fileName = file.getFileName();
+        while (running) {
+            try {
+                if (!awaitChange(fileName, watchService.take())) {
+                    continue;
+                }
+                // Wait for the writer of the file to be done before reading it
+                WatchKey next;
+                while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    awaitChange(fileName, next);
+                }
+                FileTime modified = lastModified(file);
+                if (modified != null && !modified.equals(lastModified)) {
+                    lastModified = modified;
+                    reload();
+                }
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Reload of {} failed", dataPath, e);
+            }
+        }
+    }
+
+    private static boolean awaitChange(Path fileName, WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private static <T> Map<String, T> index(List<T> items, Function<T, String> key) {
+        Map<String, T> index = new LinkedHashMap<>();
+        for (T item : items) {
+            // Same rule as the initial load: the first occurrence of a key wins
+            index.putIfAbsent(key.apply(item), item);
+        }
+        return index;
+    }
+
+    private static <T> void diff(List<T> current, Map<String, T> incoming, Function<T, String> key, BiPredicate<T, T> same, List<T> saved, List<T> deleted) {
+        Map<String, T> currentIndex = index(current, key);
+        currentIndex.forEach((k, item) -> {
+            if (!incoming.containsKey(k)) {
+                deleted.add(item);
+            }
+        });
+        incoming.forEach((k, item) -> {
+            T existing = currentIndex.get(k);
+            if (existing == null || !same.test(existing, item)) {
+                saved.add(item);
+            }
+        });
+    }
+
+    private static Map<String, List<FireStation>> mappingsByAddress(List<FireStation> fireStations) {
+        Map<String, List<FireStation>> mappings = new LinkedHashMap<>();
+        for (FireStation fireStation : fireStations) {
+            mappings.computeIfAbsent(KeyUtils.normalize(fireStation.getAddress()), a -> new ArrayList<>()).add(fireStation);
+        }
+        return mappings;
+    }
+
+    private static boolean samePerson(Person a, Person b) {
+        return Objects.equals(a.getFirstName(), b.getFirstName()) && Objects.equals(a.getLastName(), b.getLastName())
+                && Objects.equals(a.getAddress(), b.getAddress()) && Objects.equals(a.getCity(), b.getCity())
+                && Objects.equals(a.getZip(), b.getZip()) && Objects.equals(a.getPhone(), b.getPhone())
+                && Objects.equals(a.getEmail(), b.getEmail());
+    }
+
+    private static boolean sameMedicalRecords(MedicalRecords a, MedicalRecords b) {
+        return Objects.equals(a.getFirstName(), b.getFirstName()) && Objects.equals(a.getLastName(), b.getLastName())
+                && Objects.equals(a.getBirthdate(), b.getBirthdate())
+                && Objects.equals(a.getMedications(), b.getMedications())
+                && Objects.equals(a.getAllergies(), b.getAllergies());
+    }
+
+    private static boolean sameMappings(List<FireStation> a, List<FireStation> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!Objects.equals(a.get(i).getAddress(), b.get(i).getAddress())
+                    || !Objects.equals(a.get(i).getStation(), b.get(i).getStation())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.exists(file) ? Files.getLastModifiedTime(file) : null;
+        } catch (IOException e) {
+            logger.warn("Cannot read modification time of {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * A diff with the versions of the snapshots it was computed from.
+     */
+    private record Planned(JSONWriterService.Plan<Changes> plan, long personVersion, long fireStationVersion, long medicalRecordsVersion) {
+    }
+
+    private record Changes(int savedPersons, int deletedPersons, int changedAddresses, int savedMedicalRecords, int deletedMedicalRecords) {
+
+        int total() {
+            return savedPersons + deletedPersons + changedAddresses + savedMedicalRecords + deletedMedicalRecords;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Service exposing the version of the dataset as an HTTP entity tag, for conditional GET requests.
+ * <p>
+ * The tag combines the versions of the three repositories, which every write bumps, with the startup time
+ * of this instance, since versions restart at each launch, and with the current date, since the ages in
+ * the responses change at midnight without any write. It is read before the query it guards: if the
+ * data changes in between, the response carries the older tag, so the next poll is answered in full.
+ * <p>
+ * Versions and startup time are local to an instance: behind a load balancer, a client sent to another
+ * instance than the one that tagged its copy never gets a {@code 304}, only full responses.
+ */
+@Service
+public class DataVersionService {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private final PersonRepository personRepository;
+    private final FireStationRepository fireStationRepository;
+    private final MedicalRecordsRepository medicalRecordsRepository;
+    private final RepositoryLock repositoryLock;
+
+    @Autowired
+    public DataVersionService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository, RepositoryLock repositoryLock) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        this.medicalRecordsRepository = medicalRecordsRepository;
+        this.repositoryLock = repositoryLock;
+    }
+
+    /**
+     * Returns the entity tag of the current data version.
+     *
+     * @return the quoted entity tag, changed by every write and every day
+     */
+    public String etag() {
+        // Read in one go, so a change spanning several repositories is never half counted
+        String versions = repositoryLock.read(() -> personRepository.getVersion() + "." + fireStationRepository.getVersion()
+                + "." + medicalRecordsRepository.getVersion());
+        return "\"" + instance + "-" + LocalDate.now() + "-" + versions + "\"";
+    }
+}
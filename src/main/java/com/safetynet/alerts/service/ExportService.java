@@ -0,0 +1,140 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
+import com.safetynet.alerts.repository.Snapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service exporting the current dataset.
+ * <p>
+ * An export works on the immutable snapshots published by the repositories: it takes no lock while
+ * it writes, so writers are never blocked, and items are serialized one by one straight to the output,
+ * so the payload is never held in memory.
+ */
+@Service
+public class ExportService {
+
+    /**
+     * Layout of an export.
+     */
+    public enum Format {
+        /**
+         * A single document shaped like data.json.
+         */
+        JSON,
+        /**
+         * One JSON object per line: the bare items of a single section, or
+         * {@code {"section": ..., "value": ...}} wrappers when several sections are exported.
+         */
+        NDJSON
+    }
+
+    /**
+     * Snapshots of the three repositories that coexisted at one point in time.
+     *
+     * @param persons        the persons snapshot
+     * @param fireStations   the fire stations snapshot
+     * @param medicalRecords the medical records snapshot
+     */
+    public record DataSnapshot(Snapshot<Person> persons, Snapshot<FireStation> fireStations, Snapshot<MedicalRecords> medicalRecords) {
+
+        /**
+         * Returns the items of a section.
+         *
+         * @param section the section
+         * @return the items of the section in this snapshot
+         */
+        public List<?> items(DataSection section) {
+            return switch (section) {
+                case PERSONS -> persons.getItems();
+                case FIRE_STATIONS -> fireStations.getItems();
+                case MEDICAL_RECORDS -> medicalRecords.getItems();
+            };
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final PersonRepository personRepository;
+    private final FireStationRepository fireStationRepository;
+    private final MedicalRecordsRepository medicalRecordsRepository;
+    private final RepositoryLock repositoryLock;
+
+    @Autowired
+    public ExportService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository, RepositoryLock repositoryLock) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        this.medicalRecordsRepository = medicalRecordsRepository;
+        this.repositoryLock = repositoryLock;
+    }
+
+    /**
+     * Captures the snapshots of the three repositories in a single read of the lock they share,
+     * so a change spanning several repositories is either in all of their snapshots or in none.
+     *
+     * @return the captured snapshots
+     */
+    public DataSnapshot snapshot() {
+        return repositoryLock.read(() -> new DataSnapshot(personRepository.getSnapshot(), fireStationRepository.getSnapshot(),
+                medicalRecordsRepository.getSnapshot()));
+    }
+
+    /**
+     * Writes sections of a snapshot to a stream, left open.
+     *
+     * @param snapshot the snapshot to export
+     * @param sections the sections to export, in section order
+     * @param format   the layout of the export
+     * @param out      the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(DataSnapshot snapshot, Set<DataSection> sections, Format format, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (format == Format.JSON) {
+                generator.writeStartObject();
+                for (DataSection section : sections) {
+                    generator.writeFieldName(section.getKey());
+                    generator.writeStartArray();
+                    for (Object item : snapshot.items(section)) {
+                        generator.writeObject(item);
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+                return;
+            }
+            boolean wrapped = sections.size() > 1;
+            for (DataSection section : sections) {
+                for (Object item : snapshot.items(section)) {
+                    if (wrapped) {
+                        generator.writeStartObject();
+                        generator.writeStringField("section", section.getKey());
+                        generator.writeFieldName("value");
+                        generator.writeObject(item);
+                        generator.writeEndObject();
+                    } else {
+                        generator.writeObject(item);
+                    }
+                    generator.writeRaw('\n');
+                }
+            }
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.safetynet.alerts.service;
 import com.safetynet.alerts.dto.*;
 import com.safetynet.alerts.model.FireStation;
 import com.safetynet.alerts.model.MedicalRecords;
-import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FireStationRepository;
 import com.safetynet.alerts.repository.PersonRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +11,6 @@ import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Service layer for managing fire station assignments and related operations.
@@ -40,8 +38,7 @@ public class FireStationService {
      * @return the created fire station
      */
     public FireStation createFireStation(FireStation fireStation) {
-        jsonWriterService.saveFireStation(fireStation);
-        fireStationRepository.addFireStation(fireStation);
+        jsonWriterService.saveFireStation(fireStation, () -> fireStationRepository.addFireStation(fireStation));
         return fireStation;
     }
 
@@ -51,8 +48,7 @@ public class FireStationService {
      * @param fireStation the fire station with updated data
      */
     public void updateFireStation(FireStation fireStation) {
-        jsonWriterService.updateFireStation(fireStation);
-        fireStationRepository.updateFireStation(fireStation);
+        jsonWriterService.updateFireStation(fireStation, () -> fireStationRepository.updateFireStation(fireStation));
     }
 
     /**
@@ -61,8 +57,7 @@ public class FireStationService {
      * @param address the address for which the fire station should be removed
      */
     public void deleteFireStation(String address) {
-        jsonWriterService.deleteFireStation(address);
-        fireStationRepository.deleteFireStation(address);
+        jsonWriterService.deleteFireStation(address, () -> fireStationRepository.deleteFireStation(address));
     }
 
     /**
@@ -74,15 +69,12 @@ public class FireStationService {
      * and counts of adults and children
      */
     public FireStationResponseDTO getPersonByStationNumber(String stationNumber) {
-        List<Person> personList = personRepository.getAllPersons();
-        List<FireStation> fireStationList = fireStationRepository.getAllFireStation();
-
         // Get all addresses covered by the given station
-        Set<String> addressesForStation = fireStationList.stream().filter(fs -> fs.getStation().equals(stationNumber)).map(FireStation::getAddress).collect(Collectors.toSet());
+        Set<String> addressesForStation = fireStationRepository.getAddressesByStation(stationNumber);
 
         // Get persons living at these addresses and attach medical info
-        List<FireStationDTO> fireStationDTOList = personList.stream().filter(person -> addressesForStation.contains(person.getAddress())).map(person -> {
-            MedicalRecords medicalRecords = medicalRecordsService.getMedicalRecordsByName(person.getFirstName(), person.getLastName()).orElse(medicalRecordsService.blankMedicalRecords());
+        List<FireStationDTO> fireStationDTOList = addressesForStation.stream().flatMap(address -> personRepository.getPersonsByAddress(address).stream()).map(person -> {
+            MedicalRecords medicalRecords = medicalRecordsService.getMedicalRecordsByName(person.getFirstName(), person.getLastName()).orElseGet(medicalRecordsService::blankMedicalRecords);
             return new FireStationDTO(person, medicalRecords);
         }).toList();
 
@@ -1,9 +1,14 @@
 package com.safetynet.alerts.service;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.safetynet.alerts.model.DataSection;
 import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.JournalEntry;
 import com.safetynet.alerts.model.MedicalRecords;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FireStationRepository;
@@ -18,12 +23,28 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
- * Service responsible for reading initial data from the JSON file and loading it
- * into the application's repositories.
+ * Service responsible for reading the persisted dataset into the application's repositories,
+ * then replaying the mutation journal on top of it.
+ * <p>
+ * data.json is import-only: it seeds the repositories until a compaction has written the section files,
+ * and is never rewritten. Once a manifest exists it is not read at startup any more; edits made to it
+ * afterwards are picked up by {@link DataReloadService}.
  */
 @Service
 public class JSONReaderService {
@@ -31,12 +52,20 @@ public class JSONReaderService {
     @Value("${data.path}")
     private String dataPath;
 
+    @Value("${data.load.threads:3}")
+    private int loadThreads;
+
     private static final Logger logger = LogManager.getLogger(JSONReaderService.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader personReader = objectMapper.readerFor(Person.class);
+    private final ObjectReader fireStationReader = objectMapper.readerFor(FireStation.class);
+    private final ObjectReader medicalRecordsReader = objectMapper.readerFor(MedicalRecords.class);
 
     private final PersonRepository personRepository;
     private final FireStationRepository fireStationRepository;
     private final MedicalRecordsRepository medicalRecordsRepository;
+    private final JournalService journalService;
+    private final SectionFileService sectionFileService;
 
     /**
      * Constructor for JSONReaderService, injecting required repositories.
@@ -44,95 +73,263 @@ public class JSONReaderService {
      * @param personRepository         the repository for storing person data
      * @param fireStationRepository    the repository for storing fire station data
      * @param medicalRecordsRepository the repository for storing medical records data
+     * @param journalService           the journal of the mutations not yet compacted
+     * @param sectionFileService       the per-section files written by compactions
      */
     @Autowired
-    public JSONReaderService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository) {
+    public JSONReaderService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository, JournalService journalService, SectionFileService sectionFileService) {
         this.personRepository = personRepository;
         this.fireStationRepository = fireStationRepository;
         this.medicalRecordsRepository = medicalRecordsRepository;
+        this.journalService = journalService;
+        this.sectionFileService = sectionFileService;
     }
 
     /**
      * Initializes the service after Spring context is created.
-     * Reads the `data.json` file and loads persons, fire stations, and medical records
-     * into memory using their respective repositories.
+     * Loads persons, fire stations, and medical records in parallel, then replays the journal. Sections are
+     * parsed concurrently and each is published to its repository in a single write, since the repositories
+     * share one write lock. Once a compaction recorded a generation, each section is read from its
+     * binary file, or its JSON section file if the binary one is missing or unreadable; before the first
+     * compaction, sections are imported from the `data.json` file, each streamed by a parser of its own.
+     * The method only returns once every section is loaded, so the application is not reported
+     * ready before its data is.
      */
     @PostConstruct
     public void loadData() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, loadThreads), task -> {
+            Thread thread = new Thread(task, "data-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         try {
-            JsonNode root = objectMapper.readTree(new File(dataPath));
-            loadPerson(root);
-            loadFireStation(root);
-            loadMedicalRecords(root);
-        } catch (IOException e) {
+            List<Future<Integer>> loads = new ArrayList<>();
+            long generation = sectionFileService.generation();
+            if (generation > 0L) {
+                logger.info("Loading section files of generation {}", generation);
+            }
+            for (DataSection section : DataSection.values()) {
+                loads.add(executor.submit(() -> generation > 0L ? loadSectionFiles(section) : importSection(section)));
+            }
+            for (Future<Integer> load : loads) {
+                load.get();
+            }
+        } catch (ExecutionException e) {
             logger.info("No data");
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        journalService.replay(this::applyJournalEntry);
+    }
+
+    private int loadSectionFiles(DataSection section) throws IOException {
+        if (Files.exists(sectionFileService.binaryPath(section))) {
+            try {
+                BinarySnapshotService.Reader reader = sectionFileService.openBinary(section);
+                // Decoded in full before the repository is touched, so a corrupted file leaves nothing behind,
+                // then published in a single write
+                int count = switch (section) {
+                    case PERSONS -> addAll(reader.readPersons(), personRepository::addAllPersons);
+                    case FIRE_STATIONS -> addAll(reader.readFireStations(), fireStationRepository::appendFireStations);
+                    case MEDICAL_RECORDS -> addAll(reader.readMedicalRecords(), medicalRecordsRepository::addAllMedicalRecords);
+                };
+                logger.info("{} {} item(s) loaded from binary section file", count, section.getKey());
+                return count;
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable binary section file for {}", section.getKey(), e);
+            }
+        }
+        try (JsonParser parser = objectMapper.createParser(sectionFileService.jsonPath(section).toFile())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array in " + sectionFileService.jsonPath(section));
+            }
+            return loadArray(parser, section);
+        }
+    }
+
+    private int importSection(DataSection section) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(new File(dataPath))) {
+            return loadSections(parser, EnumSet.of(section));
         }
     }
 
     /**
-     * Loads and parses the "persons" section from the JSON tree,
-     * and stores each entry in the PersonRepository.
+     * Reads a data document token by token, binding the elements of the requested sections and handing
+     * each section to its repository in one write once it is parsed. Other sections are skipped without
+     * being bound, and reading stops once every requested section is loaded.
+     * Only the bound elements are held, which the repositories keep anyway, so memory stays proportional
+     * to the loaded model.
      *
-     * @param root the root node of the parsed JSON structure
+     * @param parser   the parser positioned before the root object
+     * @param sections the sections to load
+     * @return the number of elements loaded
+     * @throws IOException if the document cannot be read or is not a data document
      */
-    public void loadPerson(JsonNode root) {
-        List<Person> personList;
-        try {
-            JsonNode personsNode = root.get("persons");
-            Person[] personsArray = objectMapper.treeToValue(personsNode, Person[].class);
-            personList = Arrays.asList(personsArray);
-            for (Person person : personList) {
-                personRepository.addPerson(person);
-            }
-            logger.info("{} Person(s) loaded from data.json",personList.size());
-        } catch (JsonProcessingException e) {
-            logger.error("Error loading person", e);
-            throw new RuntimeException(e);
-        }
+    public int loadSections(JsonParser parser, Set<DataSection> sections) throws IOException {
+        return readSections(parser, sections, this::loadArray);
     }
 
     /**
-     * Loads and parses the "firestations" section from the JSON tree,
-     * and stores each entry in the FireStationRepository.
+     * Reads a whole data document into memory, without touching the repositories.
      *
-     * @param root the root node of the parsed JSON structure
+     * @param path the data document
+     * @return the persons, fire stations and medical records of the document, in document order
+     * @throws IOException if the document cannot be read or is not a data document
      */
-    public void loadFireStation(JsonNode root) {
-        List<FireStation> fireStationList;
-        try {
-            JsonNode fireStationNode = root.get("firestations");
-            FireStation[] fireStationTableau = objectMapper.treeToValue(fireStationNode, FireStation[].class);
-            fireStationList = Arrays.asList(fireStationTableau);
-            for (FireStation fireStation : fireStationList) {
-                fireStationRepository.addFireStation(fireStation);
+    public DataDocument readDocument(Path path) throws IOException {
+        List<Person> persons = new ArrayList<>();
+        List<FireStation> fireStations = new ArrayList<>();
+        List<MedicalRecords> medicalRecords = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(path.toFile())) {
+            readSections(parser, EnumSet.allOf(DataSection.class), (arrayParser, section) -> switch (section) {
+                case PERSONS -> JSONReaderService.<Person>readArray(arrayParser, personReader, persons::add);
+                case FIRE_STATIONS -> JSONReaderService.<FireStation>readArray(arrayParser, fireStationReader, fireStations::add);
+                case MEDICAL_RECORDS -> JSONReaderService.<MedicalRecords>readArray(arrayParser, medicalRecordsReader, medicalRecords::add);
+            });
+        }
+        return new DataDocument(persons, fireStations, medicalRecords);
+    }
+
+    private int readSections(JsonParser parser, Set<DataSection> sections, ArrayReader arrayReader) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object at the root of " + dataPath);
+        }
+        Set<DataSection> remaining = EnumSet.copyOf(sections);
+        int count = 0;
+        while (!remaining.isEmpty() && parser.nextToken() == JsonToken.FIELD_NAME) {
+            DataSection section = DataSection.fromKey(parser.currentName());
+            parser.nextToken();
+            if (section == null || !remaining.remove(section) || parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
             }
-            logger.info("{} FireStation(s) loaded from data.json",fireStationList.size() );
-        } catch (JsonProcessingException e) {
-            logger.error("Error loading FireStation", e);
-            throw new RuntimeException(e);
+            count += arrayReader.read(parser, section);
+        }
+        return count;
+    }
+
+    private static <T> int readArray(JsonParser parser, ObjectReader reader, Consumer<T> consumer) throws IOException {
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumer.accept(reader.readValue(parser));
+            count++;
         }
+        return count;
+    }
+
+    private static <T> int addAll(List<T> items, Consumer<List<T>> repository) {
+        repository.accept(items);
+        return items.size();
+    }
+
+    private int loadArray(JsonParser parser, DataSection section) throws IOException {
+        return switch (section) {
+            case PERSONS -> loadPerson(parser);
+            case FIRE_STATIONS -> loadFireStation(parser);
+            case MEDICAL_RECORDS -> loadMedicalRecords(parser);
+        };
     }
 
     /**
-     * Loads and parses the "medicalrecords" section from the JSON tree,
-     * and stores each entry in the MedicalRecordsRepository.
+     * Applies one journal entry to the repositories.
+     * Entries hold the whole value of their key, so applying one that is already reflected is harmless.
      *
-     * @param root the root node of the parsed JSON structure
+     * @param entry the journal entry to apply
      */
-    public void loadMedicalRecords(JsonNode root) {
-        List<MedicalRecords> medicalRecordsList;
+    public void applyJournalEntry(JournalEntry entry) {
+        List<String> key = entry.getKey();
+        boolean put = entry.getOp() == JournalEntry.Operation.PUT;
         try {
-            JsonNode medicalRecordsNode = root.get("medicalrecords");
-            MedicalRecords[] medicalRecordsTableau = objectMapper.treeToValue(medicalRecordsNode, MedicalRecords[].class);
-            medicalRecordsList = Arrays.asList(medicalRecordsTableau);
-            for (MedicalRecords medicalRecords : medicalRecordsList) {
-                medicalRecordsRepository.addMedicalRecords(medicalRecords);
+            switch (entry.getSection()) {
+                case PERSONS -> {
+                    if (put) {
+                        personRepository.savePerson(objectMapper.treeToValue(entry.getValue(), Person.class));
+                    } else {
+                        personRepository.deletePerson(key.get(0), key.get(1));
+                    }
+                }
+                case FIRE_STATIONS -> {
+                    List<FireStation> fireStations = put
+                            ? Arrays.asList(objectMapper.treeToValue(entry.getValue(), FireStation[].class))
+                            : Collections.emptyList();
+                    fireStationRepository.replaceFireStations(key.get(0), fireStations);
+                }
+                case MEDICAL_RECORDS -> {
+                    if (put) {
+                        medicalRecordsRepository.saveMedicalRecords(objectMapper.treeToValue(entry.getValue(), MedicalRecords.class));
+                    } else {
+                        medicalRecordsRepository.deleteMedicalRecords(key.get(0), key.get(1));
+                    }
+                }
             }
-            logger.info("{} MedicalRecord(s) loaded from data.json",medicalRecordsList.size());
         } catch (JsonProcessingException e) {
-            logger.error("Error loading MedicalRecords", e);
+            logger.error("Error applying journal entry {}", entry, e);
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Streams the "persons" section and stores its entries in the PersonRepository, in a single write.
+     *
+     * @param parser the parser positioned on the start of the section's array
+     * @return the number of persons read
+     * @throws IOException if an element cannot be read
+     */
+    public int loadPerson(JsonParser parser) throws IOException {
+        List<Person> persons = new ArrayList<>();
+        int count = JSONReaderService.<Person>readArray(parser, personReader, persons::add);
+        personRepository.addAllPersons(persons);
+        logger.info("{} Person(s) loaded from JSON", count);
+        return count;
+    }
+
+    /**
+     * Streams the "firestations" section and stores its entries in the FireStationRepository, in a single write.
+     *
+     * @param parser the parser positioned on the start of the section's array
+     * @return the number of fire stations read
+     * @throws IOException if an element cannot be read
+     */
+    public int loadFireStation(JsonParser parser) throws IOException {
+        List<FireStation> fireStations = new ArrayList<>();
+        int count = JSONReaderService.<FireStation>readArray(parser, fireStationReader, fireStations::add);
+        fireStationRepository.appendFireStations(fireStations);
+        logger.info("{} FireStation(s) loaded from JSON", count);
+        return count;
+    }
+
+    /**
+     * Streams the "medicalrecords" section and stores its entries in the MedicalRecordsRepository, in a single write.
+     *
+     * @param parser the parser positioned on the start of the section's array
+     * @return the number of medical records read
+     * @throws IOException if an element cannot be read
+     */
+    public int loadMedicalRecords(JsonParser parser) throws IOException {
+        List<MedicalRecords> medicalRecords = new ArrayList<>();
+        int count = JSONReaderService.<MedicalRecords>readArray(parser, medicalRecordsReader, medicalRecords::add);
+        medicalRecordsRepository.addAllMedicalRecords(medicalRecords);
+        logger.info("{} MedicalRecord(s) loaded from JSON", count);
+        return count;
+    }
+
+    /**
+     * Content of a data document read into memory.
+     *
+     * @param persons        the persons of the document
+     * @param fireStations   the fire station mappings of the document
+     * @param medicalRecords the medical records of the document
+     */
+    public record DataDocument(List<Person> persons, List<FireStation> fireStations, List<MedicalRecords> medicalRecords) {
+    }
+
+    @FunctionalInterface
+    private interface ArrayReader {
+        int read(JsonParser parser, DataSection section) throws IOException;
+    }
 }
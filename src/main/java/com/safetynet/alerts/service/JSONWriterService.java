@@ -1,336 +1,314 @@
 package com.safetynet.alerts.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.safetynet.alerts.model.DataSection;
 import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.JournalEntry;
 import com.safetynet.alerts.model.MedicalRecords;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FireStationRepository;
 import com.safetynet.alerts.repository.MedicalRecordsRepository;
 import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
- * Service responsible for saving, updating, and deleting entries in data.json for persons,
+ * Service responsible for persisting the creation, update, and deletion of persons,
  * fire stations, and medical records.
+ * <p>
+ * Each mutation is recorded in the {@link JournalService} as the current state of the changed key,
+ * read back from its repository: callers hand over the repository change, which is applied under the
+ * journal lock right before the state is read, and undone if it cannot be written. A change is applied and
+ * undone under the write lock of the repositories, so readers never see part of it.
+ * Recording states instead of operations keeps the journal idempotent when it is replayed
+ * on top of the persisted sections. Each call returns once its change is on disk; with group commit enabled,
+ * concurrent calls share a single write. Neither the journal nor the section files are ever rewritten
+ * in place: section files are replaced through {@link com.safetynet.alerts.utils.AtomicFileUtils},
+ * so a crash leaves the previous or the new version of each file, never a torn one.
  */
 @Service
 public class JSONWriterService {
 
     private static final Logger logger = LogManager.getLogger(JSONWriterService.class);
 
-    private static final String MEDICAL_RECORDS_KEY = "medicalrecords";
-    private static final String PERSONS_KEY = "persons";
-    private static final String FIRE_STATIONS_KEY = "firestations";
-
-
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    @Value("${data.path}")
-    private String dataPath;
-
     private final PersonRepository personRepository;
     private final FireStationRepository fireStationRepository;
     private final MedicalRecordsRepository medicalRecordsRepository;
+    private final JournalService journalService;
+    private final RepositoryLock repositoryLock;
 
-    public JSONWriterService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository) {
+    public JSONWriterService(PersonRepository personRepository, FireStationRepository fireStationRepository, MedicalRecordsRepository medicalRecordsRepository, JournalService journalService, RepositoryLock repositoryLock) {
         this.personRepository = personRepository;
         this.fireStationRepository = fireStationRepository;
         this.medicalRecordsRepository = medicalRecordsRepository;
+        this.journalService = journalService;
+        this.repositoryLock = repositoryLock;
     }
 
     /**
-     * Saves or updates a person in the data.json file.
-     * @param person the person to save or update
+     * Creates a person and persists it.
+     * @param person the person to save
+     * @param apply the repository change, undone if it cannot be persisted
      */
-    public void savePerson(Person person) {
-        try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-
-            List<Person> persons = new ArrayList<>(personRepository.getAllPersons());
-
-            boolean exists = persons.stream()
-                    .anyMatch(p -> p.getFirstName().equalsIgnoreCase(person.getFirstName()) &&
-                            p.getLastName().equalsIgnoreCase(person.getLastName()));
-
-            if (exists) {
-                logger.info("Person {} {} already exists in data.json, skipping save.", person.getFirstName(), person.getLastName());
-                return;
-            }
-
-            persons.add(person);
-            ((ObjectNode) root).set(PERSONS_KEY, objectMapper.valueToTree(persons));
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-
-            logger.info("Saved person {} {} to data.json", person.getFirstName(), person.getLastName());
-
-        } catch (IOException e) {
-            logger.error("Error saving person to data.json", e);
-            throw new RuntimeException(e);
-        }
+    public void savePerson(Person person, Runnable apply) {
+        persist(List.of(personKey(person.getFirstName(), person.getLastName())), List.of(), List.of(), apply);
+        logger.info("Saved person {} {} to journal", person.getFirstName(), person.getLastName());
     }
 
-
     /**
-     * Updates a person's information in the data.json file.
+     * Updates a person's information and persists it.
      * @param updatedPerson the person with updated details
+     * @param apply the repository change, undone if it cannot be persisted
      */
-    public void updatePerson(Person updatedPerson) {
-        try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-            List<Person> persons = new ArrayList<>(personRepository.getAllPersons());
-
-            boolean personFound = false;
-
-            for (int i = 0; i < persons.size(); i++) {
-                Person p = persons.get(i);
-                if (p.getFirstName().equalsIgnoreCase(updatedPerson.getFirstName()) && p.getLastName().equalsIgnoreCase(updatedPerson.getLastName())) {
-                    p.setAddress(updatedPerson.getAddress());
-                    p.setCity(updatedPerson.getCity());
-                    p.setZip(updatedPerson.getZip());
-                    p.setPhone(updatedPerson.getPhone());
-                    p.setEmail(updatedPerson.getEmail());
-                    persons.set(i, p);
-                    personFound = true;
-                    break;
-                }
-            }
-
-            if (!personFound) {
-                logger.info("Person not found, update skipped");
-                return;
-            }
-
-            ((ObjectNode) root).set(PERSONS_KEY, objectMapper.valueToTree(persons));
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-            logger.info("Person updated in data.json");
-        } catch (IOException e) {
-            logger.error("Error updating person in data.json", e);
-            throw new RuntimeException(e);
-        }
+    public void updatePerson(Person updatedPerson, Runnable apply) {
+        persist(List.of(personKey(updatedPerson.getFirstName(), updatedPerson.getLastName())), List.of(), List.of(), apply);
+        logger.info("Person {} {} updated in journal", updatedPerson.getFirstName(), updatedPerson.getLastName());
     }
 
     /**
-     * Deletes a person from the data.json file by first and last name.
+     * Deletes a person and persists the deletion.
      * @param firstName the first name
      * @param lastName the last name
+     * @param apply the repository change, undone if it cannot be persisted
      */
-    public void deletePerson(String firstName, String lastName) {
-        List<Person> persons = new ArrayList<>(personRepository.getAllPersons());
-
-        boolean removed = persons.removeIf(p -> p.getFirstName().equalsIgnoreCase(firstName.trim()) && p.getLastName().equalsIgnoreCase(lastName.trim()));
-
-        if (!removed) {
-            logger.info("Person not found for firstName: '{}' lastName: '{}'", firstName, lastName);
-            return;
-        }
-
-        try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-            ((ObjectNode) root).set(PERSONS_KEY, objectMapper.valueToTree(persons));
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-            logger.info("Person deleted from data.json");
-        } catch (IOException e) {
-            logger.error("Error deleting person from data.json", e);
-            throw new RuntimeException(e);
-        }
+    public void deletePerson(String firstName, String lastName, Runnable apply) {
+        persist(List.of(personKey(firstName, lastName)), List.of(), List.of(), apply);
+        logger.info("Person {} {} deleted in journal", firstName, lastName);
     }
 
     /**
-     * Saves or updates a fire station in the data.json file.
-     * @param fireStation the fire station to save or update
+     * Creates a fire station mapping and persists it.
+     * @param fireStation the fire station to save
+     * @param apply the repository change, undone if it cannot be persisted
      */
-    public void saveFireStation(FireStation fireStation) {
-        try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-            ArrayNode stationsNode = (ArrayNode) root.get(FIRE_STATIONS_KEY);
-
-            ArrayNode updatedStations = objectMapper.createArrayNode();
-            for (JsonNode node : stationsNode) {
-                boolean sameStation = node.get("address").asText().equalsIgnoreCase(fireStation.getAddress());
-                if (!sameStation) {
-                    updatedStations.add(node);
-                }
-            }
-
-            updatedStations.add(objectMapper.valueToTree(fireStation));
-            ((ObjectNode) root).set(FIRE_STATIONS_KEY, updatedStations);
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-            logger.info("Saved fire station at address {} to data.json", fireStation.getAddress());
-
-        } catch (IOException e) {
-            logger.error("Error saving fire station to data.json", e);
-            throw new RuntimeException(e);
-        }
+    public void saveFireStation(FireStation fireStation, Runnable apply) {
+        persist(List.of(), List.of(fireStation.getAddress()), List.of(), apply);
+        logger.info("Saved fire station at address {} to journal", fireStation.getAddress());
     }
 
     /**
-     * Updates a fire station's assigned number by address.
+     * Updates a fire station's number and persists it.
      * @param updatedFireStation the fire station with updated data
+     * @param apply the repository change, undone if it cannot be persisted
      */
-    public void updateFireStation(FireStation updatedFireStation) {
-        try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-            List<FireStation> fireStations = new ArrayList<>(fireStationRepository.getAllFireStation());
-
-            boolean found = false;
+    public void updateFireStation(FireStation updatedFireStation, Runnable apply) {
+        persist(List.of(), List.of(updatedFireStation.getAddress()), List.of(), apply);
+        logger.info("FireStation at address {} updated in journal", updatedFireStation.getAddress());
+    }
 
-            for (int i = 0; i < fireStations.size(); i++) {
-                FireStation fs = fireStations.get(i);
-                if (fs.getAddress().equalsIgnoreCase(updatedFireStation.getAddress())) {
-                    fs.setStation(updatedFireStation.getStation());
-                    fireStations.set(i, fs);
-                    found = true;
-                    break;
-                }
-            }
+    /**
+     * Deletes a fire station mapping and persists the deletion.
+     * @param address the address of the station
+     * @param apply the repository change, undone if it cannot be persisted
+     */
+    public void deleteFireStation(String address, Runnable apply) {
+        persist(List.of(), List.of(address), List.of(), apply);
+        logger.info("FireStation at address {} deleted in journal", address);
+    }
 
-            if (!found) {
-                logger.info("FireStation not found, update skipped");
-                return;
-            }
+    /**
+     * Creates a medical record and persists it.
+     * @param medicalRecords the medical record to save
+     * @param apply the repository change, undone if it cannot be persisted
+     */
+    public void saveMedicalRecord(MedicalRecords medicalRecords, Runnable apply) {
+        persist(List.of(), List.of(), List.of(personKey(medicalRecords.getFirstName(), medicalRecords.getLastName())), apply);
+        logger.info("Saved medical record for {} {} to journal", medicalRecords.getFirstName(), medicalRecords.getLastName());
+    }
 
-            ((ObjectNode) root).set(FIRE_STATIONS_KEY, objectMapper.valueToTree(fireStations));
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-            logger.info("FireStation updated in data.json");
-        } catch (IOException e) {
-            logger.error("Error updating FireStation in data.json", e);
-            throw new RuntimeException(e);
-        }
+    /**
+     * Updates a medical record and persists it.
+     * @param updatedMedicalRecords the record to update
+     * @param apply the repository change, undone if it cannot be persisted
+     */
+    public void updateMedicalRecords(MedicalRecords updatedMedicalRecords, Runnable apply) {
+        persist(List.of(), List.of(), List.of(personKey(updatedMedicalRecords.getFirstName(), updatedMedicalRecords.getLastName())), apply);
+        logger.info("MedicalRecords for {} {} updated in journal", updatedMedicalRecords.getFirstName(), updatedMedicalRecords.getLastName());
     }
 
     /**
-     * Deletes a fire station by its address from data.json.
-     * @param address the address of the station
+     * Deletes a medical record and persists the deletion.
+     * @param firstName the first name
+     * @param lastName the last name
+     * @param apply the repository change, undone if it cannot be persisted
      */
-    public void deleteFireStation(String address) {
-        List<FireStation> fireStations = new ArrayList<>(fireStationRepository.getAllFireStation());
+    public void deleteMedicalRecord(String firstName, String lastName, Runnable apply) {
+        persist(List.of(), List.of(), List.of(personKey(firstName, lastName)), apply);
+        logger.info("MedicalRecord for {} {} deleted in journal", firstName, lastName);
+    }
 
-        boolean removed = fireStations.removeIf(fs -> fs.getAddress().equalsIgnoreCase(address.trim()));
+    /**
+     * Applies a change to several persons, addresses and medical records and persists it with a single journal write.
+     * Keys no longer stored are persisted as deletions.
+     * @param persons the persons whose key may change
+     * @param addresses the addresses whose mappings may change
+     * @param medicalRecords the medical records whose key may change
+     * @param apply the repository change, undone if it cannot be persisted
+     * @param <R> the type of the result of the change
+     * @return the result of the change
+     */
+    public <R> R saveChanges(Collection<Person> persons, Collection<String> addresses, Collection<MedicalRecords> medicalRecords, Supplier<R> apply) {
+        AtomicReference<R> result = new AtomicReference<>();
+        journalService.apply(() -> change(personKeys(persons), addresses, medicalRecordKeys(medicalRecords), () -> result.set(apply.get())));
+        logger.info("{} person(s), {} address(es) and {} medical record(s) saved to journal",
+                persons.size(), addresses.size(), medicalRecords.size());
+        return result.get();
+    }
 
-        if (!removed) {
-            logger.info("FireStation not found for address: '{}'", address);
-            return;
+    /**
+     * Plans a change under the write lock of the repositories, then applies it and persists it with a single
+     * journal write. The plan is made against the state it is applied to, no writer can come in between,
+     * and readers see the whole change or none of it. Keys no longer stored are persisted as deletions.
+     * The change is undone if it cannot be persisted.
+     * @param plan reads the repositories and returns the change to apply, with the keys it touches
+     * @param <R> the type of the result of the plan
+     * @return the result of the plan
+     */
+    public <R> R saveChanges(Supplier<Plan<R>> plan) {
+        AtomicReference<Plan<R>> planned = new AtomicReference<>();
+        journalService.apply(() -> repositoryLock.write(() -> {
+            planned.set(plan.get());
+            return change(personKeys(planned.get().persons()), planned.get().addresses(),
+                    medicalRecordKeys(planned.get().medicalRecords()), planned.get().apply());
+        }));
+        Plan<R> applied = planned.get();
+        if (!applied.persons().isEmpty() || !applied.addresses().isEmpty() || !applied.medicalRecords().isEmpty()) {
+            logger.info("{} person(s), {} address(es) and {} medical record(s) saved to journal",
+                    applied.persons().size(), applied.addresses().size(), applied.medicalRecords().size());
         }
+        return applied.result();
+    }
 
-        try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-            ((ObjectNode) root).set(FIRE_STATIONS_KEY, objectMapper.valueToTree(fireStations));
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-            logger.info("FireStation deleted from data.json");
-        } catch (IOException e) {
-            logger.error("Error deleting firestation from data.json", e);
-            throw new RuntimeException(e);
-        }
+    private void persist(List<List<String>> personKeys, List<String> addresses, List<List<String>> medicalRecordKeys, Runnable apply) {
+        journalService.commitChange(() -> change(personKeys, addresses, medicalRecordKeys, apply));
     }
 
     /**
-     * Saves or updates a medical record in the data.json file.
-     * @param medicalRecords the medical record to save or update
+     * Applies a change under the journal lock and reads back the state of its keys.
+     * The state each key had before is kept to undo the change if its entries cannot be written.
      */
-    public void saveMedicalRecord(MedicalRecords medicalRecords) {
+    private JournalService.Change change(Collection<List<String>> personKeys, Collection<String> addresses,
+                                         Collection<List<String>> medicalRecordKeys, Runnable apply) {
+        return repositoryLock.write(() -> lockedChange(personKeys, addresses, medicalRecordKeys, apply));
+    }
+
+    private JournalService.Change lockedChange(Collection<List<String>> personKeys, Collection<String> addresses,
+                                               Collection<List<String>> medicalRecordKeys, Runnable apply) {
+        Map<List<String>, Optional<Person>> previousPersons = new LinkedHashMap<>();
+        personKeys.forEach(key -> previousPersons.put(key, personRepository.getPerson(key.get(0), key.get(1))));
+        Map<String, List<FireStation>> previousMappings = new LinkedHashMap<>();
+        addresses.forEach(address -> previousMappings.put(address, fireStationRepository.getFireStationsByAddress(address)));
+        Map<List<String>, Optional<MedicalRecords>> previousMedicalRecords = new LinkedHashMap<>();
+        medicalRecordKeys.forEach(key -> previousMedicalRecords.put(key, medicalRecordsRepository.getMedicalRecords(key.get(0), key.get(1))));
+        Runnable undo = () -> repositoryLock.write(() -> {
+            previousPersons.forEach((key, previous) -> previous.ifPresentOrElse(personRepository::savePerson,
+                    () -> personRepository.deletePerson(key.get(0), key.get(1))));
+            previousMappings.forEach(fireStationRepository::replaceFireStations);
+            previousMedicalRecords.forEach((key, previous) -> previous.ifPresentOrElse(medicalRecordsRepository::saveMedicalRecords,
+                    () -> medicalRecordsRepository.deleteMedicalRecords(key.get(0), key.get(1))));
+        });
+
+        apply.run();
         try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-            ArrayNode recordsNode = (ArrayNode) root.get(MEDICAL_RECORDS_KEY);
+            List<JournalEntry> entries = new ArrayList<>(previousPersons.size() + previousMappings.size() + previousMedicalRecords.size());
+            previousPersons.keySet().forEach(key -> entries.add(personEntry(key.get(0), key.get(1))));
+            previousMappings.keySet().forEach(address -> entries.add(fireStationEntry(address)));
+            previousMedicalRecords.keySet().forEach(key -> entries.add(medicalRecordEntry(key.get(0), key.get(1))));
+            return new JournalService.Change(entries, undo);
+        } catch (RuntimeException e) {
+            undo.run();
+            throw e;
+        }
+    }
 
-            ArrayNode updatedRecords = objectMapper.createArrayNode();
-            for (JsonNode node : recordsNode) {
-                boolean sameRecord = node.get("firstName").asText().equalsIgnoreCase(medicalRecords.getFirstName()) && node.get("lastName").asText().equalsIgnoreCase(medicalRecords.getLastName());
-                if (!sameRecord) {
-                    updatedRecords.add(node);
-                }
-            }
+    private static List<String> personKey(String firstName, String lastName) {
+        return List.of(firstName, lastName);
+    }
 
-            updatedRecords.add(objectMapper.valueToTree(medicalRecords));
-            ((ObjectNode) root).set(MEDICAL_RECORDS_KEY, updatedRecords);
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-            logger.info("Saved medical record for {} {} to data.json", medicalRecords.getFirstName(), medicalRecords.getLastName());
+    private static List<List<String>> personKeys(Collection<Person> persons) {
+        return persons.stream().map(person -> personKey(person.getFirstName(), person.getLastName())).toList();
+    }
 
-        } catch (IOException e) {
-            logger.error("Error saving medical record to data.json", e);
-            throw new RuntimeException(e);
-        }
+    private static List<List<String>> medicalRecordKeys(Collection<MedicalRecords> medicalRecords) {
+        return medicalRecords.stream().map(record -> personKey(record.getFirstName(), record.getLastName())).toList();
     }
 
     /**
-     * Updates a medical record in the data.json file.
-     * @param updatedMedicalRecords the record to update
+     * Builds the journal entry holding the current state of a person.
+     * @param firstName the first name
+     * @param lastName the last name
+     * @return a PUT entry if the person is stored, a DELETE entry otherwise
      */
-    public void updateMedicalRecords(MedicalRecords updatedMedicalRecords) {
-        try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-            List<MedicalRecords> medicalRecordsList = new ArrayList<>(medicalRecordsRepository.getAllMedicalRecords());
-
-            boolean found = false;
-
-            for (int i = 0; i < medicalRecordsList.size(); i++) {
-                MedicalRecords mr = medicalRecordsList.get(i);
-                if (mr.getFirstName().equalsIgnoreCase(updatedMedicalRecords.getFirstName()) && mr.getLastName().equalsIgnoreCase(updatedMedicalRecords.getLastName())) {
-                    mr.setBirthdate(updatedMedicalRecords.getBirthdate());
-                    mr.setMedications(updatedMedicalRecords.getMedications());
-                    mr.setAllergies(updatedMedicalRecords.getAllergies());
-                    medicalRecordsList.set(i, mr);
-                    found = true;
-                    break;
-                }
-            }
-
-            if (!found) {
-                logger.info("MedicalRecords not found, update skipped");
-                return;
-            }
+    public JournalEntry personEntry(String firstName, String lastName) {
+        List<String> key = List.of(firstName, lastName);
+        return personRepository.getPerson(firstName, lastName)
+                .map(person -> JournalEntry.put(DataSection.PERSONS, key, objectMapper.valueToTree(person)))
+                .orElseGet(() -> JournalEntry.delete(DataSection.PERSONS, key));
+    }
 
-            ((ObjectNode) root).set(MEDICAL_RECORDS_KEY, objectMapper.valueToTree(medicalRecordsList));
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-            logger.info("MedicalRecords updated in data.json");
-        } catch (IOException e) {
-            logger.error("Error updating MedicalRecords in data.json", e);
-            throw new RuntimeException(e);
+    /**
+     * Builds the journal entry holding every current mapping of an address.
+     * @param address the address
+     * @return a PUT entry if the address has mappings, a DELETE entry otherwise
+     */
+    public JournalEntry fireStationEntry(String address) {
+        List<String> key = List.of(address);
+        List<FireStation> mappings = fireStationRepository.getFireStationsByAddress(address);
+        if (mappings.isEmpty()) {
+            return JournalEntry.delete(DataSection.FIRE_STATIONS, key);
         }
+        return JournalEntry.put(DataSection.FIRE_STATIONS, key, objectMapper.valueToTree(mappings));
     }
 
     /**
-     * Deletes a medical record by first and last name from data.json.
+     * Builds the journal entry holding the current state of a medical record.
      * @param firstName the first name
      * @param lastName the last name
+     * @return a PUT entry if the record is stored, a DELETE entry otherwise
      */
-    public void deleteMedicalRecord(String firstName, String lastName) {
-        List<MedicalRecords> medicalRecordsList = new ArrayList<>(medicalRecordsRepository.getAllMedicalRecords());
-
-        boolean removed = medicalRecordsList.removeIf(mr -> mr.getFirstName().equalsIgnoreCase(firstName.trim()) && mr.getLastName().equalsIgnoreCase(lastName.trim()));
-
-        if (!removed) {
-            logger.info("MedicalRecord not found for firstName: '{}' lastName: '{}'", firstName, lastName);
-            return;
-        }
+    public JournalEntry medicalRecordEntry(String firstName, String lastName) {
+        List<String> key = List.of(firstName, lastName);
+        return medicalRecordsRepository.getMedicalRecords(firstName, lastName)
+                .map(medicalRecords -> JournalEntry.put(DataSection.MEDICAL_RECORDS, key, objectMapper.valueToTree(medicalRecords)))
+                .orElseGet(() -> JournalEntry.delete(DataSection.MEDICAL_RECORDS, key));
+    }
 
-        try {
-            File file = new File(dataPath);
-            JsonNode root = objectMapper.readTree(file);
-            ((ObjectNode) root).set(MEDICAL_RECORDS_KEY, objectMapper.valueToTree(medicalRecordsList));
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
-            logger.info("MedicalRecord deleted from data.json");
-        } catch (IOException e) {
-            logger.error("Error deleting medical record from data.json", e);
-            throw new RuntimeException(e);
+    /**
+     * A change planned against the current state of the repositories.
+     *
+     * @param result         the result handed back to the caller
+     * @param persons        the persons whose key the change touches
+     * @param addresses      the addresses whose mappings the change touches
+     * @param medicalRecords the medical records whose key the change touches
+     * @param apply          the repository change
+     * @param <R>            the type of the result
+     */
+    public record Plan<R>(R result, Collection<Person> persons, Collection<String> addresses,
+                          Collection<MedicalRecords> medicalRecords, Runnable apply) {
+
+        /**
+         * Returns a plan changing nothing.
+         *
+         * @param result the result handed back to the caller
+         * @param <R>    the type of the result
+         * @return a plan without keys nor change
+         */
+        public static <R> Plan<R> none(R result) {
+            return new Plan<>(result, List.of(), List.of(), List.of(), () -> {
+            });
         }
     }
 }
@@ -0,0 +1,605 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.JournalEntry;
+import com.safetynet.alerts.utils.AtomicFileUtils;
+import com.safetynet.alerts.utils.KeyUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Append-only journal of the mutations applied since the last compaction.
+ * Each mutation is stored as one compact JSON line and forced to disk before the call returns,
+ * so persisting a change costs the size of the change instead of the size of the dataset.
+ * The journal is replayed at startup on top of the section files, or of data.json before the first compaction.
+ * <p>
+ * Compaction first {@link #rotate(Function) rotates} the journal aside and captures the repositories under
+ * the journal lock, so appends continue in a fresh file while the changed sections are rewritten, then {@link #discardRotated() discards} the rotated file.
+ * The journal tracks which sections its entries touch, so compaction knows which sections are dirty.
+ * A rotated file left behind by an interrupted compaction is replayed before the journal.
+ * <p>
+ * A {@link Change} is applied to the repositories under the journal lock, right before its entries are built,
+ * so that entries and repositories see the changes in the same order. If the entries cannot be written,
+ * the change is undone before the caller is told about the failure: a change that failed never stays
+ * visible, and never reaches the section files through a later compaction.
+ * <p>
+ * In group-commit mode ({@code data.journal.group-commit.enabled}), submitted entries go through a bounded
+ * queue to a single writer thread, which commits everything submitted within
+ * {@code data.journal.group-commit.max-delay-ms} with one write and one fsync.
+ * <p>
+ * The journal is guarded by a {@link ReentrantLock} rather than a monitor: with virtual threads
+ * ({@code spring.threads.virtual.enabled}), a request waiting for an append parks and releases its carrier
+ * thread, where waiting on a monitor held across an fsync would pin it and starve the read-only requests.
+ */
+@Service
+public class JournalService {
+
+    private static final Logger logger = LogManager.getLogger(JournalService.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${data.journal.path:${data.path}.journal}")
+    private String journalPath;
+
+    @Value("${data.journal.group-commit.enabled:true}")
+    private boolean groupCommit;
+
+    @Value("${data.journal.group-commit.max-delay-ms:2}")
+    private long maxDelayMillis;
+
+    @Value("${data.journal.group-commit.queue-capacity:1024}")
+    private int queueCapacity;
+
+    private FileChannel channel;
+
+    private long oldestEntryMillis;
+
+    private final EnumSet<DataSection> journalSections = EnumSet.noneOf(DataSection.class);
+
+    private final EnumSet<DataSection> rotatedSections = EnumSet.noneOf(DataSection.class);
+
+    private BlockingQueue<PendingChange> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Starts the writer thread when group commit is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        lock.lock();
+        try {
+            if (!groupCommit || running) {
+                return;
+            }
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            running = true;
+            writer = new Thread(this::runWriter, "journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends entries to the journal and forces them to disk.
+     *
+     * @param entries the entries to append, written in order
+     */
+    public void append(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            FileChannel journal = openChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(encode(entries));
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            if (oldestEntryMillis == 0L) {
+                oldestEntryMillis = System.currentTimeMillis();
+            }
+            entries.forEach(entry -> journalSections.add(entry.getSection()));
+        } catch (IOException e) {
+            logger.error("Error appending to journal {}", journalPath, e);
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a change and appends its entries with a single write on the calling thread, under the journal lock.
+     * The change is undone if its entries cannot be written.
+     *
+     * @param change the supplier applying the change, then reading its entries
+     */
+    public void apply(Supplier<Change> change) {
+        lock.lock();
+        try {
+            Change applied = change.get();
+            try {
+                append(applied.entries());
+            } catch (RuntimeException e) {
+                undo(List.of(applied), e);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a single entry to the journal and forces it to disk.
+     *
+     * @param entry the entry to append
+     */
+    public void append(JournalEntry entry) {
+        append(List.of(entry));
+    }
+
+    /**
+     * Submits an entry for appending. The entry is built when it is committed, under the journal lock:
+     * an entry holding the current state of a key must be read and appended atomically, otherwise two
+     * concurrent writers could append their states in the opposite order they read them.
+     * <p>
+     * In group-commit mode the call blocks only while the queue is full; otherwise the entry is
+     * committed on the calling thread.
+     *
+     * @param entry the supplier reading the entry to append
+     * @return a future completed once the entry is on disk
+     */
+    public CompletableFuture<Void> submit(Supplier<JournalEntry> entry) {
+        return submitChange(() -> new Change(List.of(entry.get()), () -> {
+        }));
+    }
+
+    /**
+     * Submits a change. The change is applied and its entries built when it is committed, under the journal lock,
+     * and it is undone if its entries cannot be written.
+     * <p>
+     * In group-commit mode the call blocks only while the queue is full; otherwise the change is
+     * committed on the calling thread.
+     *
+     * @param change the supplier applying the change, then reading its entries
+     * @return a future completed once the entries are on disk
+     */
+    public CompletableFuture<Void> submitChange(Supplier<Change> change) {
+        PendingChange pending = new PendingChange(change, new CompletableFuture<>());
+        if (running) {
+            try {
+                queue.put(pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if (!running) {
+                // The writer may have stopped before seeing this entry
+                flushQueue();
+            }
+        } else {
+            commit(List.of(pending));
+        }
+        return pending.done();
+    }
+
+    /**
+     * Submits an entry and waits until it is on disk.
+     *
+     * @param entry the supplier reading the entry to append
+     */
+    public void append(Supplier<JournalEntry> entry) {
+        join(submit(entry));
+    }
+
+    /**
+     * Submits a change and waits until its entries are on disk.
+     *
+     * @param change the supplier applying the change, then reading its entries
+     */
+    public void commitChange(Supplier<Change> change) {
+        join(submitChange(change));
+    }
+
+    /**
+     * Replays every entry of the journal, in order, starting with a rotated journal left by an
+     * interrupted compaction. A truncated last line, left by a crash in the middle of an append, is ignored.
+     *
+     * @param consumer the callback applying each entry
+     * @return the number of entries replayed
+     */
+    public int replay(Consumer<JournalEntry> consumer) {
+        lock.lock();
+        try {
+            int count = replay(rotatedPath(), consumer.andThen(entry -> rotatedSections.add(entry.getSection())))
+                    + replay(Path.of(journalPath), consumer.andThen(entry -> journalSections.add(entry.getSection())));
+            if (count > 0 && oldestEntryMillis == 0L) {
+                oldestEntryMillis = System.currentTimeMillis();
+            }
+            logger.info("{} journal entry(ies) replayed from {}", count, journalPath);
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current size of the journal file.
+     *
+     * @return the size in bytes, 0 if the journal does not exist
+     */
+    public long size() {
+        lock.lock();
+        try {
+            Path path = Path.of(journalPath);
+            return Files.exists(path) ? Files.size(path) : 0L;
+        } catch (IOException e) {
+            logger.error("Error reading journal size {}", journalPath, e);
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how long the oldest entry not yet compacted has been waiting.
+     *
+     * @return the age in milliseconds, 0 if there is nothing to compact
+     */
+    public long oldestEntryAgeMillis() {
+        lock.lock();
+        try {
+            return oldestEntryMillis == 0L ? 0L : System.currentTimeMillis() - oldestEntryMillis;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether a rotated journal is waiting to be discarded by a compaction.
+     *
+     * @return true if a rotated journal exists
+     */
+    public boolean hasRotated() {
+        lock.lock();
+        try {
+            return Files.exists(rotatedPath());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the current journal aside so that new entries go to a fresh file.
+     * If a rotated journal already exists, the current one is appended to it.
+     * Every entry appended before this call is in the rotated journal once it returns.
+     *
+     * @return the sections touched by the rotated journal, empty if there is nothing to compact
+     */
+    public Set<DataSection> rotate() {
+        return rotate(sections -> sections);
+    }
+
+    /**
+     * Rotates the journal, then captures the state it leads to before releasing the journal lock.
+     * No change is applied or undone while {@code capture} runs, so it sees the repositories with exactly
+     * the changes of the rotated journal: not one applied after it, nor one undone because it could not be written.
+     *
+     * @param capture reads the state, given the sections touched by the rotated journal, empty if there is nothing to compact
+     * @param <T>     the type of the captured state
+     * @return the captured state
+     */
+    public <T> T rotate(Function<Set<DataSection>, T> capture) {
+        lock.lock();
+        try {
+            closeChannel();
+            Path journal = Path.of(journalPath);
+            Path rotated = rotatedPath();
+            if (Files.exists(journal)) {
+                if (Files.exists(rotated)) {
+                    // Entries are idempotent: a crash before the delete only replays them twice
+                    try (FileChannel file = FileChannel.open(rotated, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journal));
+                        while (buffer.hasRemaining()) {
+                            file.write(buffer);
+                        }
+                        file.force(false);
+                    }
+                    Files.delete(journal);
+                    AtomicFileUtils.syncDirectory(journal);
+                } else {
+                    AtomicFileUtils.move(journal, rotated);
+                }
+            }
+            oldestEntryMillis = 0L;
+            rotatedSections.addAll(journalSections);
+            journalSections.clear();
+            if (!Files.exists(rotated)) {
+                rotatedSections.clear();
+            } else if (rotatedSections.isEmpty()) {
+                // Entries neither appended nor replayed by this instance: the sections they touch are unknown
+                rotatedSections.addAll(EnumSet.allOf(DataSection.class));
+            }
+            return capture.apply(EnumSet.copyOf(rotatedSections));
+        } catch (IOException e) {
+            logger.error("Error rotating journal {}", journalPath, e);
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the rotated journal, once the sections it touched are written.
+     */
+    public void discardRotated() {
+        lock.lock();
+        try {
+            if (Files.deleteIfExists(rotatedPath())) {
+                AtomicFileUtils.syncDirectory(rotatedPath());
+            }
+            rotatedSections.clear();
+        } catch (IOException e) {
+            logger.error("Error deleting rotated journal {}", rotatedPath(), e);
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the writer thread once every submitted entry is committed, then closes the journal file.
+     */
+    @PreDestroy
+    public void close() {
+        Thread current;
+        lock.lock();
+        try {
+            running = false;
+            current = writer;
+            writer = null;
+        } finally {
+            lock.unlock();
+        }
+        if (current != null) {
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushQueue();
+        }
+        closeChannel();
+    }
+
+    private void runWriter() {
+        List<PendingChange> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingChange first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    PendingChange next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch);
+            } catch (InterruptedException e) {
+                logger.warn("Journal writer interrupted, committing {} pending entry(ies)", batch.size());
+            } finally {
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void flushQueue() {
+        List<PendingChange> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            commit(batch);
+        }
+    }
+
+    /**
+     * Applies the changes of a batch, in submission order, and appends their entries with a single write.
+     * Entries are state-based, so only the last one of each key needs to be written, at the position of the last
+     * write. Keys are compared normalized, like the repositories match them, so that entries naming the same record
+     * with a different case collapse too. If the write fails, every applied change is undone, in reverse order.
+     */
+    private void commit(List<PendingChange> batch) {
+        lock.lock();
+        try {
+            Map<List<Object>, JournalEntry> latest = new LinkedHashMap<>();
+            List<PendingChange> built = new ArrayList<>(batch.size());
+            List<Change> applied = new ArrayList<>(batch.size());
+            for (PendingChange pending : batch) {
+                try {
+                    Change change = pending.change().get();
+                    for (JournalEntry entry : change.entries()) {
+                        List<Object> key = List.of(entry.getSection(), entry.getKey().stream().map(KeyUtils::normalize).toList());
+                        // Removed first, so that the entry is written after the entries of the writes it follows
+                        latest.remove(key);
+                        latest.put(key, entry);
+                    }
+                    built.add(pending);
+                    applied.add(change);
+                } catch (RuntimeException e) {
+                    pending.done().completeExceptionally(e);
+                }
+            }
+            try {
+                append(new ArrayList<>(latest.values()));
+                built.forEach(pending -> pending.done().complete(null));
+            } catch (RuntimeException e) {
+                undo(applied, e);
+                built.forEach(pending -> pending.done().completeExceptionally(e));
+            }
+            if (batch.size() > 1) {
+                logger.debug("Group commit of {} entry(ies) in {} line(s)", batch.size(), latest.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void undo(List<Change> applied, RuntimeException failure) {
+        for (Change change : applied.reversed()) {
+            try {
+                change.undo().run();
+            } catch (RuntimeException e) {
+                logger.error("Error undoing a change whose journal entries could not be written", e);
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static void join(CompletableFuture<Void> done) {
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void closeChannel() {
+        lock.lock();
+        try {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.warn("Error closing journal {}", journalPath, e);
+                }
+                channel = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int replay(Path path, Consumer<JournalEntry> consumer) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        int count = 0;
+        try {
+            byte[] content = Files.readAllBytes(path);
+            int end = content.length;
+            while (end > 0 && content[end - 1] != '\n') {
+                end--;
+            }
+            if (end < content.length) {
+                // A crash interrupted the last append: drop it so that later appends start on a clean line
+                logger.warn("Ignoring truncated last journal entry in {}", path);
+                try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    file.truncate(end);
+                    file.force(false);
+                }
+            }
+            for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                consumer.accept(objectMapper.readValue(line, JournalEntry.class));
+                count++;
+            }
+        } catch (IOException e) {
+            logger.error("Error replaying journal {}", path, e);
+            throw new RuntimeException(e);
+        }
+        return count;
+    }
+
+    private Path rotatedPath() {
+        return Path.of(journalPath + ".compacting");
+    }
+
+    private byte[] encode(List<JournalEntry> entries) throws IOException {
+        // One generator for the whole batch, writing UTF-8 bytes directly: no intermediate strings
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(256 * entries.size());
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(lines)) {
+            generator.setRootValueSeparator(null);
+            for (JournalEntry entry : entries) {
+                generator.writeObject(entry);
+                generator.writeRaw('\n');
+            }
+        }
+        return lines.toByteArray();
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            Path journal = Path.of(journalPath);
+            boolean created = !Files.exists(journal);
+            channel = FileChannel.open(journal,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (created) {
+                // A new journal must survive a crash as a directory entry, not only as content
+                AtomicFileUtils.syncDirectory(journal);
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * A change applied to the repositories, with the entries persisting it.
+     *
+     * @param entries the entries holding the state of the changed keys
+     * @param undo    restores the state the changed keys had before the change
+     */
+    public record Change(List<JournalEntry> entries, Runnable undo) {
+    }
+
+    private record PendingChange(Supplier<Change> change, CompletableFuture<Void> done) {
+    }
+}
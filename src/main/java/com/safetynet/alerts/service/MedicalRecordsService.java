@@ -29,8 +29,7 @@ public class MedicalRecordsService {
      * @return The created medical record.
      */
     public MedicalRecords createMedicalRecords(MedicalRecords medicalRecords) {
-        medicalRecordsRepository.addMedicalRecords(medicalRecords);
-        jsonWriterService.saveMedicalRecord(medicalRecords);
+        jsonWriterService.saveMedicalRecord(medicalRecords, () -> medicalRecordsRepository.addMedicalRecords(medicalRecords));
         return medicalRecords;
     }
 
@@ -51,8 +50,7 @@ public class MedicalRecordsService {
      * @param medicalRecords The medical record with updated data.
      */
     public void updateMedicalRecords(MedicalRecords medicalRecords) {
-        medicalRecordsRepository.updateMedicalRecords(medicalRecords);
-        jsonWriterService.updateMedicalRecords(medicalRecords);
+        jsonWriterService.updateMedicalRecords(medicalRecords, () -> medicalRecordsRepository.updateMedicalRecords(medicalRecords));
     }
 
     /**
@@ -62,8 +60,7 @@ public class MedicalRecordsService {
      * @param lastName  The last name of the person.
      */
     public void deleteMedicalRecords(String firstName, String lastName) {
-        jsonWriterService.deleteMedicalRecord(firstName,lastName);
-        medicalRecordsRepository.deleteMedicalRecords(firstName, lastName);
+        jsonWriterService.deleteMedicalRecord(firstName, lastName, () -> medicalRecordsRepository.deleteMedicalRecords(firstName, lastName));
     }
 
     /**
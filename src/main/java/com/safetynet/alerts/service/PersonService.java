@@ -29,8 +29,7 @@ public class PersonService {
      * @return The created person.
      */
     public Person createPerson(Person person) {
-        jsonWriterService.savePerson(person);
-        personRepository.addPerson(person);
+        jsonWriterService.savePerson(person, () -> personRepository.addPerson(person));
         return person;
     }
 
@@ -51,8 +50,7 @@ public class PersonService {
      * @param person The person with updated data.
      */
     public void updatePerson(Person person) {
-        jsonWriterService.updatePerson(person);
-        personRepository.updatePerson(person);
+        jsonWriterService.updatePerson(person, () -> personRepository.updatePerson(person));
     }
 
     /**
@@ -62,8 +60,7 @@ public class PersonService {
      * @param lastName  The last name of the person.
      */
     public void deletePerson(String firstName, String lastName) {
-        jsonWriterService.deletePerson(firstName, lastName);
-        personRepository.deletePerson(firstName, lastName);
+        jsonWriterService.deletePerson(firstName, lastName, () -> personRepository.deletePerson(firstName, lastName));
     }
 
     /**
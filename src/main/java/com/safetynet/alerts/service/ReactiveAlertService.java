@@ -0,0 +1,107 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.*;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Reactive variant of {@link AlertService}, answering the same queries as {@link Flux} streams.
+ * <p>
+ * Nothing is materialized beyond one address: each stream walks the repository indexes as items are requested,
+ * one address or one person at a time, and joins it with the helpers of {@link AlertService}, so a subscriber
+ * only ever holds what it asked for and a slow consumer simply stops the walk. The queries read in-memory
+ * indexes only and never block, so they run on the subscribing thread. Enabled with {@code alerts.reactive.enabled}.
+ */
+@Service
+@ConditionalOnProperty(name = "alerts.reactive.enabled", havingValue = "true")
+public class ReactiveAlertService {
+
+    private final PersonRepository personRepository;
+    private final FireStationRepository fireStationRepository;
+    private final AlertService alertService;
+
+    @Autowired
+    public ReactiveAlertService(PersonRepository personRepository, FireStationRepository fireStationRepository, AlertService alertService) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        this.alertService = alertService;
+    }
+
+    /**
+     * Streams the children (aged 18 or younger) living at the given addresses, with their household.
+     *
+     * @param addresses the addresses to search, in order
+     * @return the children of each address
+     */
+    public Flux<ChildAlertDTO> getChildByAddress(List<String> addresses) {
+        return Flux.fromIterable(addresses)
+                .concatMapIterable(alertService::getChildByAddress);
+    }
+
+    /**
+     * Streams the phone numbers of all residents served by a fire station.
+     *
+     * @param fireStationNumber the fire station number
+     * @return the phone numbers, one per resident
+     */
+    public Flux<PhoneAlertDTO> getPhoneNumberByFireStation(String fireStationNumber) {
+        return Flux.defer(() -> Flux.fromIterable(fireStationRepository.getAddressesByStation(fireStationNumber)))
+                .concatMapIterable(alertService::getPhoneNumberByAddress);
+    }
+
+    /**
+     * Streams the residents of the given addresses with their medical information and the station
+     * number of the fire station serving their address.
+     *
+     * @param addresses the addresses to search, in order
+     * @return the residents of each address
+     */
+    public Flux<FireDTO> getPersonByAddress(List<String> addresses) {
+        return Flux.fromIterable(addresses)
+                .concatMapIterable(alertService::getPersonByAddress);
+    }
+
+    /**
+     * Streams the residents covered by a list of fire stations with their medical information.
+     * An address served by several of the stations is streamed once.
+     *
+     * @param fireStationsNumber the station numbers
+     * @return the residents of every covered address
+     */
+    public Flux<FloodStationsDTO> getPersonByListOfStations(List<String> fireStationsNumber) {
+        return Flux.fromStream(() -> alertService.streamPersonByListOfStations(fireStationsNumber));
+    }
+
+    /**
+     * Streams the personal and medical information of the people with the given last name.
+     *
+     * @param lastName the last name to search
+     * @return the matching persons
+     */
+    public Flux<PersonInfoDTO> getPersonInfoLastName(String lastName) {
+        return Flux.defer(() -> Flux.fromIterable(personRepository.getAllPersons()))
+                .filter(person -> person.getLastName().equalsIgnoreCase(lastName))
+                .map(alertService::getPersonInfo);
+    }
+
+    /**
+     * Streams the distinct email addresses of the residents of a city.
+     *
+     * @param city the city to search
+     * @return the email addresses, each once
+     */
+    public Flux<CommunityEmailDTO> getEmailByCity(String city) {
+        return Flux.defer(() -> Flux.fromIterable(personRepository.getAllPersons()))
+                .filter(person -> person.getCity().equalsIgnoreCase(city))
+                .map(Person::getEmail)
+                .distinct()
+                .map(CommunityEmailDTO::new);
+    }
+}
@@ -0,0 +1,170 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.utils.AtomicFileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persisted layout of the dataset, one set of files per section.
+ * <p>
+ * data.json is the seed and interchange file: it is only imported, never written. Each compaction only
+ * rewrites the sections that changed, as a JSON array ({@code <section>.json}) and its binary encoding ({@code <section>.bin}) in the
+ * {@code data.sections.path} directory, so a fire station edit never rewrites persons or medical records.
+ * <p>
+ * Once its sections are written, a compaction records a new generation in {@code manifest.json}. The first
+ * compaction writes every section, so a manifest means the section files hold the whole dataset and
+ * data.json is no longer read at startup; later edits to it are imported by {@link DataReloadService}.
+ * Where to load from is never guessed from modification times, which a clock step, a copy or a coarse
+ * file system can reorder.
+ * <p>
+ * Section JSON is streamed with a {@link JsonGenerator} and written compact; set
+ * {@code data.sections.pretty-print} to indent it for reading by hand.
+ */
+@Service
+public class SectionFileService {
+
+    private static final Logger logger = LogManager.getLogger(SectionFileService.class);
+
+    private static final String MANIFEST = "manifest.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${data.sections.path:${data.path}.d}")
+    private String sectionsPath;
+
+    @Value("${data.sections.pretty-print:false}")
+    private boolean prettyPrint;
+
+    private final BinarySnapshotService binarySnapshotService;
+
+    @Autowired
+    public SectionFileService(BinarySnapshotService binarySnapshotService) {
+        this.binarySnapshotService = binarySnapshotService;
+    }
+
+    /**
+     * Returns the JSON file of a section.
+     *
+     * @param section the section
+     * @return the path of the section's JSON array
+     */
+    public Path jsonPath(DataSection section) {
+        return Path.of(sectionsPath, section.getKey() + ".json");
+    }
+
+    /**
+     * Returns the binary file of a section.
+     *
+     * @param section the section
+     * @return the path of the section's binary encoding
+     */
+    public Path binaryPath(DataSection section) {
+        return Path.of(sectionsPath, section.getKey() + ".bin");
+    }
+
+    /**
+     * Returns the manifest recording the generation of the section files.
+     *
+     * @return the path of the manifest
+     */
+    public Path manifestPath() {
+        return Path.of(sectionsPath, MANIFEST);
+    }
+
+    /**
+     * Returns the generation of the section files, that is the number of compactions that wrote them.
+     *
+     * @return the generation recorded in the manifest, or 0 if no compaction completed yet
+     */
+    public long generation() {
+        Path manifest = manifestPath();
+        if (!Files.exists(manifest)) {
+            return 0L;
+        }
+        try {
+            return objectMapper.readTree(manifest.toFile()).path("generation").asLong();
+        } catch (IOException e) {
+            logger.error("Error reading manifest {}", manifest, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records a new generation of section files. Called once every section of the generation is written,
+     * so that a crash in the middle of a compaction leaves the previous manifest in place.
+     *
+     * @param generation the generation to record
+     */
+    public void writeManifest(long generation) {
+        try {
+            Files.createDirectories(Path.of(sectionsPath));
+            byte[] manifest = objectMapper.writeValueAsBytes(Map.of("generation", generation));
+            AtomicFileUtils.write(manifestPath(), out -> out.write(manifest));
+        } catch (IOException e) {
+            logger.error("Error writing manifest to {}", sectionsPath, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Maps the binary file of a section.
+     *
+     * @param section the section
+     * @return a reader over the records of the section
+     * @throws IOException if the file cannot be read or holds another section
+     */
+    public BinarySnapshotService.Reader openBinary(DataSection section) throws IOException {
+        BinarySnapshotService.Reader reader = binarySnapshotService.open(binaryPath(section));
+        if (reader.getSection() != section) {
+            throw new IOException(binaryPath(section) + " does not hold " + section.getKey());
+        }
+        return reader;
+    }
+
+    /**
+     * Rewrites the files of one section: its JSON array first, then its binary encoding,
+     * each through a temporary file forced to disk and renamed over the previous one.
+     *
+     * @param section the section to write
+     * @param items   every item of the section
+     */
+    public void write(DataSection section, List<?> items) {
+        try {
+            Files.createDirectories(Path.of(sectionsPath));
+            AtomicFileUtils.write(jsonPath(section), out -> writeJson(items, out));
+            AtomicFileUtils.write(binaryPath(section), out -> binarySnapshotService.write(section, items, out));
+            logger.info("{} {} item(s) written to {}", items.size(), section.getKey(), sectionsPath);
+        } catch (IOException e) {
+            logger.error("Error writing section {} to {}", section.getKey(), sectionsPath, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeJson(List<?> items, OutputStream out) throws IOException {
+        // Items are serialized one by one straight to the file, without an intermediate tree
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (prettyPrint) {
+                generator.useDefaultPrettyPrinter();
+            }
+            generator.writeStartArray(items, items.size());
+            for (Object item : items) {
+                generator.writeObject(item);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
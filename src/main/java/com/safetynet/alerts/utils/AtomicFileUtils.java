@@ -0,0 +1,95 @@
+package com.safetynet.alerts.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Crash-safe file writes: content goes to a sibling temporary file which is forced to disk,
+ * then renamed over the target, and the rename itself is made durable by syncing the directory.
+ * A crash at any point leaves either the previous or the new content, never a mix of both.
+ */
+public class AtomicFileUtils {
+
+    private static final Logger logger = LogManager.getLogger(AtomicFileUtils.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private AtomicFileUtils() {
+    }
+
+    /**
+     * Writes content to a file stream, left open to the writer.
+     */
+    @FunctionalInterface
+    public interface StreamWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Replaces the content of a file through a temporary file, fsync and rename.
+     * The temporary file is removed if the writer fails, leaving the target untouched.
+     *
+     * @param target the file to replace
+     * @param writer writes the new content
+     * @throws IOException if the content cannot be written or the file cannot be renamed
+     */
+    public static void write(Path target, StreamWriter writer) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            writer.write(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        move(temp, target);
+    }
+
+    /**
+     * Renames a file over another one and makes the rename durable.
+     *
+     * @param source the file to rename
+     * @param target the new name, replaced if it exists
+     * @throws IOException if the file cannot be renamed
+     */
+    public static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.warn("Atomic rename not supported for {}, falling back to a plain rename", target);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target);
+    }
+
+    /**
+     * Forces the directory holding a file to disk, so that a creation, rename or deletion survives a crash.
+     * Some platforms (Windows) cannot open a directory: the rename is then as durable as the file system makes it.
+     *
+     * @param file a file of the directory to sync
+     */
+    public static void syncDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Cannot sync directory {}", directory, e);
+        }
+    }
+}
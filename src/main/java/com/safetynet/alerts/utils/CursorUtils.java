@@ -0,0 +1,46 @@
+package com.safetynet.alerts.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes the opaque cursors of paginated responses.
+ * A cursor holds the sort key of the last item of a page, so the next page resumes right after it
+ * whatever was added or removed in between.
+ */
+public class CursorUtils {
+
+    // Differs from the separator of KeyUtils, since a part may be a name key
+    private static final String SEPARATOR = "\u001E";
+
+    private CursorUtils() {
+    }
+
+    /**
+     * Encodes the parts of a sort key as an opaque, URL-safe cursor.
+     *
+     * @param parts the parts of the sort key
+     * @return the cursor
+     */
+    public static String encode(String... parts) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor built by {@link #encode(String...)}.
+     *
+     * @param cursor the cursor
+     * @param parts  the number of parts expected in the sort key
+     * @return the parts of the sort key
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static List<String> decode(String cursor, int parts) {
+        List<String> key = List.of(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1));
+        if (key.size() != parts) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return key;
+    }
+}
@@ -0,0 +1,39 @@
+package com.safetynet.alerts.utils;
+
+import java.util.Locale;
+
+/**
+ * Builds the normalized keys used by the in-memory indexes of the repositories.
+ * Keys are trimmed and case-folded so that lookups behave like {@code equalsIgnoreCase}.
+ */
+public class KeyUtils {
+
+    private static final char SEPARATOR = '\u001F';
+
+    private KeyUtils() {
+    }
+
+    /**
+     * Normalizes a single value (trimmed, lower-cased).
+     *
+     * @param value the raw value, may be null
+     * @return the normalized value, or an empty string if the value is null
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds the composite key identifying a person or a medical record.
+     *
+     * @param firstName the first name
+     * @param lastName  the last name
+     * @return the normalized (firstName, lastName) key
+     */
+    public static String nameKey(String firstName, String lastName) {
+        return normalize(firstName) + SEPARATOR + normalize(lastName);
+    }
+}
@@ -0,0 +1,113 @@
+package com.safetynet.alerts;
+
+import com.safetynet.alerts.service.JournalService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load scenario for the virtual-thread request mode, run against the embedded Tomcat.
+ * <p>
+ * The journal lock is held by the test, as by an append stuck on disk, while more write requests than Tomcat
+ * has platform request threads wait for it. Alert requests must still be answered: on platform threads the
+ * blocked writers would exhaust the pool and the reads would never be served. Tagged {@code load} and only run
+ * with the {@code load} Maven profile.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "server.tomcat.threads.max=200",
+        "data.journal.group-commit.enabled=false",
+        "data.compaction.check-interval-ms=3600000"
+})
+class AlertLoadTest {
+
+    private static final int WRITERS = 256;
+    private static final int READS = 500;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JournalService journalService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @DynamicPropertySource
+    static void dataPath(DynamicPropertyRegistry registry) throws IOException {
+        Path data = Files.createTempDirectory("alert-load").resolve("data.json");
+        Files.copy(Path.of("src/main/resources/data.json"), data);
+        registry.add("data.path", data::toString);
+    }
+
+    /**
+     * Test that alert requests are served while every write request is parked behind the journal,
+     * and that the writers complete once it is released.
+     */
+    @Test
+    void alertsAreServedWhileWritesAreBlocked() throws Exception {
+        ReentrantLock journalLock = (ReentrantLock) ReflectionTestUtils.getField(journalService, "lock");
+        List<CompletableFuture<HttpResponse<String>>> writes = new ArrayList<>();
+        journalLock.lock();
+        try {
+            for (int i = 0; i < WRITERS; i++) {
+                writes.add(send(HttpRequest.newBuilder(uri("/person"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"firstName\":\"Writer" + i + "\",\"lastName\":\"Load\","
+                                + "\"address\":\"1509 Culver St\",\"city\":\"Culver\",\"zip\":\"97451\","
+                                + "\"phone\":\"841-874-6512\",\"email\":\"load@email.com\"}"))));
+            }
+            // More writers waiting than server.tomcat.threads.max: they can only be on virtual threads
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            while (journalLock.getQueueLength() < WRITERS) {
+                assertTrue(System.nanoTime() < deadline, "writers did not all reach the journal: " + journalLock.getQueueLength());
+                Thread.sleep(10);
+            }
+
+            List<CompletableFuture<HttpResponse<String>>> reads = new ArrayList<>();
+            for (int i = 0; i < READS; i++) {
+                reads.add(send(HttpRequest.newBuilder(uri("/phoneAlert?firestation=1")).GET()));
+            }
+            for (CompletableFuture<HttpResponse<String>> read : reads) {
+                assertEquals(200, read.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).statusCode());
+            }
+            assertTrue(writes.stream().noneMatch(CompletableFuture::isDone), "a write completed while the journal was blocked");
+        } finally {
+            journalLock.unlock();
+        }
+
+        for (CompletableFuture<HttpResponse<String>> write : writes) {
+            assertEquals(201, write.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest.Builder request) {
+        return client.sendAsync(request.timeout(Duration.ofSeconds(TIMEOUT_SECONDS)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
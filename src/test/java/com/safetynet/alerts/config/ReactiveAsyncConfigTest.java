@@ -0,0 +1,35 @@
+package com.safetynet.alerts.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ReactiveAsyncConfig}.
+ * These tests check that the streams are written by a bounded executor.
+ */
+class ReactiveAsyncConfigTest {
+
+    private final ReactiveAsyncConfig config = new ReactiveAsyncConfig();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(config, "threads", 4);
+        ReflectionTestUtils.setField(config, "queueCapacity", 10);
+    }
+
+    /**
+     * Test that the executor has a fixed number of threads and a bounded queue.
+     */
+    @Test
+    void testExecutorIsBounded() {
+        ThreadPoolTaskExecutor executor = config.reactiveAlertExecutor();
+
+        assertEquals(4, executor.getCorePoolSize());
+        assertEquals(4, executor.getMaxPoolSize());
+        assertEquals(10, executor.getQueueCapacity());
+    }
+}
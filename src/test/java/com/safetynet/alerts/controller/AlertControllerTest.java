@@ -3,19 +3,33 @@ package com.safetynet.alerts.controller;
 import com.safetynet.alerts.dto.*;
 import com.safetynet.alerts.model.MedicalRecords;
 import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AlertCacheService;
 import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataVersionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -37,7 +51,12 @@ class AlertControllerTest {
     @BeforeEach
     void setup() {
         alertService = Mockito.mock(AlertService.class);
-        AlertController alertController = new AlertController(alertService);
+        DataVersionService dataVersionService = Mockito.mock(DataVersionService.class);
+        when(dataVersionService.etag()).thenReturn("\"v1\"");
+        // Built without Spring, the cache has no capacity and calls through to the service
+        AlertCacheService alertCacheService = new AlertCacheService(new PersonRepository(), new FireStationRepository(), new MedicalRecordsRepository());
+        AlertController alertController = new AlertController(alertService, dataVersionService, alertCacheService);
+        ReflectionTestUtils.setField(alertController, "floodTimeoutMillis", 60000L);
         mockMvc = MockMvcBuilders.standaloneSetup(alertController).build();
     }
 
@@ -130,6 +149,31 @@ class AlertControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    /**
+     * Tests the /communityEmail endpoint with a page limit: the next cursor is sent in a header.
+     */
+    @Test
+    void testGetCommunityEmail_Paged() throws Exception {
+        CommunityEmailDTO email = new CommunityEmailDTO("email@example.com");
+        when(alertService.getEmailByCity("Paris", null, 1)).thenReturn(new PageDTO<>(List.of(email), "next"));
+
+        mockMvc.perform(get("/communityEmail").param("city", "Paris").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$[0].email").value("email@example.com"));
+    }
+
+    /**
+     * Tests the /communityEmail endpoint with a malformed cursor (should return 400).
+     */
+    @Test
+    void testGetCommunityEmail_MalformedCursor() throws Exception {
+        when(alertService.getEmailByCity("Paris", "bad", Integer.MAX_VALUE)).thenThrow(new IllegalArgumentException("Malformed cursor"));
+
+        mockMvc.perform(get("/communityEmail").param("city", "Paris").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Tests the /phoneAlert endpoint with a known fire station number.
      */
@@ -140,9 +184,21 @@ class AlertControllerTest {
 
         mockMvc.perform(get("/phoneAlert").param("firestation", "1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v1\""))
                 .andExpect(jsonPath("$[0].phone").value("123-456-7890"));
     }
 
+    /**
+     * Tests the /phoneAlert endpoint with the current entity tag (should return 304 without querying).
+     */
+    @Test
+    void testGetPhoneAlert_NotModified() throws Exception {
+        mockMvc.perform(get("/phoneAlert").param("firestation", "1").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified());
+
+        verify(alertService, never()).getPhoneNumberByFireStation("1");
+    }
+
     /**
      * Tests the /phoneAlert endpoint with an unknown fire station number (should return 404).
      */
@@ -199,10 +255,15 @@ class AlertControllerTest {
                 List.of("med1", "med2"),
                 List.of("allergy1")
         );
-        when(alertService.getPersonByListOfStations(List.of("1", "2"))).thenReturn(List.of(floodDto));
+        when(alertService.streamPersonByListOfStations(List.of("1", "2"))).thenReturn(Stream.of(floodDto, floodDto));
 
-        mockMvc.perform(get("/flood/stations").param("stations", "1", "2"))
+        MvcResult result = mockMvc.perform(get("/flood/stations").param("stations", "1", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(60000L, result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].lastName").value("Doe"));
     }
 
@@ -211,7 +272,7 @@ class AlertControllerTest {
      */
     @Test
     void testGetFloodStations_NotFound() throws Exception {
-        when(alertService.getPersonByListOfStations(List.of("99"))).thenReturn(List.of());
+        when(alertService.streamPersonByListOfStations(List.of("99"))).thenReturn(Stream.empty());
 
         mockMvc.perform(get("/flood/stations").param("stations", "99"))
                 .andExpect(status().isNotFound());
@@ -0,0 +1,74 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.BatchErrorDTO;
+import com.safetynet.alerts.dto.BatchOperationDTO;
+import com.safetynet.alerts.dto.BatchResultDTO;
+import com.safetynet.alerts.service.BatchService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link BatchController}.
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchControllerTest {
+
+    @Mock
+    private BatchService batchService;
+
+    @InjectMocks
+    private BatchController batchController;
+
+    /**
+     * Test that an applied batch returns the number of mutations.
+     * Expects HTTP 200 OK.
+     */
+    @Test
+    void applyBatch_applied() {
+        List<BatchOperationDTO> operations = List.of(new BatchOperationDTO(BatchOperationDTO.Operation.DELETE, "persons", null));
+        when(batchService.apply(operations)).thenReturn(new BatchResultDTO(1, List.of()));
+
+        ResponseEntity<BatchResultDTO> response = batchController.applyBatch(operations);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getApplied());
+    }
+
+    /**
+     * Test that a refused batch returns the status of its first error with the errors.
+     * Expects HTTP 409 CONFLICT.
+     */
+    @Test
+    void applyBatch_refused() {
+        List<BatchOperationDTO> operations = List.of(new BatchOperationDTO(BatchOperationDTO.Operation.CREATE, "persons", null));
+        when(batchService.apply(operations)).thenReturn(new BatchResultDTO(0, List.of(
+                new BatchErrorDTO(0, 409, "already exists"), new BatchErrorDTO(1, 404, "not found"))));
+
+        ResponseEntity<BatchResultDTO> response = batchController.applyBatch(operations);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(2, response.getBody().getErrors().size());
+    }
+
+    /**
+     * Test that an empty batch is rejected.
+     * Expects HTTP 400 BAD REQUEST.
+     */
+    @Test
+    void applyBatch_empty() {
+        ResponseEntity<BatchResultDTO> response = batchController.applyBatch(List.of());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(batchService);
+    }
+}
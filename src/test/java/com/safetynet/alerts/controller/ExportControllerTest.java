@@ -0,0 +1,71 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
+import com.safetynet.alerts.service.ExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ExportController}.
+ */
+class ExportControllerTest {
+
+    private ExportController exportController;
+
+    @BeforeEach
+    void setUp() {
+        PersonRepository personRepository = new PersonRepository();
+        personRepository.addPerson(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        exportController = new ExportController(new ExportService(personRepository, new FireStationRepository(), new MedicalRecordsRepository(), new RepositoryLock()));
+        ReflectionTestUtils.setField(exportController, "timeoutMillis", 600000L);
+    }
+
+    /**
+     * Test that a gzipped NDJSON export of one section decompresses to its items, under the export timeout.
+     */
+    @Test
+    void export_gzippedNdjson() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        WebAsyncTask<Void> task = exportController.export("ndjson", DataSection.PERSONS.getKey(), true, response);
+        task.getCallable().call();
+
+        assertEquals(600000L, task.getTimeout());
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("application/x-ndjson", response.getContentType());
+        String content = new String(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(content.startsWith("{\"firstName\":\"John\""));
+    }
+
+    /**
+     * Test that unknown formats and sections are rejected.
+     * Expects HTTP 400 BAD REQUEST.
+     */
+    @Test
+    void export_badParameters() {
+        MockHttpServletResponse badFormat = new MockHttpServletResponse();
+        MockHttpServletResponse badSection = new MockHttpServletResponse();
+
+        assertNull(exportController.export("xml", null, false, badFormat));
+        assertNull(exportController.export("json", "unknown", false, badSection));
+        assertEquals(HttpStatus.BAD_REQUEST.value(), badFormat.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), badSection.getStatus());
+    }
+}
@@ -2,6 +2,7 @@ package com.safetynet.alerts.controller;
 
 import com.safetynet.alerts.dto.FireStationResponseDTO;
 import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.service.DataVersionService;
 import com.safetynet.alerts.service.FireStationService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +11,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Collections;
 import java.util.Optional;
@@ -28,6 +32,9 @@ class FireStationControllerTest {
     @Mock
     private FireStationService fireStationService;
 
+    @Mock
+    private DataVersionService dataVersionService;
+
     @InjectMocks
     private FireStationController controller;
 
@@ -69,11 +76,28 @@ class FireStationControllerTest {
     void getPersonByStationNumber_shouldReturnOk() {
         FireStationResponseDTO dto = new FireStationResponseDTO(Collections.emptyList(), 0, 0);
         when(fireStationService.getPersonByStationNumber("1")).thenReturn(dto);
+        when(dataVersionService.etag()).thenReturn("\"v1\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
 
-        ResponseEntity<FireStationResponseDTO> response = controller.getPersonByStationNumber("1");
+        ResponseEntity<FireStationResponseDTO> response = controller.getPersonByStationNumber("1", webRequest(null, servletResponse));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(dto, response.getBody());
+        assertEquals("\"v1\"", servletResponse.getHeader("ETag"));
+    }
+
+    /**
+     * Test for retrieving persons by fire station number when the client already holds the current version.
+     * Expects HTTP 304 NOT MODIFIED, without querying the service.
+     */
+    @Test
+    void getPersonByStationNumber_shouldReturnNotModified() {
+        when(dataVersionService.etag()).thenReturn("\"v1\"");
+
+        ResponseEntity<FireStationResponseDTO> response = controller.getPersonByStationNumber("1", webRequest("\"v1\"", new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verifyNoInteractions(fireStationService);
     }
 
     /**
@@ -82,7 +106,7 @@ class FireStationControllerTest {
      */
     @Test
     void getPersonByStationNumber_shouldReturnBadRequest() {
-        ResponseEntity<FireStationResponseDTO> response = controller.getPersonByStationNumber("");
+        ResponseEntity<FireStationResponseDTO> response = controller.getPersonByStationNumber("", webRequest(null, new MockHttpServletResponse()));
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -154,4 +178,12 @@ class FireStationControllerTest {
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/firestation");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
 }
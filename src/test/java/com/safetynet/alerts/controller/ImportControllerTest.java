@@ -0,0 +1,68 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.ImportResultDTO;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.service.BulkImportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ImportController}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ImportControllerTest {
+
+    @Mock
+    private BulkImportService bulkImportService;
+
+    @InjectMocks
+    private ImportController importController;
+
+    /**
+     * Test that the results are streamed as NDJSON, one line per result.
+     */
+    @Test
+    void importSection_streamsResults() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        when(bulkImportService.importLines(DataSection.PERSONS, body)).thenReturn(List.of(
+                new ImportResultDTO(1, ImportResultDTO.Status.CREATED, null),
+                new ImportResultDTO(2, ImportResultDTO.Status.INVALID, "firstName and lastName are required")));
+
+        ResponseEntity<StreamingResponseBody> response = importController.importSection("persons", body);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("""
+                {"line":1,"status":"CREATED"}
+                {"line":2,"status":"INVALID","message":"firstName and lastName are required"}
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that an unknown section is rejected.
+     * Expects HTTP 400 BAD REQUEST.
+     */
+    @Test
+    void importSection_unknownSection() {
+        ResponseEntity<StreamingResponseBody> response = importController.importSection("unknown", new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(bulkImportService);
+    }
+}
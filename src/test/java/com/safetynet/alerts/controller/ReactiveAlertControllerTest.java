@@ -0,0 +1,76 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.PhoneAlertDTO;
+import com.safetynet.alerts.service.ReactiveAlertService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ReactiveAlertController}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactiveAlertControllerTest {
+
+    @Mock
+    private ReactiveAlertService reactiveAlertService;
+
+    private final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+
+    private ReactiveAlertController reactiveAlertController;
+
+    @BeforeEach
+    void setUp() {
+        reactiveAlertController = new ReactiveAlertController(reactiveAlertService, executor);
+        ReflectionTestUtils.setField(reactiveAlertController, "timeoutMillis", 5000L);
+    }
+
+    /**
+     * Test that the stream of the service is written as NDJSON, by the reactive executor and with the configured timeout.
+     * Expects HTTP 200 OK.
+     */
+    @Test
+    void getPhoneByFireStation_streams() throws Exception {
+        when(reactiveAlertService.getPhoneNumberByFireStation("3"))
+                .thenReturn(Flux.just(new PhoneAlertDTO("841-874-6512"), new PhoneAlertDTO("841-874-6544")));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        WebAsyncTask<Void> task = reactiveAlertController.getPhoneByFireStation("3", response);
+        task.getCallable().call();
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        assertEquals(5000L, task.getTimeout());
+        assertSame(executor, task.getExecutor());
+        assertEquals("{\"phone\":\"841-874-6512\"}\n{\"phone\":\"841-874-6544\"}\n", response.getContentAsString());
+    }
+
+    /**
+     * Test that a blank address among several is rejected.
+     * Expects HTTP 400 BAD REQUEST.
+     */
+    @Test
+    void getPersonByAddress_blankAddress() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        WebAsyncTask<Void> task = reactiveAlertController.getPersonByAddress(List.of("1509 Culver St", " "), response);
+
+        assertNull(task);
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        verifyNoInteractions(reactiveAlertService);
+    }
+}
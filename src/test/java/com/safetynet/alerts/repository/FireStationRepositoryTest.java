@@ -5,8 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -98,4 +101,126 @@ class FireStationRepositoryTest {
         assertEquals("1", result.get().getStation());
     }
 
+    /**
+     * Test that an address served by two stations is indexed under both station numbers,
+     * like "112 Steppes Pl" in data.json.
+     */
+    @Test
+    void getAddressesByStation_addressServedByTwoStations() {
+        repository.addFireStation(new FireStation("112 Steppes Pl", "1"));
+        repository.addFireStation(new FireStation("112 Steppes Pl", "2"));
+
+        assertEquals(Set.of("1 Station", "112 Steppes Pl"), repository.getAddressesByStation("1"));
+        assertEquals(Set.of("2 Station", "112 Steppes Pl"), repository.getAddressesByStation("2"));
+        assertEquals(Set.of("1", "2"), repository.getStationsByAddress("112 steppes pl"));
+        assertTrue(repository.getAddressesByStation("9").isEmpty());
+    }
+
+    /**
+     * Test that the station index follows updates and deletions of mappings.
+     */
+    @Test
+    void getAddressesByStation_followsUpdateAndDelete() {
+        repository.addFireStation(new FireStation("112 Steppes Pl", "1"));
+        repository.addFireStation(new FireStation("112 Steppes Pl", "2"));
+
+        repository.updateFireStation(new FireStation("2 Station", "1"));
+        assertTrue(repository.getAddressesByStation("2").contains("112 Steppes Pl"));
+        assertFalse(repository.getAddressesByStation("2").contains("2 Station"));
+        assertTrue(repository.getAddressesByStation("1").contains("2 Station"));
+
+        repository.deleteFireStation("112 Steppes Pl");
+        assertFalse(repository.getAddressesByStation("1").contains("112 Steppes Pl"));
+        assertEquals(Set.of("112 Steppes Pl"), repository.getAddressesByStation("2"));
+        assertEquals(Set.of("2"), repository.getStationsByAddress("112 Steppes Pl"));
+
+        repository.deleteFireStation("112 Steppes Pl");
+        assertTrue(repository.getAddressesByStation("2").isEmpty());
+        assertTrue(repository.getStationsByAddress("112 Steppes Pl").isEmpty());
+    }
+
+    /**
+     * Test that an update publishes a new snapshot and leaves the previous one untouched.
+     */
+    @Test
+    void getSnapshot_isVersionedAndImmutable() {
+        Snapshot<FireStation> before = repository.getSnapshot();
+        assertSame(before, repository.getSnapshot());
+
+        repository.updateFireStation(new FireStation("1 Station", "5"));
+        Snapshot<FireStation> after = repository.getSnapshot();
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals("1", before.getItems().getFirst().getStation());
+        assertEquals("5", after.getItems().getFirst().getStation());
+        assertThrows(UnsupportedOperationException.class, () -> after.getItems().clear());
+    }
+
+    /**
+     * Test that replacing the mappings of several addresses is published as a single new version.
+     */
+    @Test
+    void replaceFireStations_severalAddresses() {
+        long version = repository.getVersion();
+        Map<String, List<FireStation>> mappings = new LinkedHashMap<>();
+        mappings.put("1 station", List.of());
+        mappings.put("2 Station", List.of(new FireStation("2 Station", "3"), new FireStation("2 Station", "4")));
+        mappings.put("3 Station", List.of(new FireStation("3 Station", "1")));
+
+        repository.replaceFireStations(mappings);
+
+        assertEquals(version + 1, repository.getVersion());
+        assertEquals(3, repository.getAllFireStation().size());
+        assertEquals(Set.of("3 Station"), repository.getAddressesByStation("1"));
+        assertTrue(repository.getAddressesByStation("2").isEmpty());
+        assertEquals(Set.of("3", "4"), repository.getStationsByAddress("2 station"));
+    }
+
+    /**
+     * Test that appendFireStations keeps every mapping, including extra stations of a mapped address,
+     * and publishes one new version.
+     */
+    @Test
+    void appendFireStations() {
+        long version = repository.getVersion();
+
+        repository.appendFireStations(List.of(new FireStation("1 STATION", "9"), new FireStation("3 Station", "3")));
+
+        assertEquals(version + 1, repository.getVersion());
+        assertEquals(Set.of("1", "9"), repository.getStationsByAddress("1 Station"));
+        assertEquals(Set.of("3 Station"), repository.getAddressesByStation("3"));
+    }
+
+    /**
+     * Test that addAllFireStations skips addresses already mapped and publishes one new version.
+     */
+    @Test
+    void addAllFireStations() {
+        long version = repository.getVersion();
+        FireStation third = new FireStation("3 Station", "3");
+
+        List<FireStation> added = repository.addAllFireStations(List.of(new FireStation("1 STATION", "9"), third, new FireStation("3 Station", "4")));
+
+        assertEquals(List.of(third), added);
+        assertEquals(version + 1, repository.getVersion());
+        assertEquals(Set.of("1"), repository.getStationsByAddress("1 Station"));
+        assertEquals(Set.of("3 Station"), repository.getAddressesByStation("3"));
+    }
+
+    /**
+     * Test that updating or deleting the first mapping of an address served by several stations
+     * keeps the insertion order of the other mappings.
+     */
+    @Test
+    void updateAndDeleteKeepInsertionOrder() {
+        repository.addFireStation(new FireStation("1 Station", "5"));
+        repository.addFireStation(new FireStation("3 Station", "3"));
+
+        repository.updateFireStation(new FireStation("1 station", "6"));
+        assertEquals(List.of("6", "2", "5", "3"), repository.getAllFireStation().stream().map(FireStation::getStation).toList());
+
+        repository.deleteFireStation("1 Station");
+        assertEquals(List.of("2", "5", "3"), repository.getAllFireStation().stream().map(FireStation::getStation).toList());
+        assertEquals(Set.of("5"), repository.getStationsByAddress("1 Station"));
+    }
 }
@@ -110,4 +110,63 @@ class MedicalRecordsRepositoryTest {
         Optional<MedicalRecords> deleted = repository.getMedicalRecords("Jane", "Smith");
         assertTrue(deleted.isEmpty());
     }
+
+    /**
+     * Test that the name index ignores case and surrounding whitespace.
+     */
+    @Test
+    void getMedicalRecords_ignoresCaseAndWhitespace() {
+        Optional<MedicalRecords> result = repository.getMedicalRecords("jane ", " SMITH");
+
+        assertTrue(result.isPresent());
+        assertEquals("15/07/1985", result.get().getBirthdate());
+    }
+
+    /**
+     * Test that the index stays in sync after a record is deleted and added again.
+     */
+    @Test
+    void deleteThenAddMedicalRecords_reindexesRecord() {
+        repository.deleteMedicalRecords("John", "Doe");
+        repository.addMedicalRecords(new MedicalRecords("John", "Doe", "02/02/2002", List.of(), List.of()));
+
+        Optional<MedicalRecords> result = repository.getMedicalRecords("John", "Doe");
+
+        assertTrue(result.isPresent());
+        assertEquals("02/02/2002", result.get().getBirthdate());
+        assertEquals(2, repository.getAllMedicalRecords().size());
+    }
+
+    /**
+     * Test that a mutation publishes a new snapshot version and leaves the previous one untouched.
+     */
+    @Test
+    void getSnapshot_isVersionedAndImmutable() {
+        Snapshot<MedicalRecords> before = repository.getSnapshot();
+
+        repository.deleteMedicalRecords("John", "Doe");
+        Snapshot<MedicalRecords> after = repository.getSnapshot();
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(2, before.getItems().size());
+        assertEquals(1, after.getItems().size());
+        assertSame(after, repository.getSnapshot());
+    }
+
+    /**
+     * Test that applyChanges saves and deletes in a single new version.
+     */
+    @Test
+    void applyChanges() {
+        long version = repository.getVersion();
+
+        repository.applyChanges(
+                List.of(new MedicalRecords("John", "Doe", "01/01/1990", List.of(), List.of("peanut"))),
+                List.of(new MedicalRecords("Jane", "Smith", null, null, null)));
+
+        assertEquals(version + 1, repository.getVersion());
+        assertEquals(1, repository.getAllMedicalRecords().size());
+        assertEquals(List.of(), repository.getMedicalRecords("John", "Doe").orElseThrow().getMedications());
+        assertTrue(repository.getMedicalRecords("Jane", "Smith").isEmpty());
+    }
 }
@@ -4,8 +4,13 @@ import com.safetynet.alerts.model.Person;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -97,4 +102,204 @@ class PersonRepositoryTest {
         Optional<Person> deleted = repository.getPerson("Jane", "Smith");
         assertTrue(deleted.isEmpty());
     }
+
+    /**
+     * Test that lookups ignore case and surrounding whitespace, like the previous equalsIgnoreCase scan.
+     */
+    @Test
+    void getPerson_ignoresCaseAndWhitespace() {
+        Optional<Person> result = repository.getPerson(" JOHN ", "doe");
+
+        assertTrue(result.isPresent());
+        assertEquals("John", result.get().getFirstName());
+    }
+
+    /**
+     * Test that adding a person whose name is already indexed does not create a duplicate entry.
+     */
+    @Test
+    void addPerson_duplicateName_isIgnored() {
+        repository.addPerson(new Person("john", "DOE", "other", "other", "00000", "000", "other@example.com"));
+
+        assertEquals(2, repository.getAllPersons().size());
+        assertEquals("123 Main St", repository.getPerson("John", "Doe").get().getAddress());
+    }
+
+    /**
+     * Test that persons can be looked up by address, ignoring case.
+     */
+    @Test
+    void getPersonsByAddress() {
+        repository.addPerson(new Person("Jack", "Doe", "123 MAIN ST", "Springfield", "12345", "555-555-5555", "jack.doe@example.com"));
+
+        List<Person> result = repository.getPersonsByAddress("123 main st");
+
+        assertEquals(2, result.size());
+        assertEquals("John", result.get(0).getFirstName());
+        assertEquals("Jack", result.get(1).getFirstName());
+        assertTrue(repository.getPersonsByAddress("unknown").isEmpty());
+    }
+
+    /**
+     * Test that the address index follows address changes and deletions.
+     */
+    @Test
+    void getPersonsByAddress_followsUpdateAndDelete() {
+        repository.updatePerson(new Person("Jane", "Smith", "123 Main St", "Springfield", "12345", "222-222-2222", "jane.smith@example.com"));
+
+        assertTrue(repository.getPersonsByAddress("456 Elm St").isEmpty());
+        assertEquals(2, repository.getPersonsByAddress("123 Main St").size());
+
+        repository.deletePerson("John", "Doe");
+
+        List<Person> result = repository.getPersonsByAddress("123 Main St");
+        assertEquals(1, result.size());
+        assertEquals("Jane", result.getFirst().getFirstName());
+    }
+
+    /**
+     * Test that reads share the same immutable snapshot until a mutation publishes a new version,
+     * and that an update does not alter a previously published snapshot.
+     */
+    @Test
+    void getSnapshot_isSharedAndVersioned() {
+        Snapshot<Person> before = repository.getSnapshot();
+
+        assertSame(before.getItems(), repository.getAllPersons());
+        assertThrows(UnsupportedOperationException.class, () -> repository.getAllPersons().add(repository.blankPerson()));
+
+        repository.updatePerson(new Person("John", "Doe", "1 New St", "Springfield", "12345", "111-111-1111", "john.doe@example.com"));
+        Snapshot<Person> after = repository.getSnapshot();
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals("123 Main St", before.getItems().getFirst().getAddress());
+        assertEquals("1 New St", after.getItems().getFirst().getAddress());
+    }
+
+    /**
+     * Test that readers copying snapshots while a writer runs never see the published version go backwards,
+     * and that the last snapshot holds every write.
+     */
+    @Test
+    void getSnapshot_neverGoesBackwardsUnderConcurrentWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    repository.addPerson(new Person("P" + i, "Load", "1 Shared St", "City", "0", "0", "e"));
+                }
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    long last = -1;
+                    while (!writer.isDone()) {
+                        Snapshot<Person> snapshot = repository.getSnapshot();
+                        assertTrue(snapshot.getVersion() >= last);
+                        last = snapshot.getVersion();
+                    }
+                }));
+            }
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Snapshot<Person> last = repository.getSnapshot();
+        assertEquals(repository.getVersion(), last.getVersion());
+        assertEquals(1002, last.getItems().size());
+    }
+
+    /**
+     * Test that concurrent writers and readers neither fail nor lose updates.
+     */
+    @Test
+    void concurrentReadsAndWrites() throws Exception {
+        int writers = 4;
+        int personsPerWriter = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < personsPerWriter; i++) {
+                        repository.addPerson(new Person("P" + writer + "-" + i, "Load", "1 Shared St", "City", "0", "0", "e"));
+                    }
+                }));
+            }
+            for (int r = 0; r < 2; r++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        repository.getPersonsByAddress("1 Shared St");
+                        repository.getPerson("John", "Doe").orElseThrow();
+                        repository.getAllPersons().size();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2 + writers * personsPerWriter, repository.getAllPersons().size());
+        assertEquals(writers * personsPerWriter, repository.getPersonsByAddress("1 shared st").size());
+    }
+
+    /**
+     * Test that applyChanges saves and deletes in a single new version.
+     */
+    @Test
+    void applyChanges() {
+        long version = repository.getVersion();
+
+        repository.applyChanges(
+                List.of(new Person("John", "Doe", "9 New St", "Springfield", "12345", "111-111-1111", "john.doe@example.com"),
+                        new Person("Alice", "Brown", "789 Oak St", "Capital City", "54321", "333-333-3333", "alice.brown@example.com")),
+                List.of(new Person("Jane", "Smith", "", "", "", "", "")));
+
+        assertEquals(version + 1, repository.getVersion());
+        assertEquals(List.of("John", "Alice"), repository.getAllPersons().stream().map(Person::getFirstName).toList());
+        assertEquals(1, repository.getPersonsByAddress("9 New St").size());
+        assertTrue(repository.getPersonsByAddress("123 Main St").isEmpty());
+        assertTrue(repository.getPersonsByAddress("456 Elm St").isEmpty());
+    }
+
+    /**
+     * Test that addAllPersons skips existing and repeated keys and publishes one new version.
+     */
+    @Test
+    void addAllPersons() {
+        long version = repository.getVersion();
+        Person alice = new Person("Alice", "Brown", "789 Oak St", "Capital City", "54321", "333-333-3333", "alice.brown@example.com");
+
+        List<Person> added = repository.addAllPersons(List.of(
+                new Person("JOHN", "doe", "", "", "", "", ""), alice, new Person("Alice", "Brown", "", "", "", "", "")));
+
+        assertEquals(List.of(alice), added);
+        assertEquals(version + 1, repository.getVersion());
+        assertEquals(3, repository.getAllPersons().size());
+        assertEquals(List.of(alice), repository.getPersonsByAddress("789 oak st"));
+    }
+
+    /**
+     * Test that change listeners receive both the previous and the new state of an updated person,
+     * and are not notified when nothing changed.
+     */
+    @Test
+    void changeListenerReceivesTouchedPersons() {
+        List<List<Person>> notifications = new ArrayList<>();
+        repository.addChangeListener(notifications::add);
+
+        repository.updatePerson(new Person("John", "Doe", "789 Oak St", "Springfield", "12345", "111-111-1111", "john.doe@example.com"));
+        repository.deletePerson("Nobody", "Here");
+
+        assertEquals(1, notifications.size());
+        assertEquals(List.of("123 Main St", "789 Oak St"), notifications.getFirst().stream().map(Person::getAddress).toList());
+    }
 }
@@ -0,0 +1,130 @@
+package com.safetynet.alerts.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RepositoryLock}.
+ * These tests check that optimistic reads are validated and replayed under the read lock
+ * when a write overlaps them.
+ */
+class RepositoryLockTest {
+
+    private final RepositoryLock lock = new RepositoryLock();
+
+    /**
+     * Test that a read without concurrent writes runs only once.
+     */
+    @Test
+    void read_withoutWriter_runsOnce() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = lock.read(() -> {
+            calls.incrementAndGet();
+            return "value";
+        });
+
+        assertEquals("value", result);
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * Test that a read overlapped by a write is replayed and returns the value written.
+     */
+    @Test
+    void read_overlappedByWriter_isReplayedUnderReadLock() {
+        AtomicInteger calls = new AtomicInteger();
+        int[] data = {1};
+
+        int result = lock.read(() -> {
+            if (calls.incrementAndGet() == 1) {
+                CompletableFuture.runAsync(() -> lock.write(() -> {
+                    data[0] = 2;
+                })).join();
+            }
+            return data[0];
+        });
+
+        assertEquals(2, result);
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Test that a read failing on state torn by a concurrent write is replayed instead of propagating the error.
+     */
+    @Test
+    void read_failingWhileOverlappedByWriter_isReplayed() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = lock.read(() -> {
+            if (calls.incrementAndGet() == 1) {
+                CompletableFuture.runAsync(() -> lock.write(() -> {
+                })).join();
+                throw new IllegalStateException("torn read");
+            }
+            return "value";
+        });
+
+        assertEquals("value", result);
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Test that a read failing without any concurrent write propagates its error without being replayed.
+     */
+    @Test
+    void read_failingWithoutWriter_propagates() {
+        AtomicInteger calls = new AtomicInteger();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> lock.read(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("not found");
+        }));
+
+        assertEquals("not found", error.getMessage());
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * Test that a write returns the value computed by the mutation.
+     */
+    @Test
+    void write_returnsResult() {
+        assertEquals(42, lock.write(() -> 42));
+    }
+
+    /**
+     * Test that the thread holding the write lock can read and write again, as repositories sharing the lock do.
+     */
+    @Test
+    void write_isReentrantForItsThread() {
+        int result = lock.write(() -> lock.write(() -> lock.read(() -> 1) + lock.readLocked(() -> 1)));
+
+        assertEquals(2, result);
+    }
+
+    /**
+     * Test that other threads wait for the end of the outermost write.
+     */
+    @Test
+    void write_excludesOtherThreadsUntilOutermostWriteEnds() {
+        int[] data = {0};
+
+        lock.write(() -> {
+            lock.write(() -> {
+                data[0] = 1;
+            });
+            CompletableFuture<Integer> reader = CompletableFuture.supplyAsync(() -> lock.readLocked(() -> data[0]));
+            assertThrows(TimeoutException.class, () -> reader.get(100, TimeUnit.MILLISECONDS));
+            data[0] = 2;
+        });
+
+        assertEquals(2, lock.readLocked(() -> data[0]));
+    }
+}
@@ -0,0 +1,191 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.CacheStatsDTO;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AlertCacheService.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AlertCacheService, run against real repositories.
+ */
+class AlertCacheServiceTest {
+
+    private PersonRepository personRepository;
+    private FireStationRepository fireStationRepository;
+    private MedicalRecordsRepository medicalRecordsRepository;
+    private AlertCacheService alertCacheService;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        personRepository = new PersonRepository();
+        fireStationRepository = new FireStationRepository();
+        medicalRecordsRepository = new MedicalRecordsRepository();
+        alertCacheService = new AlertCacheService(personRepository, fireStationRepository, medicalRecordsRepository);
+        ReflectionTestUtils.setField(alertCacheService, "maxEntries", 10);
+
+        personRepository.addPerson(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "boyd@email.com"));
+        personRepository.addPerson(new Person("Peter", "Duncan", "644 Gershwin Cir", "Culver", "97451", "841-874-6514", "duncan@email.com"));
+        fireStationRepository.addFireStation(new FireStation("1509 Culver St", "3"));
+        fireStationRepository.addFireStation(new FireStation("644 Gershwin Cir", "1"));
+        medicalRecordsRepository.addMedicalRecords(new MedicalRecords("John", "Boyd", "03/06/1984", List.of(), List.of()));
+    }
+
+    /**
+     * Test that a repeated query is served from the cache, whatever the case and spacing of its parameter.
+     */
+    @Test
+    void testHitAfterMiss() {
+        assertEquals(List.of("1"), get(Query.FIRE, "1509 Culver St"));
+        assertEquals(List.of("1"), get(Query.FIRE, " 1509 culver st"));
+
+        CacheStatsDTO stats = alertCacheService.getStats();
+        assertEquals(1, loads.get());
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    /**
+     * Test that a person update only drops the results of its old and new address, city, last name and stations.
+     */
+    @Test
+    void testPersonMutationInvalidatesAffectedEntriesOnly() {
+        get(Query.CHILD_ALERT, "1509 Culver St");
+        get(Query.FIRE, "1509 Culver St");
+        get(Query.PHONE_ALERT, "3");
+        get(Query.COMMUNITY_EMAIL, "Culver");
+        get(Query.PERSON_INFO, "Boyd");
+        get(Query.FIRE, "644 Gershwin Cir");
+        get(Query.PHONE_ALERT, "1");
+        get(Query.PERSON_INFO, "Duncan");
+
+        personRepository.updatePerson(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-0000", "boyd@email.com"));
+
+        assertEquals(5, alertCacheService.getStats().getInvalidations());
+        assertEquals(3, alertCacheService.getStats().getSize());
+        int before = loads.get();
+        get(Query.FIRE, "644 Gershwin Cir");
+        get(Query.PHONE_ALERT, "1");
+        get(Query.PERSON_INFO, "Duncan");
+        assertEquals(before, loads.get());
+    }
+
+    /**
+     * Test that a medical record change drops the results of its person's address and last name,
+     * and a mapping change those of its address and stations.
+     */
+    @Test
+    void testMedicalRecordAndFireStationMutations() {
+        get(Query.FIRE, "1509 Culver St");
+        get(Query.PERSON_INFO, "Boyd");
+        get(Query.PHONE_ALERT, "1");
+
+        medicalRecordsRepository.updateMedicalRecords(new MedicalRecords("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of()));
+        assertEquals(1, alertCacheService.getStats().getSize());
+
+        fireStationRepository.updateFireStation(new FireStation("1509 Culver St", "1"));
+        assertEquals(0, alertCacheService.getStats().getSize());
+    }
+
+    /**
+     * Test that the least recently used result is dropped once the cache is full.
+     */
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        ReflectionTestUtils.setField(alertCacheService, "maxEntries", 2);
+        get(Query.FIRE, "a");
+        get(Query.FIRE, "b");
+        get(Query.FIRE, "a");
+        get(Query.FIRE, "c");
+
+        assertEquals(1, alertCacheService.getStats().getEvictions());
+        int before = loads.get();
+        get(Query.FIRE, "a");
+        assertEquals(before, loads.get());
+        get(Query.FIRE, "b");
+        assertEquals(before + 1, loads.get());
+    }
+
+    /**
+     * Test that a result computed while a mutation happened is returned but not stored.
+     */
+    @Test
+    void testResultLoadedDuringMutationIsNotStored() {
+        List<String> result = alertCacheService.get(Query.FIRE, "1509 Culver St", () -> {
+            personRepository.deletePerson("John", "Boyd");
+            return List.of("stale");
+        });
+
+        assertEquals(List.of("stale"), result);
+        assertEquals(0, alertCacheService.getStats().getSize());
+    }
+
+    /**
+     * Test that a new day drops the results holding ages and keeps the others.
+     */
+    @Test
+    void testDayChangeInvalidatesDatedEntries() {
+        get(Query.CHILD_ALERT, "1509 Culver St");
+        get(Query.FIRE, "1509 Culver St");
+        get(Query.PERSON_INFO, "Boyd");
+        get(Query.PHONE_ALERT, "3");
+        get(Query.COMMUNITY_EMAIL, "Culver");
+
+        ReflectionTestUtils.setField(alertCacheService, "day", LocalDate.now().minusDays(1));
+        int before = loads.get();
+        get(Query.PHONE_ALERT, "3");
+        get(Query.COMMUNITY_EMAIL, "Culver");
+
+        assertEquals(before, loads.get());
+        assertEquals(3, alertCacheService.getStats().getInvalidations());
+        assertEquals(2, alertCacheService.getStats().getSize());
+        get(Query.CHILD_ALERT, "1509 Culver St");
+        assertEquals(before + 1, loads.get());
+    }
+
+    /**
+     * Test that a result computed across midnight is returned but not stored.
+     */
+    @Test
+    void testResultLoadedAcrossDayChangeIsNotStored() {
+        List<String> result = alertCacheService.get(Query.FIRE, "1509 Culver St", () -> {
+            ReflectionTestUtils.setField(alertCacheService, "day", LocalDate.now().minusDays(1));
+            return List.of("yesterday");
+        });
+
+        assertEquals(List.of("yesterday"), result);
+        assertEquals(0, alertCacheService.getStats().getSize());
+    }
+
+    /**
+     * Test that a cache without capacity calls through to the loader every time.
+     */
+    @Test
+    void testDisabledCache() {
+        ReflectionTestUtils.setField(alertCacheService, "maxEntries", 0);
+        get(Query.FIRE, "1509 Culver St");
+        get(Query.FIRE, "1509 Culver St");
+
+        assertEquals(2, loads.get());
+        assertEquals(0, alertCacheService.getStats().getSize());
+    }
+
+    private List<String> get(Query query, String parameter) {
+        return alertCacheService.get(query, parameter, () -> List.of(Integer.toString(loads.incrementAndGet())));
+    }
+}
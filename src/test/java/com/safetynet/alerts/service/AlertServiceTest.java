@@ -10,7 +10,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
+import java.time.Period;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -56,7 +59,7 @@ class AlertServiceTest {
         MedicalRecords childMed = new MedicalRecords("Tim", "Brown", "05/20/2015", new ArrayList<>(), new ArrayList<>());
         MedicalRecords adultMed = new MedicalRecords("John", "Brown", "01/01/1980", new ArrayList<>(), new ArrayList<>());
 
-        when(personRepository.getAllPersons()).thenReturn(List.of(child, adult));
+        when(personRepository.getPersonsByAddress("123 Street")).thenReturn(List.of(child, adult));
         when(medicalRecordsService.getMedicalRecordsByName("Tim", "Brown")).thenReturn(Optional.of(childMed));
         when(medicalRecordsService.getMedicalRecordsByName("John", "Brown")).thenReturn(Optional.of(adultMed));
 
@@ -74,7 +77,7 @@ class AlertServiceTest {
         Person adult = new Person("John", "Brown", "123 Street", "City", "12345", "111-111", "adult@example.com");
         MedicalRecords adultMed = new MedicalRecords("John", "Brown", "01/01/1980", new ArrayList<>(), new ArrayList<>());
 
-        when(personRepository.getAllPersons()).thenReturn(List.of(adult));
+        when(personRepository.getPersonsByAddress("123 Street")).thenReturn(List.of(adult));
         when(medicalRecordsService.getMedicalRecordsByName("John", "Brown")).thenReturn(Optional.of(adultMed));
 
         List<ChildAlertDTO> result = alertService.getChildByAddress("123 Street");
@@ -89,10 +92,9 @@ class AlertServiceTest {
     @Test
     void getPhoneNumberByFireStation_shouldReturnMatchingPhones() {
         Person person = new Person("Alice", "Smith", "456 Avenue", "City", "12345", "999-999", "alice@example.com");
-        FireStation fs = new FireStation("456 Avenue", "2");
 
-        when(personRepository.getAllPersons()).thenReturn(List.of(person));
-        when(fireStationRepository.getAllFireStation()).thenReturn(List.of(fs));
+        when(fireStationRepository.getAddressesByStation("2")).thenReturn(Set.of("456 Avenue"));
+        when(personRepository.getPersonsByAddress("456 Avenue")).thenReturn(List.of(person));
 
         List<PhoneAlertDTO> result = alertService.getPhoneNumberByFireStation("2");
 
@@ -106,8 +108,7 @@ class AlertServiceTest {
      */
     @Test
     void getPhoneNumberByFireStation_noMatch_shouldReturnEmpty() {
-        when(personRepository.getAllPersons()).thenReturn(Collections.emptyList());
-        when(fireStationRepository.getAllFireStation()).thenReturn(Collections.emptyList());
+        when(fireStationRepository.getAddressesByStation("99")).thenReturn(Collections.emptySet());
 
         List<PhoneAlertDTO> result = alertService.getPhoneNumberByFireStation("99");
 
@@ -125,14 +126,14 @@ class AlertServiceTest {
         FireStation fs = new FireStation("789 Road", "1");
 
         when(fireStationRepository.getFireStationByAddress("789 Road")).thenReturn(Optional.of(fs));
-        when(personRepository.getAllPersons()).thenReturn(List.of(person));
+        when(personRepository.getPersonsByAddress("789 Road")).thenReturn(List.of(person));
         when(medicalRecordsService.getMedicalRecordsByName("Tom", "Doe")).thenReturn(Optional.of(med));
 
         List<FireDTO> result = alertService.getPersonByAddress("789 Road");
 
         assertEquals(1, result.size());
         assertEquals("Tom", result.get(0).getFirstName());
-        assertEquals(29, result.get(0).getAge()); // assuming age is calculated correctly in service
+        assertEquals(Period.between(LocalDate.of(1995, 12, 12), LocalDate.now()).getYears(), result.get(0).getAge());
     }
 
     /**
@@ -182,6 +183,71 @@ class AlertServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    /**
+     * Test that {@link AlertService#getEmailByCity(String, String, int)} pages through sorted unique emails,
+     * each page resuming after the cursor even if persons were added or removed in between.
+     */
+    @Test
+    void getEmailByCity_paged_shouldResumeAfterCursor() {
+        ReflectionTestUtils.setField(alertService, "maxPageSize", 2);
+        Person e = new Person("Eve", "Lee", "101 Blvd", "Paris", "75000", "1", "e@example.com");
+        Person c = new Person("Carl", "Lee", "101 Blvd", "paris", "75000", "2", "c@example.com");
+        Person a = new Person("Anna", "Lee", "101 Blvd", "Paris", "75000", "3", "a@example.com");
+        Person a2 = new Person("Alex", "Lee", "101 Blvd", "Paris", "75000", "4", "a@example.com");
+        Person d = new Person("Dan", "Lee", "101 Blvd", "Paris", "75000", "5", "d@example.com");
+        Person b = new Person("Bob", "Lee", "101 Blvd", "Paris", "75000", "6", "b@example.com");
+        Person x = new Person("Xavier", "Lee", "1 Road", "Culver", "97451", "7", "x@example.com");
+        Person aa = new Person("Aaron", "Lee", "101 Blvd", "Paris", "75000", "8", "aa@example.com");
+
+        when(personRepository.getAllPersons())
+                .thenReturn(List.of(e, c, a, a2, d, b, x))
+                .thenReturn(List.of(e, c, a, a2, aa, d, x));
+
+        PageDTO<CommunityEmailDTO> first = alertService.getEmailByCity("Paris", null, 10);
+        PageDTO<CommunityEmailDTO> second = alertService.getEmailByCity("Paris", first.getNextCursor(), 10);
+        PageDTO<CommunityEmailDTO> last = alertService.getEmailByCity("Paris", second.getNextCursor(), 10);
+
+        assertEquals(List.of("a@example.com", "b@example.com"), first.getItems().stream().map(CommunityEmailDTO::getEmail).toList());
+        assertEquals(List.of("c@example.com", "d@example.com"), second.getItems().stream().map(CommunityEmailDTO::getEmail).toList());
+        assertEquals(List.of("e@example.com"), last.getItems().stream().map(CommunityEmailDTO::getEmail).toList());
+        assertNull(last.getNextCursor());
+    }
+
+    /**
+     * Test that a malformed cursor is rejected.
+     */
+    @Test
+    void getEmailByCity_malformedCursor_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> alertService.getEmailByCity("Paris", "not a cursor", 10));
+    }
+
+    /**
+     * Test that {@link AlertService#getPersonByListOfStations(List, String, int)} pages through residents
+     * sorted by address then name, reading only the households it needs.
+     */
+    @Test
+    void getPersonByListOfStations_paged_shouldResumeAfterCursor() {
+        ReflectionTestUtils.setField(alertService, "maxPageSize", 100);
+        Person tom = new Person("Tom", "Heart", "12 Street", "City", "12345", "1", "tom@example.com");
+        Person lucy = new Person("Lucy", "Heart", "12 Street", "City", "12345", "2", "lucy@example.com");
+        Person ann = new Person("Ann", "Bell", "14 Street", "City", "12345", "3", "ann@example.com");
+
+        when(fireStationRepository.getAddressesByStation("3")).thenReturn(new LinkedHashSet<>(List.of("14 Street", "12 Street")));
+        when(fireStationRepository.getAddressesByStation("1")).thenReturn(Set.of("12 Street"));
+        when(personRepository.getPersonsByAddress("12 Street")).thenReturn(List.of(tom, lucy));
+        when(personRepository.getPersonsByAddress("14 Street")).thenReturn(List.of(ann));
+        when(medicalRecordsService.getMedicalRecordsByName(anyString(), anyString())).thenReturn(Optional.empty());
+        when(medicalRecordsService.blankMedicalRecords()).thenReturn(new MedicalRecords("", "", "", List.of(), List.of()));
+
+        PageDTO<FloodStationsDTO> first = alertService.getPersonByListOfStations(List.of("3", "1"), null, 1);
+        verify(personRepository, never()).getPersonsByAddress("14 Street");
+        PageDTO<FloodStationsDTO> last = alertService.getPersonByListOfStations(List.of("3", "1"), first.getNextCursor(), 2);
+
+        assertEquals(List.of("Lucy"), first.getItems().stream().map(FloodStationsDTO::getFirstName).toList());
+        assertEquals(List.of("Tom", "Ann"), last.getItems().stream().map(FloodStationsDTO::getFirstName).toList());
+        assertNull(last.getNextCursor());
+    }
+
     /**
      * Test that {@link AlertService#getPersonInfoLastName(String)} returns person information
      * filtered by last name.
@@ -221,10 +287,9 @@ class AlertServiceTest {
     void getPersonByListOfStations_shouldReturnFloodStationsDTO() {
         Person p = new Person("Lucy", "Heart", "12 Street", "City", "12345", "111-222", "lucy@example.com");
         MedicalRecords med = new MedicalRecords("Lucy", "Heart", "07/07/1990", List.of("medA"), List.of("allergyA"));
-        FireStation fs1 = new FireStation("12 Street", "3");
 
-        when(fireStationRepository.getAllFireStation()).thenReturn(List.of(fs1));
-        when(personRepository.getAllPersons()).thenReturn(List.of(p));
+        when(fireStationRepository.getAddressesByStation("3")).thenReturn(Set.of("12 Street"));
+        when(personRepository.getPersonsByAddress("12 Street")).thenReturn(List.of(p));
         when(medicalRecordsService.getMedicalRecordsByName("Lucy", "Heart")).thenReturn(Optional.of(med));
 
         List<FloodStationsDTO> result = alertService.getPersonByListOfStations(List.of("3"));
@@ -233,13 +298,37 @@ class AlertServiceTest {
         assertEquals("Lucy", result.get(0).getFirstName());
     }
 
+    /**
+     * Test that {@link AlertService#streamPersonByListOfStations(List)} reads the residents of an address
+     * only when the stream reaches it.
+     */
+    @Test
+    void streamPersonByListOfStations_shouldReadResidentsLazily() {
+        Person lucy = new Person("Lucy", "Heart", "12 Street", "City", "12345", "111-222", "lucy@example.com");
+        Person tom = new Person("Tom", "Heart", "14 Street", "City", "12345", "111-333", "tom@example.com");
+
+        when(fireStationRepository.getAddressesByStation("3")).thenReturn(new LinkedHashSet<>(List.of("12 Street", "14 Street")));
+        when(personRepository.getPersonsByAddress("12 Street")).thenReturn(List.of(lucy));
+        when(personRepository.getPersonsByAddress("14 Street")).thenReturn(List.of(tom));
+        when(medicalRecordsService.getMedicalRecordsByName(anyString(), anyString())).thenReturn(Optional.empty());
+        when(medicalRecordsService.blankMedicalRecords()).thenReturn(new MedicalRecords("", "", "", List.of(), List.of()));
+
+        Iterator<FloodStationsDTO> result = alertService.streamPersonByListOfStations(List.of("3")).iterator();
+        verify(personRepository, never()).getPersonsByAddress(anyString());
+
+        assertEquals("Lucy", result.next().getFirstName());
+        verify(personRepository, never()).getPersonsByAddress("14 Street");
+        assertEquals("Tom", result.next().getFirstName());
+        assertFalse(result.hasNext());
+    }
+
     /**
      * Test that {@link AlertService#getPersonByListOfStations(List)} returns an empty list if
      * no matching fire stations are found.
      */
     @Test
     void getPersonByListOfStations_noMatch_shouldReturnEmpty() {
-        when(fireStationRepository.getAllFireStation()).thenReturn(Collections.emptyList());
+        when(fireStationRepository.getAddressesByStation("99")).thenReturn(Collections.emptySet());
 
         List<FloodStationsDTO> result = alertService.getPersonByListOfStations(List.of("99"));
 
@@ -0,0 +1,164 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.BatchOperationDTO;
+import com.safetynet.alerts.dto.BatchResultDTO;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.JournalEntry;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BatchService, run against real repositories and journal files.
+ */
+class BatchServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PersonRepository personRepository;
+    private FireStationRepository fireStationRepository;
+    private MedicalRecordsRepository medicalRecordsRepository;
+    @TempDir
+    Path tempDir;
+
+    private JournalService journalService;
+    private BatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        RepositoryLock repositoryLock = new RepositoryLock();
+        personRepository = new PersonRepository(repositoryLock);
+        fireStationRepository = new FireStationRepository(repositoryLock);
+        medicalRecordsRepository = new MedicalRecordsRepository(repositoryLock);
+        journalService = new JournalService();
+        ReflectionTestUtils.setField(journalService, "journalPath", tempDir.resolve("data.json.journal").toString());
+        JSONWriterService jsonWriterService = new JSONWriterService(personRepository, fireStationRepository, medicalRecordsRepository, journalService, repositoryLock);
+        batchService = new BatchService(personRepository, fireStationRepository, medicalRecordsRepository, jsonWriterService);
+        personRepository.addPerson(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        fireStationRepository.addFireStation(new FireStation("1509 Culver St", "3"));
+        medicalRecordsRepository.addMedicalRecords(new MedicalRecords("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of("nillacilan")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        journalService.close();
+    }
+
+    private List<JournalEntry> journal() {
+        List<JournalEntry> entries = new ArrayList<>();
+        journalService.replay(entries::add);
+        return entries;
+    }
+
+    private BatchOperationDTO operation(BatchOperationDTO.Operation op, String section, String value) throws Exception {
+        return new BatchOperationDTO(op, section, objectMapper.readTree(value));
+    }
+
+    /**
+     * Test that mutations of every section are applied with one write per repository and journaled.
+     */
+    @Test
+    void testApplyMixedBatch() throws Exception {
+        long personVersion = personRepository.getVersion();
+        long fireStationVersion = fireStationRepository.getVersion();
+        long medicalRecordsVersion = medicalRecordsRepository.getVersion();
+
+        BatchResultDTO result = batchService.apply(List.of(
+                operation(BatchOperationDTO.Operation.CREATE, "persons", "{\"firstName\":\"Jacob\",\"lastName\":\"Boyd\",\"address\":\"1509 Culver St\"}"),
+                operation(BatchOperationDTO.Operation.DELETE, "persons", "{\"firstName\":\"john\",\"lastName\":\"BOYD\"}"),
+                operation(BatchOperationDTO.Operation.UPDATE, "firestations", "{\"address\":\"1509 Culver St\",\"station\":\"4\"}"),
+                operation(BatchOperationDTO.Operation.CREATE, "firestations", "{\"address\":\"29 15th St\",\"station\":\"2\"}"),
+                operation(BatchOperationDTO.Operation.UPDATE, "medicalrecords", "{\"firstName\":\"John\",\"lastName\":\"Boyd\",\"birthdate\":\"03/06/1985\"}")));
+
+        assertEquals(5, result.getApplied());
+        assertTrue(result.getErrors().isEmpty());
+        assertTrue(personRepository.getPerson("Jacob", "Boyd").isPresent());
+        assertTrue(personRepository.getPerson("John", "Boyd").isEmpty());
+        assertEquals("4", fireStationRepository.getFireStationByAddress("1509 Culver St").orElseThrow().getStation());
+        assertEquals("2", fireStationRepository.getFireStationByAddress("29 15th St").orElseThrow().getStation());
+        assertEquals("03/06/1985", medicalRecordsRepository.getMedicalRecords("John", "Boyd").orElseThrow().getBirthdate());
+        assertEquals(personVersion + 1, personRepository.getVersion());
+        assertEquals(fireStationVersion + 1, fireStationRepository.getVersion());
+        assertEquals(medicalRecordsVersion + 1, medicalRecordsRepository.getVersion());
+        List<JournalEntry> entries = journal();
+        assertEquals(Set.of(List.of("Jacob", "Boyd"), List.of("John", "Boyd"), List.of("1509 Culver St"), List.of("29 15th St")),
+                entries.stream().map(JournalEntry::getKey).collect(Collectors.toSet()));
+        assertEquals(5, entries.size());
+    }
+
+    /**
+     * Test that a mutation sees the effect of the previous ones in the same batch.
+     */
+    @Test
+    void testApplySeesPreviousMutations() throws Exception {
+        BatchResultDTO result = batchService.apply(List.of(
+                operation(BatchOperationDTO.Operation.CREATE, "persons", "{\"firstName\":\"Jacob\",\"lastName\":\"Boyd\",\"city\":\"Culver\"}"),
+                operation(BatchOperationDTO.Operation.UPDATE, "persons", "{\"firstName\":\"Jacob\",\"lastName\":\"Boyd\",\"city\":\"Paris\"}"),
+                operation(BatchOperationDTO.Operation.DELETE, "firestations", "{\"address\":\"1509 Culver St\"}"),
+                operation(BatchOperationDTO.Operation.CREATE, "firestations", "{\"address\":\"1509 Culver St\",\"station\":\"1\"}")));
+
+        assertEquals(4, result.getApplied());
+        assertEquals("Paris", personRepository.getPerson("Jacob", "Boyd").orElseThrow().getCity());
+        assertEquals(List.of("1"), fireStationRepository.getFireStationsByAddress("1509 Culver St").stream().map(FireStation::getStation).toList());
+    }
+
+    /**
+     * Test that a single refused mutation leaves every repository untouched and nothing is persisted.
+     */
+    @Test
+    void testApplyRefusedBatch() throws Exception {
+        long personVersion = personRepository.getVersion();
+        long fireStationVersion = fireStationRepository.getVersion();
+
+        BatchResultDTO result = batchService.apply(List.of(
+                operation(BatchOperationDTO.Operation.CREATE, "persons", "{\"firstName\":\"Jacob\",\"lastName\":\"Boyd\"}"),
+                operation(BatchOperationDTO.Operation.UPDATE, "firestations", "{\"address\":\"1509 Culver St\",\"station\":\"4\"}"),
+                operation(BatchOperationDTO.Operation.CREATE, "persons", "{\"firstName\":\"John\",\"lastName\":\"Boyd\"}"),
+                operation(BatchOperationDTO.Operation.DELETE, "medicalrecords", "{\"firstName\":\"Unknown\",\"lastName\":\"Boyd\"}"),
+                operation(BatchOperationDTO.Operation.CREATE, "unknown", "{}")));
+
+        assertEquals(0, result.getApplied());
+        assertEquals(List.of(2, 3, 4), result.getErrors().stream().map(error -> error.getIndex()).toList());
+        assertEquals(List.of(409, 404, 400), result.getErrors().stream().map(error -> error.getStatus()).toList());
+        assertTrue(personRepository.getPerson("Jacob", "Boyd").isEmpty());
+        assertEquals("3", fireStationRepository.getFireStationByAddress("1509 Culver St").orElseThrow().getStation());
+        assertEquals(personVersion, personRepository.getVersion());
+        assertEquals(fireStationVersion, fireStationRepository.getVersion());
+        assertEquals(List.of(), journal());
+    }
+
+    /**
+     * Test that a batch whose journal write fails is undone in every repository.
+     */
+    @Test
+    void testApplyFailedJournalWrite() throws Exception {
+        journalService.close();
+        ReflectionTestUtils.setField(journalService, "journalPath", tempDir.toString());
+
+        assertThrows(RuntimeException.class, () -> batchService.apply(List.of(
+                operation(BatchOperationDTO.Operation.CREATE, "persons", "{\"firstName\":\"Jacob\",\"lastName\":\"Boyd\"}"),
+                operation(BatchOperationDTO.Operation.DELETE, "firestations", "{\"address\":\"1509 Culver St\"}"),
+                operation(BatchOperationDTO.Operation.DELETE, "medicalrecords", "{\"firstName\":\"John\",\"lastName\":\"Boyd\"}"))));
+
+        assertTrue(personRepository.getPerson("Jacob", "Boyd").isEmpty());
+        assertEquals("3", fireStationRepository.getFireStationByAddress("1509 Culver St").orElseThrow().getStation());
+        assertTrue(medicalRecordsRepository.getMedicalRecords("John", "Boyd").isPresent());
+    }
+}
@@ -0,0 +1,133 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BinarySnapshotService.
+ */
+class BinarySnapshotServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final BinarySnapshotService binarySnapshotService = new BinarySnapshotService();
+
+    private Path write(DataSection section, List<?> items) throws IOException {
+        Path path = tempDir.resolve(section.getKey() + ".bin");
+        try (OutputStream out = Files.newOutputStream(path)) {
+            binarySnapshotService.write(section, items, out);
+        }
+        return path;
+    }
+
+    /**
+     * Test that every person field, including nulls, survives a write and read.
+     */
+    @Test
+    void testPersonsRoundTrip() throws IOException {
+        List<Person> persons = List.of(
+                new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", null));
+
+        BinarySnapshotService.Reader reader = binarySnapshotService.open(write(DataSection.PERSONS, persons));
+        List<Person> read = reader.readPersons();
+
+        assertEquals(DataSection.PERSONS, reader.getSection());
+        assertEquals(2, read.size());
+        assertEquals(persons.toString(), read.toString());
+        assertNull(read.get(1).getEmail());
+    }
+
+    /**
+     * Test that fire stations and medical records, including empty and null lists, survive a write and read.
+     */
+    @Test
+    void testFireStationsAndMedicalRecordsRoundTrip() throws IOException {
+        List<FireStation> fireStations = binarySnapshotService.open(write(DataSection.FIRE_STATIONS, List.of(new FireStation("1509 Culver St", "3"))))
+                .readFireStations();
+        List<MedicalRecords> medicalRecords = binarySnapshotService.open(write(DataSection.MEDICAL_RECORDS, List.of(
+                        new MedicalRecords("John", "Boyd", "03/06/1984", List.of("aznol:350mg", "hydrapermazol:100mg"), List.of("nillacilan")),
+                        new MedicalRecords("Jacob", "Boyd", "03/06/1989", List.of(), null))))
+                .readMedicalRecords();
+
+        assertEquals("3", fireStations.get(0).getStation());
+        assertEquals(List.of("aznol:350mg", "hydrapermazol:100mg"), medicalRecords.get(0).getMedications());
+        assertEquals(List.of(), medicalRecords.get(1).getMedications());
+        assertNull(medicalRecords.get(1).getAllergies());
+    }
+
+    /**
+     * Test that repeated strings are stored once and shared by the decoded records.
+     */
+    @Test
+    void testStringsAreShared() throws IOException {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            persons.add(new Person("P" + i, "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        }
+
+        Path path = write(DataSection.PERSONS, persons);
+        List<Person> read = binarySnapshotService.open(path).readPersons();
+
+        assertSame(read.get(0).getAddress(), read.get(999).getAddress());
+        // 1000 records of 7 int references, plus a small string table
+        assertTrue(Files.size(path) < 1000 * 7 * 4 + 20_000);
+    }
+
+    /**
+     * Test that reading a file as another section is refused.
+     */
+    @Test
+    void testReadingAnotherSectionFails() throws IOException {
+        BinarySnapshotService.Reader reader = binarySnapshotService.open(write(DataSection.FIRE_STATIONS, List.of()));
+
+        assertThrows(IOException.class, reader::readPersons);
+    }
+
+    /**
+     * Test that a file which is not a section file is rejected.
+     */
+    @Test
+    void testOpenRejectsCorruptedFile() throws IOException {
+        Path path = tempDir.resolve("corrupted.bin");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5});
+
+        assertThrows(IOException.class, () -> binarySnapshotService.open(path));
+    }
+
+    /**
+     * Test that records pointing outside the string table or past the end of the body are reported as an IOException.
+     */
+    @Test
+    void testReadRejectsCorruptedRecords() throws IOException {
+        Path path = write(DataSection.PERSONS, List.of(
+                new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com")));
+        byte[] bytes = Files.readAllBytes(path);
+
+        // The last int of the body is the index of the email in the string table
+        byte[] badIndex = bytes.clone();
+        badIndex[badIndex.length - 1] = 100;
+        Files.write(path, badIndex);
+        assertThrows(IOException.class, binarySnapshotService.open(path)::readPersons);
+
+        // A record count larger than the body
+        byte[] badCount = bytes.clone();
+        badCount[9] = 1;
+        Files.write(path, badCount);
+        assertThrows(IOException.class, binarySnapshotService.open(path)::readPersons);
+    }
+}
@@ -0,0 +1,129 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.ImportResultDTO;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BulkImportService, run against real repositories.
+ */
+class BulkImportServiceTest {
+
+    private PersonRepository personRepository;
+    private FireStationRepository fireStationRepository;
+    private MedicalRecordsRepository medicalRecordsRepository;
+    private JSONWriterService jsonWriterService;
+    private BulkImportService bulkImportService;
+
+    @BeforeEach
+    void setUp() {
+        personRepository = new PersonRepository();
+        fireStationRepository = new FireStationRepository();
+        medicalRecordsRepository = new MedicalRecordsRepository();
+        jsonWriterService = mock(JSONWriterService.class);
+        when(jsonWriterService.saveChanges(anyCollection(), anyCollection(), anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+        bulkImportService = new BulkImportService(personRepository, fireStationRepository, medicalRecordsRepository, jsonWriterService);
+        personRepository.addPerson(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        fireStationRepository.addFireStation(new FireStation("1509 Culver St", "3"));
+    }
+
+    private List<ImportResultDTO> importLines(DataSection section, String body) {
+        return bulkImportService.importLines(section, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Test that valid lines are added in a single write and persisted once, and others are reported.
+     */
+    @Test
+    void testImportPersons() {
+        long version = personRepository.getVersion();
+        String body = """
+                {"firstName":"Jacob","lastName":"Boyd","address":"1509 Culver St","city":"Culver","zip":"97451","phone":"841-874-6513","email":"drk@email.com"}
+                {"firstName":"JOHN","lastName":"boyd"}
+
+                {"firstName":"Tenley","lastName":"Boyd"}
+                {"firstName":"Tenley","lastName":"Boyd"}
+                {"firstName":"","lastName":"Boyd"}
+                {"firstName":"Roger",
+                {"firstName":"Felicia","lastName":"Boyd","unknown":1}
+                """;
+
+        List<ImportResultDTO> results = importLines(DataSection.PERSONS, body);
+
+        assertEquals(List.of(1, 2, 4, 5, 6, 7, 8), results.stream().map(ImportResultDTO::getLine).toList());
+        assertEquals(List.of(ImportResultDTO.Status.CREATED, ImportResultDTO.Status.DUPLICATE, ImportResultDTO.Status.CREATED,
+                        ImportResultDTO.Status.DUPLICATE, ImportResultDTO.Status.INVALID, ImportResultDTO.Status.INVALID,
+                        ImportResultDTO.Status.INVALID),
+                results.stream().map(ImportResultDTO::getStatus).toList());
+        assertNull(results.get(0).getMessage());
+        assertNotNull(results.get(6).getMessage());
+        assertEquals(List.of("John", "Jacob", "Tenley"), personRepository.getAllPersons().stream().map(Person::getFirstName).toList());
+        assertEquals(version + 1, personRepository.getVersion());
+        verify(jsonWriterService, times(1)).saveChanges(anyCollection(), anyCollection(), anyCollection(), any());
+    }
+
+    /**
+     * Test that fire stations are deduplicated by address.
+     */
+    @Test
+    void testImportFireStations() {
+        List<ImportResultDTO> results = importLines(DataSection.FIRE_STATIONS, """
+                {"address":"1509 culver st","station":"4"}
+                {"address":"29 15th St","station":"2"}
+                {"address":"29 15th St","station":"3"}
+                {"address":"834 Binoc Ave"}
+                """);
+
+        assertEquals(List.of(ImportResultDTO.Status.DUPLICATE, ImportResultDTO.Status.CREATED,
+                        ImportResultDTO.Status.DUPLICATE, ImportResultDTO.Status.INVALID),
+                results.stream().map(ImportResultDTO::getStatus).toList());
+        assertEquals("2", fireStationRepository.getFireStationByAddress("29 15th St").orElseThrow().getStation());
+        verify(jsonWriterService).saveChanges(eq(List.of()), eq(List.of("29 15th St")), eq(List.of()), any());
+    }
+
+    /**
+     * Test that medical records are imported.
+     */
+    @Test
+    void testImportMedicalRecords() {
+        List<ImportResultDTO> results = importLines(DataSection.MEDICAL_RECORDS, """
+                {"firstName":"John","lastName":"Boyd","birthdate":"03/06/1984","medications":["aznol:350mg"],"allergies":[]}
+                """);
+
+        assertEquals(ImportResultDTO.Status.CREATED, results.get(0).getStatus());
+        MedicalRecords record = medicalRecordsRepository.getMedicalRecords("John", "Boyd").orElseThrow();
+        assertEquals(List.of("aznol:350mg"), record.getMedications());
+    }
+
+    /**
+     * Test that an import without any valid line writes nothing.
+     */
+    @Test
+    void testImportNothingValid() {
+        long version = personRepository.getVersion();
+
+        List<ImportResultDTO> results = importLines(DataSection.PERSONS, "not json\n");
+
+        assertEquals(ImportResultDTO.Status.INVALID, results.get(0).getStatus());
+        assertEquals(version, personRepository.getVersion());
+    }
+}
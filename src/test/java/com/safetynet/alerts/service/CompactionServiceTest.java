@@ -0,0 +1,206 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.JournalEntry;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CompactionService, run against real repositories, journal and section files.
+ */
+class CompactionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Path dataPath;
+    private Path journalPath;
+    private PersonRepository personRepository;
+    private FireStationRepository fireStationRepository;
+    private MedicalRecordsRepository medicalRecordsRepository;
+    private JournalService journalService;
+    private SectionFileService sectionFileService;
+    private JSONWriterService jsonWriterService;
+    private CompactionService compactionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataPath = tempDir.resolve("data.json");
+        journalPath = tempDir.resolve("data.json.journal");
+        Files.writeString(dataPath, "{\"persons\":[],\"firestations\":[],\"medicalrecords\":[]}");
+        RepositoryLock repositoryLock = new RepositoryLock();
+        personRepository = new PersonRepository(repositoryLock);
+        fireStationRepository = new FireStationRepository(repositoryLock);
+        medicalRecordsRepository = new MedicalRecordsRepository(repositoryLock);
+        journalService = new JournalService();
+        ReflectionTestUtils.setField(journalService, "journalPath", journalPath.toString());
+        jsonWriterService = new JSONWriterService(personRepository, fireStationRepository, medicalRecordsRepository, journalService, repositoryLock);
+        sectionFileService = new SectionFileService(new BinarySnapshotService());
+        ReflectionTestUtils.setField(sectionFileService, "sectionsPath", tempDir.resolve("data.json.d").toString());
+        compactionService = new CompactionService(personRepository, fireStationRepository, medicalRecordsRepository, journalService, sectionFileService);
+        ReflectionTestUtils.setField(compactionService, "maxJournalBytes", 1024L * 1024L);
+        ReflectionTestUtils.setField(compactionService, "maxAgeMillis", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journalService.close();
+    }
+
+    private void addPerson(String firstName, String lastName) {
+        Person person = new Person(firstName, lastName, "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+        jsonWriterService.savePerson(person, () -> personRepository.addPerson(person));
+    }
+
+    private JsonNode section(DataSection section) throws IOException {
+        return objectMapper.readTree(sectionFileService.jsonPath(section).toFile());
+    }
+
+    /**
+     * Test that the first compaction writes every section, and later ones only the sections touched by the journal.
+     */
+    @Test
+    void testCompact_onlyRewritesDirtySections() throws IOException {
+        addPerson("John", "Boyd");
+        compactionService.compact();
+        FileTime personsWritten = Files.getLastModifiedTime(sectionFileService.jsonPath(DataSection.PERSONS));
+        assertEquals(0, section(DataSection.MEDICAL_RECORDS).size());
+        assertEquals(1L, sectionFileService.generation());
+        Files.setLastModifiedTime(sectionFileService.jsonPath(DataSection.MEDICAL_RECORDS), FileTime.fromMillis(0));
+
+        FireStation fireStation = new FireStation("1509 Culver St", "3");
+        jsonWriterService.saveFireStation(fireStation, () -> fireStationRepository.addFireStation(fireStation));
+        Files.setLastModifiedTime(sectionFileService.jsonPath(DataSection.PERSONS), FileTime.fromMillis(0));
+        compactionService.compact();
+
+        assertEquals(FileTime.fromMillis(0), Files.getLastModifiedTime(sectionFileService.jsonPath(DataSection.PERSONS)));
+        assertTrue(personsWritten.toMillis() > 0);
+        assertEquals(1, section(DataSection.FIRE_STATIONS).size());
+        assertEquals(FileTime.fromMillis(0), Files.getLastModifiedTime(sectionFileService.jsonPath(DataSection.MEDICAL_RECORDS)));
+        assertEquals(2L, sectionFileService.generation());
+    }
+
+    /**
+     * Test that nothing happens while the journal is below both thresholds.
+     */
+    @Test
+    void testCompactIfNeeded_belowThresholds() {
+        addPerson("John", "Boyd");
+
+        assertFalse(compactionService.compactIfNeeded());
+        assertTrue(Files.exists(journalPath));
+    }
+
+    /**
+     * Test that a journal above the size threshold is folded into the section files.
+     */
+    @Test
+    void testCompactIfNeeded_sizeThreshold() throws IOException {
+        ReflectionTestUtils.setField(compactionService, "maxJournalBytes", 1L);
+        addPerson("John", "Boyd");
+        FireStation fireStation = new FireStation("1509 Culver St", "3");
+        jsonWriterService.saveFireStation(fireStation, () -> fireStationRepository.addFireStation(fireStation));
+        MedicalRecords medicalRecords = new MedicalRecords("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of("nillacilan"));
+        jsonWriterService.saveMedicalRecord(medicalRecords, () -> medicalRecordsRepository.addMedicalRecords(medicalRecords));
+
+        assertTrue(compactionService.compactIfNeeded());
+
+        assertEquals("Boyd", section(DataSection.PERSONS).get(0).get("lastName").asText());
+        assertEquals("3", section(DataSection.FIRE_STATIONS).get(0).get("station").asText());
+        assertEquals("nillacilan", section(DataSection.MEDICAL_RECORDS).get(0).get("allergies").get(0).asText());
+        assertEquals(0L, journalService.size());
+        assertFalse(journalService.hasRotated());
+        assertFalse(Files.exists(tempDir.resolve("data.json.d").resolve("persons.json.tmp")));
+    }
+
+    /**
+     * Test that a journal older than the age threshold is compacted.
+     */
+    @Test
+    void testCompactIfNeeded_ageThreshold() throws IOException {
+        ReflectionTestUtils.setField(compactionService, "maxAgeMillis", 0L);
+        addPerson("John", "Boyd");
+
+        assertTrue(compactionService.compactIfNeeded());
+        assertEquals(1, section(DataSection.PERSONS).size());
+        assertEquals(0L, journalService.oldestEntryAgeMillis());
+    }
+
+    /**
+     * Test that an empty journal never triggers a compaction.
+     */
+    @Test
+    void testCompactIfNeeded_emptyJournal() {
+        ReflectionTestUtils.setField(compactionService, "maxAgeMillis", 0L);
+
+        assertFalse(compactionService.compactIfNeeded());
+    }
+
+    /**
+     * Test that a rotated journal left by an interrupted compaction is compacted on the next run.
+     */
+    @Test
+    void testCompactIfNeeded_resumesInterruptedCompaction() throws IOException {
+        addPerson("John", "Boyd");
+        journalService.rotate();
+
+        assertTrue(compactionService.compactIfNeeded());
+        assertFalse(journalService.hasRotated());
+        assertEquals(1, section(DataSection.PERSONS).size());
+    }
+
+    /**
+     * Test that the section files plus the journal appended after a compaction give back the current state.
+     */
+    @Test
+    void testCompact_thenReload() {
+        addPerson("John", "Boyd");
+        compactionService.compact();
+        addPerson("Jacob", "Boyd");
+        jsonWriterService.deletePerson("John", "Boyd", () -> personRepository.deletePerson("John", "Boyd"));
+        journalService.close();
+
+        PersonRepository reloaded = new PersonRepository();
+        JSONReaderService reader = new JSONReaderService(reloaded, new FireStationRepository(), new MedicalRecordsRepository(), journalService, sectionFileService);
+        ReflectionTestUtils.setField(reader, "dataPath", dataPath.toString());
+        reader.loadData();
+
+        assertEquals(List.of("Jacob"), reloaded.getAllPersons().stream().map(Person::getFirstName).toList());
+    }
+
+    /**
+     * Test that appends made while sections are rewritten land in the fresh journal.
+     */
+    @Test
+    void testRotate_appendsContinueInFreshJournal() {
+        addPerson("John", "Boyd");
+        journalService.rotate();
+        journalService.append(JournalEntry.delete(DataSection.PERSONS, List.of("John", "Boyd")));
+
+        assertTrue(journalService.hasRotated());
+        assertTrue(journalService.size() > 0);
+        assertEquals(2, journalService.replay(entry -> { }));
+    }
+}
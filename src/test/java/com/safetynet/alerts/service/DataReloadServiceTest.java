@@ -0,0 +1,262 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Unit tests for DataReloadService, run against real repositories and journal files.
+ */
+class DataReloadServiceTest {
+
+    private static final String INITIAL = """
+            {
+              "persons": [
+                { "firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver", "zip": "97451", "phone": "841-874-6512", "email": "jaboyd@email.com" },
+                { "firstName": "Jacob", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver", "zip": "97451", "phone": "841-874-6513", "email": "drk@email.com" }
+              ],
+              "firestations": [
+                { "address": "1509 Culver St", "station": "3" },
+                { "address": "29 15th St", "station": "2" }
+              ],
+              "medicalrecords": [
+                { "firstName": "John", "lastName": "Boyd", "birthdate": "03/06/1984", "medications": ["aznol:350mg"], "allergies": ["nillacilan"] }
+              ]
+            }
+            """;
+
+    private static final String UPDATED = """
+            {
+              "persons": [
+                { "firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver", "zip": "97451", "phone": "841-874-6512", "email": "jaboyd@email.com" },
+                { "firstName": "Tenley", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver", "zip": "97451", "phone": "841-874-6512", "email": "tenz@email.com" }
+              ],
+              "firestations": [
+                { "address": "1509 Culver St", "station": "3" },
+                { "address": "29 15th St", "station": "4" }
+              ],
+              "medicalrecords": [
+                { "firstName": "John", "lastName": "Boyd", "birthdate": "03/06/1984", "medications": [], "allergies": ["nillacilan"] }
+              ]
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private Path dataPath;
+    private PersonRepository personRepository;
+    private FireStationRepository fireStationRepository;
+    private MedicalRecordsRepository medicalRecordsRepository;
+    private RepositoryLock repositoryLock;
+    private JournalService journalService;
+    private JSONReaderService jsonReaderService;
+    private DataReloadService dataReloadService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataPath = tempDir.resolve("data.json");
+        Files.writeString(dataPath, INITIAL);
+        repositoryLock = new RepositoryLock();
+        personRepository = new PersonRepository(repositoryLock);
+        fireStationRepository = new FireStationRepository(repositoryLock);
+        medicalRecordsRepository = new MedicalRecordsRepository(repositoryLock);
+        journalService = new JournalService();
+        ReflectionTestUtils.setField(journalService, "journalPath", tempDir.resolve("data.json.journal").toString());
+        SectionFileService sectionFileService = new SectionFileService(new BinarySnapshotService());
+        ReflectionTestUtils.setField(sectionFileService, "sectionsPath", tempDir.resolve("data.json.d").toString());
+        jsonReaderService = new JSONReaderService(personRepository, fireStationRepository, medicalRecordsRepository, journalService, sectionFileService);
+        ReflectionTestUtils.setField(jsonReaderService, "dataPath", dataPath.toString());
+        jsonReaderService.loadData();
+        JSONWriterService jsonWriterService = new JSONWriterService(personRepository, fireStationRepository, medicalRecordsRepository, journalService, repositoryLock);
+        dataReloadService = new DataReloadService(personRepository, fireStationRepository, medicalRecordsRepository, jsonReaderService, jsonWriterService);
+        ReflectionTestUtils.setField(dataReloadService, "dataPath", dataPath.toString());
+        ReflectionTestUtils.setField(dataReloadService, "debounceMillis", 50L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataReloadService.close();
+        journalService.close();
+    }
+
+    /**
+     * Test that a write coming in between the diff and the write lock is caught, and the diff computed again.
+     */
+    @Test
+    void testReload_writeDuringDiff_diffsAgain() throws IOException {
+        JSONWriterService jsonWriterService = spy((JSONWriterService) ReflectionTestUtils.getField(dataReloadService, "jsonWriterService"));
+        ReflectionTestUtils.setField(dataReloadService, "jsonWriterService", jsonWriterService);
+        doAnswer(invocation -> {
+            personRepository.addPerson(new Person("Felicia", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6544", "jaboyd@email.com"));
+            return invocation.callRealMethod();
+        }).when(jsonWriterService).saveChanges(any());
+        Files.writeString(dataPath, UPDATED);
+
+        int changes = dataReloadService.reload();
+
+        // Felicia, added after the snapshots, is not in the file either
+        assertEquals(5, changes);
+        assertEquals(List.of("John", "Tenley"), personRepository.getAllPersons().stream().map(Person::getFirstName).toList());
+    }
+
+    /**
+     * Test that only the differences are applied, each repository in a single new version.
+     */
+    @Test
+    void testReload_appliesDifferences() throws IOException {
+        Person john = personRepository.getPerson("John", "Boyd").orElseThrow();
+        long personVersion = personRepository.getVersion();
+        long fireStationVersion = fireStationRepository.getVersion();
+        Files.writeString(dataPath, UPDATED);
+
+        int changes = dataReloadService.reload();
+
+        // Jacob deleted, Tenley added, 29 15th St remapped, John's medical record changed
+        assertEquals(4, changes);
+        assertEquals(List.of("John", "Tenley"), personRepository.getAllPersons().stream().map(Person::getFirstName).toList());
+        assertSame(john, personRepository.getPerson("John", "Boyd").orElseThrow());
+        assertEquals(personVersion + 1, personRepository.getVersion());
+        assertEquals(fireStationVersion + 1, fireStationRepository.getVersion());
+        assertEquals("4", fireStationRepository.getFireStationByAddress("29 15th St").orElseThrow().getStation());
+        assertEquals(List.of(), medicalRecordsRepository.getMedicalRecords("John", "Boyd").orElseThrow().getMedications());
+    }
+
+    /**
+     * Test that reloading an unchanged file changes nothing.
+     */
+    @Test
+    void testReload_unchangedFile() {
+        long personVersion = personRepository.getVersion();
+
+        assertEquals(0, dataReloadService.reload());
+        assertEquals(personVersion, personRepository.getVersion());
+        assertEquals(0L, journalService.size());
+    }
+
+    /**
+     * Test that an unreadable file is ignored and the current data is kept.
+     */
+    @Test
+    void testReload_unreadableFileKeepsData() throws IOException {
+        Files.writeString(dataPath, "{\"persons\": [ {\"firstName\": ");
+
+        assertThrows(RuntimeException.class, () -> dataReloadService.reload());
+        assertEquals(2, personRepository.getAllPersons().size());
+    }
+
+    /**
+     * Test that a reload whose journal write fails is undone in every repository.
+     */
+    @Test
+    void testReload_failedJournalWriteKeepsData() throws IOException {
+        journalService.close();
+        ReflectionTestUtils.setField(journalService, "journalPath", tempDir.toString());
+        Files.writeString(dataPath, UPDATED);
+
+        assertThrows(RuntimeException.class, () -> dataReloadService.reload());
+
+        assertEquals(List.of("John", "Jacob"), personRepository.getAllPersons().stream().map(Person::getFirstName).toList());
+        assertEquals("2", fireStationRepository.getFireStationByAddress("29 15th St").map(FireStation::getStation).orElseThrow());
+        assertEquals(List.of("aznol:350mg"), medicalRecordsRepository.getMedicalRecords("John", "Boyd").orElseThrow().getMedications());
+    }
+
+    /**
+     * Test that readers of the shared lock see a reload in every repository or in none of them.
+     */
+    @Test
+    void testReload_isSeenByReadersAllAtOnce() throws Exception {
+        ExportService exportService = new ExportService(personRepository, fireStationRepository, medicalRecordsRepository, repositoryLock);
+        AtomicBoolean done = new AtomicBoolean();
+        CompletableFuture<Integer> reader = CompletableFuture.supplyAsync(() -> {
+            int torn = 0;
+            while (!done.get()) {
+                ExportService.DataSnapshot snapshot = exportService.snapshot();
+                boolean tenley = snapshot.persons().getItems().stream().anyMatch(person -> person.getFirstName().equals("Tenley"));
+                boolean remapped = snapshot.fireStations().getItems().stream()
+                        .anyMatch(fireStation -> fireStation.getAddress().equals("29 15th St") && fireStation.getStation().equals("4"));
+                if (tenley != remapped) {
+                    torn++;
+                }
+            }
+            return torn;
+        });
+
+        for (int i = 0; i < 50; i++) {
+            Files.writeString(dataPath, i % 2 == 0 ? UPDATED : INITIAL);
+            dataReloadService.reload();
+        }
+        done.set(true);
+
+        assertEquals(0, reader.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test that reloaded changes are journaled, so a restart gives back the same state.
+     */
+    @Test
+    void testReload_survivesRestart() throws IOException {
+        Files.writeString(dataPath, INITIAL);
+        dataReloadService.reload();
+        Files.writeString(dataPath, UPDATED);
+        dataReloadService.reload();
+        // The seed file is back to its original content, only the journal holds the reload
+        Files.writeString(dataPath, INITIAL);
+        journalService.close();
+
+        PersonRepository persons = new PersonRepository();
+        FireStationRepository fireStations = new FireStationRepository();
+        SectionFileService sectionFileService = new SectionFileService(new BinarySnapshotService());
+        ReflectionTestUtils.setField(sectionFileService, "sectionsPath", tempDir.resolve("data.json.d").toString());
+        JSONReaderService reader = new JSONReaderService(persons, fireStations, new MedicalRecordsRepository(), journalService, sectionFileService);
+        ReflectionTestUtils.setField(reader, "dataPath", dataPath.toString());
+        reader.loadData();
+
+        assertEquals(List.of("John", "Tenley"), persons.getAllPersons().stream().map(Person::getFirstName).toList());
+        assertEquals("4", fireStations.getFireStationByAddress("29 15th St").map(FireStation::getStation).orElseThrow());
+    }
+
+    /**
+     * Test that a new file dropped in place is picked up by the watcher.
+     */
+    @Test
+    void testWatch_picksUpNewFile() throws Exception {
+        ReflectionTestUtils.setField(dataReloadService, "watchEnabled", true);
+        dataReloadService.start();
+
+        Path dropped = tempDir.resolve("data.json.new");
+        Files.writeString(dropped, UPDATED);
+        Files.move(dropped, dataPath, StandardCopyOption.REPLACE_EXISTING);
+
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (personRepository.getPerson("Tenley", "Boyd").isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(personRepository.getPerson("Tenley", "Boyd").isPresent());
+        MedicalRecords john = medicalRecordsRepository.getMedicalRecords("John", "Boyd").orElseThrow();
+        assertEquals(List.of("nillacilan"), john.getAllergies());
+    }
+}
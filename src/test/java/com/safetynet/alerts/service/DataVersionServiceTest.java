@@ -0,0 +1,48 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DataVersionService}.
+ * These tests check that the entity tag follows the writes and the current date.
+ */
+class DataVersionServiceTest {
+
+    private final RepositoryLock lock = new RepositoryLock();
+    private final PersonRepository personRepository = new PersonRepository(lock);
+    private final DataVersionService dataVersionService = new DataVersionService(personRepository,
+            new FireStationRepository(lock), new MedicalRecordsRepository(lock), lock);
+
+    /**
+     * Test that the tag is stable without writes and carries the current date.
+     */
+    @Test
+    void etag_withoutWrite_isStableAndDated() {
+        String etag = dataVersionService.etag();
+
+        assertEquals(etag, dataVersionService.etag());
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertTrue(etag.contains("-" + LocalDate.now() + "-"));
+    }
+
+    /**
+     * Test that a write changes the tag.
+     */
+    @Test
+    void etag_afterWrite_changes() {
+        String before = dataVersionService.etag();
+
+        personRepository.addPerson(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+
+        assertNotEquals(before, dataVersionService.etag());
+    }
+}
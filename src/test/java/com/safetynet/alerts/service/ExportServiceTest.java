@@ -0,0 +1,96 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExportService, run against real repositories.
+ */
+class ExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PersonRepository personRepository;
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        RepositoryLock repositoryLock = new RepositoryLock();
+        personRepository = new PersonRepository(repositoryLock);
+        FireStationRepository fireStationRepository = new FireStationRepository(repositoryLock);
+        MedicalRecordsRepository medicalRecordsRepository = new MedicalRecordsRepository(repositoryLock);
+        personRepository.addPerson(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        personRepository.addPerson(new Person("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        fireStationRepository.addFireStation(new FireStation("1509 Culver St", "3"));
+        medicalRecordsRepository.addMedicalRecords(new MedicalRecords("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of()));
+        exportService = new ExportService(personRepository, fireStationRepository, medicalRecordsRepository, repositoryLock);
+    }
+
+    private String write(ExportService.DataSnapshot snapshot, EnumSet<DataSection> sections, ExportService.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.write(snapshot, sections, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test that a JSON export is shaped like data.json.
+     */
+    @Test
+    void testWriteJson() throws IOException {
+        JsonNode root = objectMapper.readTree(write(exportService.snapshot(), EnumSet.allOf(DataSection.class), ExportService.Format.JSON));
+
+        assertEquals(2, root.get("persons").size());
+        assertEquals("3", root.get("firestations").get(0).get("station").asText());
+        assertEquals("aznol:350mg", root.get("medicalrecords").get(0).get("medications").get(0).asText());
+    }
+
+    /**
+     * Test that an NDJSON export of one section holds bare items, and of several sections wrapped items.
+     */
+    @Test
+    void testWriteNdjson() throws IOException {
+        ExportService.DataSnapshot snapshot = exportService.snapshot();
+
+        String persons = write(snapshot, EnumSet.of(DataSection.PERSONS), ExportService.Format.NDJSON);
+        String all = write(snapshot, EnumSet.allOf(DataSection.class), ExportService.Format.NDJSON);
+
+        assertEquals(2, persons.lines().count());
+        assertEquals("Jacob", objectMapper.readTree(persons.lines().toList().get(1)).get("firstName").asText());
+        assertEquals(4, all.lines().count());
+        JsonNode last = objectMapper.readTree(all.lines().toList().get(3));
+        assertEquals("medicalrecords", last.get("section").asText());
+        assertEquals("John", last.get("value").get("firstName").asText());
+    }
+
+    /**
+     * Test that writes made after the snapshot are not exported.
+     */
+    @Test
+    void testSnapshotIsNotAffectedByLaterWrites() throws IOException {
+        ExportService.DataSnapshot snapshot = exportService.snapshot();
+        personRepository.deletePerson("John", "Boyd");
+
+        String persons = write(snapshot, EnumSet.of(DataSection.PERSONS), ExportService.Format.NDJSON);
+
+        assertEquals(2, persons.lines().count());
+        assertEquals(1, personRepository.getAllPersons().size());
+    }
+}
@@ -1,7 +1,6 @@
 package com.safetynet.alerts.service;
 
 import com.safetynet.alerts.dto.FireStationResponseDTO;
-import com.safetynet.alerts.model.FireStation;
 import com.safetynet.alerts.model.MedicalRecords;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FireStationRepository;
@@ -48,9 +47,6 @@ class FireStationServiceTest {
         String stationNumber = "1";
         String address = "123 Main St";
 
-        FireStation fireStation = new FireStation(address, stationNumber);
-        List<FireStation> fireStations = List.of(fireStation);
-
         Person adult = new Person("John", "Doe", address, "City", "Zip", "123-456-7890", "john.doe@email.com");
         Person child = new Person("Jane", "Doe", address, "City", "Zip", "123-456-7890", "jane.doe@email.com");
         List<Person> persons = List.of(adult, child);
@@ -58,8 +54,8 @@ class FireStationServiceTest {
         MedicalRecords adultRecord = new MedicalRecords("John", "Doe", "12/12/1980", List.of(), List.of());
         MedicalRecords childRecord = new MedicalRecords("Jane", "Doe", "12/12/2015", List.of(), List.of());
 
-        when(fireStationRepository.getAllFireStation()).thenReturn(fireStations);
-        when(personRepository.getAllPersons()).thenReturn(persons);
+        when(fireStationRepository.getAddressesByStation(stationNumber)).thenReturn(Set.of(address));
+        when(personRepository.getPersonsByAddress(address)).thenReturn(persons);
         when(medicalRecordsService.getMedicalRecordsByName("John", "Doe")).thenReturn(Optional.of(adultRecord));
         when(medicalRecordsService.getMedicalRecordsByName("Jane", "Doe")).thenReturn(Optional.of(childRecord));
 
@@ -1,8 +1,9 @@
 package com.safetynet.alerts.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSection;
 import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.JournalEntry;
 import com.safetynet.alerts.model.MedicalRecords;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FireStationRepository;
@@ -10,10 +11,20 @@ import com.safetynet.alerts.repository.MedicalRecordsRepository;
 import com.safetynet.alerts.repository.PersonRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class JSONReaderServiceTest {
@@ -21,6 +32,8 @@ class JSONReaderServiceTest {
     private PersonRepository personRepository;
     private FireStationRepository fireStationRepository;
     private MedicalRecordsRepository medicalRecordsRepository;
+    private JournalService journalService;
+    private SectionFileService sectionFileService;
     private JSONReaderService jsonReaderService;
     private ObjectMapper objectMapper;
 
@@ -29,7 +42,9 @@ class JSONReaderServiceTest {
         personRepository = mock(PersonRepository.class);
         fireStationRepository = mock(FireStationRepository.class);
         medicalRecordsRepository = mock(MedicalRecordsRepository.class);
-        jsonReaderService = new JSONReaderService(personRepository, fireStationRepository, medicalRecordsRepository);
+        journalService = mock(JournalService.class);
+        sectionFileService = mock(SectionFileService.class);
+        jsonReaderService = new JSONReaderService(personRepository, fireStationRepository, medicalRecordsRepository, journalService, sectionFileService);
         objectMapper = new ObjectMapper();
 
         try {
@@ -42,7 +57,7 @@ class JSONReaderServiceTest {
     }
 
     /**
-     * Test that loadPerson correctly parses persons from JsonNode and adds them to the repository.
+     * Test that loadPerson correctly streams persons and adds them to the repository.
      */
     @Test
     void testLoadPerson() throws Exception {
@@ -62,19 +77,19 @@ class JSONReaderServiceTest {
                 }
                 """;
 
-        JsonNode root = objectMapper.readTree(json);
-        jsonReaderService.loadPerson(root);
+        jsonReaderService.loadSections(objectMapper.createParser(json), EnumSet.allOf(DataSection.class));
 
-        ArgumentCaptor<Person> captor = ArgumentCaptor.forClass(Person.class);
-        verify(personRepository, times(1)).addPerson(captor.capture());
+        ArgumentCaptor<List<Person>> captor = ArgumentCaptor.captor();
+        verify(personRepository, times(1)).addAllPersons(captor.capture());
 
-        Person captured = captor.getValue();
+        assertThat(captor.getValue()).hasSize(1);
+        Person captured = captor.getValue().getFirst();
         assertThat(captured.getFirstName()).isEqualTo("John");
         assertThat(captured.getLastName()).isEqualTo("Doe");
     }
 
     /**
-     * Test that loadFireStation correctly parses firestations from JsonNode and adds them to the repository.
+     * Test that loadFireStation correctly streams firestations and adds them to the repository.
      */
     @Test
     void testLoadFireStation() throws Exception {
@@ -89,19 +104,19 @@ class JSONReaderServiceTest {
                 }
                 """;
 
-        JsonNode root = objectMapper.readTree(json);
-        jsonReaderService.loadFireStation(root);
+        jsonReaderService.loadSections(objectMapper.createParser(json), EnumSet.allOf(DataSection.class));
 
-        ArgumentCaptor<FireStation> captor = ArgumentCaptor.forClass(FireStation.class);
-        verify(fireStationRepository, times(1)).addFireStation(captor.capture());
+        ArgumentCaptor<List<FireStation>> captor = ArgumentCaptor.captor();
+        verify(fireStationRepository, times(1)).appendFireStations(captor.capture());
 
-        FireStation captured = captor.getValue();
+        assertThat(captor.getValue()).hasSize(1);
+        FireStation captured = captor.getValue().getFirst();
         assertThat(captured.getAddress()).isEqualTo("123 Main St");
         assertThat(captured.getStation()).isEqualTo("1");
     }
 
     /**
-     * Test that loadMedicalRecords correctly parses medicalrecords from JsonNode and adds them to the repository.
+     * Test that loadMedicalRecords correctly streams medicalrecords and adds them to the repository.
      */
     @Test
     void testLoadMedicalRecords() throws Exception {
@@ -119,17 +134,196 @@ class JSONReaderServiceTest {
                 }
                 """;
 
-        JsonNode root = objectMapper.readTree(json);
-        jsonReaderService.loadMedicalRecords(root);
+        jsonReaderService.loadSections(objectMapper.createParser(json), EnumSet.allOf(DataSection.class));
 
-        ArgumentCaptor<MedicalRecords> captor = ArgumentCaptor.forClass(MedicalRecords.class);
-        verify(medicalRecordsRepository, times(1)).addMedicalRecords(captor.capture());
+        ArgumentCaptor<List<MedicalRecords>> captor = ArgumentCaptor.captor();
+        verify(medicalRecordsRepository, times(1)).addAllMedicalRecords(captor.capture());
 
-        MedicalRecords captured = captor.getValue();
+        assertThat(captor.getValue()).hasSize(1);
+        MedicalRecords captured = captor.getValue().getFirst();
         assertThat(captured.getFirstName()).isEqualTo("John");
         assertThat(captured.getLastName()).isEqualTo("Doe");
     }
 
+    /**
+     * Test that unknown sections are skipped without stopping the known ones from loading.
+     */
+    @Test
+    void testLoadDataSkipsUnknownSections() throws Exception {
+        String json = """
+                {
+                  "metadata": { "generatedBy": "export", "sections": ["persons"] },
+                  "persons": [
+                    { "firstName": "John", "lastName": "Doe", "address": "123 Main St", "city": "City", "zip": "Zip", "phone": "123", "email": "john@email.com" },
+                    { "firstName": "Jane", "lastName": "Doe", "address": "123 Main St", "city": "City", "zip": "Zip", "phone": "456", "email": "jane@email.com" }
+                  ],
+                  "extras": [ { "nested": [1, 2, 3] } ],
+                  "firestations": [ { "address": "123 Main St", "station": "1" } ]
+                }
+                """;
+
+        jsonReaderService.loadSections(objectMapper.createParser(json), EnumSet.allOf(DataSection.class));
+
+        verify(personRepository).addAllPersons(argThat(persons -> persons.size() == 2));
+        verify(fireStationRepository).appendFireStations(argThat(fireStations -> fireStations.size() == 1));
+        verifyNoInteractions(medicalRecordsRepository);
+    }
+
+    /**
+     * Test that a document whose root is not an object is rejected.
+     */
+    @Test
+    void testLoadDataRejectsNonObjectRoot() {
+        assertThrows(IOException.class, () -> jsonReaderService.loadSections(objectMapper.createParser("[]"), EnumSet.allOf(DataSection.class)));
+    }
+
+    /**
+     * Test that loadSections only binds the requested sections.
+     */
+    @Test
+    void testLoadSectionsLoadsRequestedSectionsOnly() throws Exception {
+        String json = """
+                {
+                  "persons": [
+                    { "firstName": "John", "lastName": "Doe", "address": "123 Main St", "city": "City", "zip": "Zip", "phone": "123", "email": "john@email.com" }
+                  ],
+                  "firestations": [ { "address": "123 Main St", "station": "1" } ],
+                  "medicalrecords": [ { "firstName": "John", "lastName": "Doe", "birthdate": "12/12/1980", "medications": [], "allergies": [] } ]
+                }
+                """;
+
+        int count = jsonReaderService.loadSections(objectMapper.createParser(json), EnumSet.of(DataSection.FIRE_STATIONS));
+
+        assertThat(count).isEqualTo(1);
+        verify(fireStationRepository).appendFireStations(any());
+        verifyNoInteractions(personRepository, medicalRecordsRepository);
+    }
+
+    /**
+     * Test that loadData fills every repository when sections are loaded in parallel.
+     */
+    @Test
+    void testLoadDataLoadsSectionsInParallel(@TempDir Path tempDir) throws Exception {
+        StringBuilder json = new StringBuilder("{\"persons\":[");
+        for (int i = 0; i < 500; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"firstName\":\"P").append(i)
+                    .append("\",\"lastName\":\"Doe\",\"address\":\"").append(i % 20).append(" Main St\"}");
+        }
+        json.append("],\"firestations\":[");
+        for (int i = 0; i < 20; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"address\":\"").append(i).append(" Main St\",\"station\":\"").append(i % 4).append("\"}");
+        }
+        json.append("],\"medicalrecords\":[");
+        for (int i = 0; i < 500; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"firstName\":\"P").append(i).append("\",\"lastName\":\"Doe\",\"birthdate\":\"01/01/1990\"}");
+        }
+        json.append("]}");
+        Path data = tempDir.resolve("data.json");
+        Files.writeString(data, json);
+        PersonRepository persons = new PersonRepository();
+        FireStationRepository fireStations = new FireStationRepository();
+        MedicalRecordsRepository medicalRecords = new MedicalRecordsRepository();
+        JSONReaderService reader = new JSONReaderService(persons, fireStations, medicalRecords, journalService, sectionFileService);
+        ReflectionTestUtils.setField(reader, "dataPath", data.toString());
+        ReflectionTestUtils.setField(reader, "loadThreads", 3);
+
+        long personsVersion = persons.getVersion();
+        long fireStationsVersion = fireStations.getVersion();
+        long medicalRecordsVersion = medicalRecords.getVersion();
+
+        reader.loadData();
+
+        assertThat(persons.getAllPersons()).hasSize(500);
+        assertThat(fireStations.getAllFireStation()).hasSize(20);
+        assertThat(medicalRecords.getAllMedicalRecords()).hasSize(500);
+        assertThat(persons.getPersonsByAddress("3 main st")).hasSize(25);
+        // Each section is published in a single write
+        assertThat(persons.getVersion()).isEqualTo(personsVersion + 1);
+        assertThat(fireStations.getVersion()).isEqualTo(fireStationsVersion + 1);
+        assertThat(medicalRecords.getVersion()).isEqualTo(medicalRecordsVersion + 1);
+        verify(journalService).replay(any());
+    }
+
+    /**
+     * Test that loadData replays the journal once data.json is loaded.
+     */
+    @Test
+    void testLoadDataReplaysJournal(@TempDir Path tempDir) throws Exception {
+        Path data = tempDir.resolve("data.json");
+        Files.writeString(data, """
+                {
+                  "persons": [
+                    { "firstName": "John", "lastName": "Doe", "address": "123 Main St", "city": "City", "zip": "Zip", "phone": "123", "email": "john@email.com" }
+                  ],
+                  "firestations": [],
+                  "medicalrecords": []
+                }
+                """);
+        ReflectionTestUtils.setField(jsonReaderService, "dataPath", data.toString());
+        Person person = new Person("John", "Doe", "1 New St", "City", "Zip", "123", "john@email.com");
+        JournalEntry putPerson = JournalEntry.put(DataSection.PERSONS, List.of("John", "Doe"), objectMapper.valueToTree(person));
+        when(journalService.replay(any())).thenAnswer(invocation -> {
+            Consumer<JournalEntry> replayed = invocation.getArgument(0);
+            replayed.accept(putPerson);
+            return 1;
+        });
+
+        jsonReaderService.loadData();
+
+        var order = inOrder(personRepository);
+        order.verify(personRepository).addAllPersons(any());
+        ArgumentCaptor<Person> captor = ArgumentCaptor.forClass(Person.class);
+        order.verify(personRepository).savePerson(captor.capture());
+        assertThat(captor.getValue().getAddress()).isEqualTo("1 New St");
+    }
+
+    /**
+     * Test that a corrupted binary section file is ignored and the section is loaded once, from its JSON file.
+     */
+    @Test
+    void testLoadDataFallsBackToJsonOnCorruptedBinary(@TempDir Path tempDir) throws Exception {
+        SectionFileService sections = new SectionFileService(new BinarySnapshotService());
+        ReflectionTestUtils.setField(sections, "sectionsPath", tempDir.resolve("data.json.d").toString());
+        sections.write(DataSection.PERSONS, List.of(
+                new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com")));
+        Path binary = sections.binaryPath(DataSection.PERSONS);
+        byte[] bytes = Files.readAllBytes(binary);
+        // The last record points outside the string table
+        bytes[bytes.length - 1] = 100;
+        Files.write(binary, bytes);
+        sections.write(DataSection.FIRE_STATIONS, List.of());
+        sections.write(DataSection.MEDICAL_RECORDS, List.of());
+        sections.writeManifest(1L);
+        PersonRepository persons = new PersonRepository();
+        JSONReaderService reader = new JSONReaderService(persons, new FireStationRepository(), new MedicalRecordsRepository(), journalService, sections);
+        ReflectionTestUtils.setField(reader, "dataPath", tempDir.resolve("data.json").toString());
+
+        reader.loadData();
+
+        assertThat(persons.getAllPersons()).extracting(Person::getFirstName).containsExactly("John", "Jacob");
+    }
+
+    /**
+     * Test that journal entries are applied to the matching repository.
+     */
+    @Test
+    void testApplyJournalEntry() throws Exception {
+        FireStation fireStation = new FireStation("123 Main St", "2");
+        jsonReaderService.applyJournalEntry(JournalEntry.put(DataSection.FIRE_STATIONS, List.of("123 Main St"),
+                objectMapper.valueToTree(List.of(fireStation))));
+        jsonReaderService.applyJournalEntry(JournalEntry.delete(DataSection.FIRE_STATIONS, List.of("29 15th St")));
+        jsonReaderService.applyJournalEntry(JournalEntry.delete(DataSection.PERSONS, List.of("John", "Doe")));
+        jsonReaderService.applyJournalEntry(JournalEntry.delete(DataSection.MEDICAL_RECORDS, List.of("John", "Doe")));
+
+        ArgumentCaptor<List<FireStation>> captor = ArgumentCaptor.captor();
+        verify(fireStationRepository).replaceFireStations(eq("123 Main St"), captor.capture());
+        assertThat(captor.getValue()).extracting(FireStation::getStation).containsExactly("2");
+        verify(fireStationRepository).replaceFireStations("29 15th St", List.of());
+        verify(personRepository).deletePerson("John", "Doe");
+        verify(medicalRecordsRepository).deleteMedicalRecords("John", "Doe");
+    }
+
     /**
      * Test that loadData throws RuntimeException if the file is missing or unreadable.
      */
@@ -1,25 +1,29 @@
 package com.safetynet.alerts.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSection;
 import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.JournalEntry;
 import com.safetynet.alerts.model.MedicalRecords;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FireStationRepository;
 import com.safetynet.alerts.repository.MedicalRecordsRepository;
 import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.repository.RepositoryLock;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,14 +32,15 @@ import static org.mockito.Mockito.*;
 /**
  * Unit tests for JSONWriterService.
  * Tests saving, updating, and deleting operations on FireStation, Person, and MedicalRecords
- * entities, verifying JSON file content updates correctly.
+ * entities, verifying the journal records the current repository state of the changed key.
  */
 @ExtendWith(MockitoExtension.class)
 class JSONWriterServiceTest {
 
-    @InjectMocks
     private JSONWriterService jsonWriterService;
 
+    private JournalService journalService;
+
     @Mock
     private PersonRepository personRepository;
 
@@ -45,332 +50,218 @@ class JSONWriterServiceTest {
     @Mock
     private MedicalRecordsRepository medicalRecordsRepository;
 
-    private static final String TEMP_FILE_PATH = "test-data.json";
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String TEMP_JOURNAL_PATH = "test-data.json.journal";
 
     @BeforeEach
     void setup() throws IOException {
-        String jsonContent = """
-                {
-                  "persons": [
-                  { "firstName": "John","lastName": "Smith","address": "123 Main St","city": "SomeCity","zip": "12345","phone": "123-456-7890","email": "jane.smith@example.com"}
-                  ],
-                  "firestations": [
-                    { "address": "1509 Culver St", "station": "3" }
-                  ],
-                  "medicalrecords": [
-                  {"firstName": "John","lastName": "Doe","birthdate": "01/01/1990","medications": ["med1"],"allergies": ["allergy1"]}
-                  ]
-                }
-                """;
-        Files.writeString(Path.of(TEMP_FILE_PATH), jsonContent);
-        jsonWriterService = new JSONWriterService(personRepository, fireStationRepository, medicalRecordsRepository);
-        ReflectionTestUtils.setField(jsonWriterService, "dataPath", TEMP_FILE_PATH);
+        Files.deleteIfExists(Path.of(TEMP_JOURNAL_PATH));
+        journalService = new JournalService();
+        ReflectionTestUtils.setField(journalService, "journalPath", TEMP_JOURNAL_PATH);
+        jsonWriterService = new JSONWriterService(personRepository, fireStationRepository, medicalRecordsRepository, journalService, new RepositoryLock());
     }
 
     @AfterEach
     void cleanup() throws IOException {
-        Files.deleteIfExists(Path.of(TEMP_FILE_PATH));
+        journalService.close();
+        Files.deleteIfExists(Path.of(TEMP_JOURNAL_PATH));
     }
 
-    /**
-     * Test saving a FireStation:
-     * replaces existing entry if address matches.
-     */
-    @Test
-    void testSaveFireStation_shouldReplaceExistingStation() throws IOException {
-        FireStation updated = new FireStation("1509 Culver St", "4");
-        jsonWriterService.saveFireStation(updated);
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode stations = root.get("firestations");
-        assertEquals(1, stations.size());
-        assertEquals("4", stations.get(0).get("station").asText());
+    private List<JournalEntry> journal() {
+        List<JournalEntry> entries = new ArrayList<>();
+        journalService.replay(entries::add);
+        return entries;
     }
 
     /**
      * Test saving a FireStation:
-     * adds new entry if address not found.
+     * journals every mapping of the address.
      */
     @Test
-    void testSaveFireStation_shouldAddNewStationIfNotExists() throws IOException {
-        FireStation newStation = new FireStation("29 15th St", "2");
-        jsonWriterService.saveFireStation(newStation);
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode stations = root.get("firestations");
-        assertEquals(2, stations.size());
-        boolean found = false;
-        for (JsonNode station : stations) {
-            if (station.get("address").asText().equals("29 15th St")) {
-                assertEquals("2", station.get("station").asText());
-                found = true;
-            }
-        }
-        assertTrue(found);
+    void testSaveFireStation_shouldJournalAllMappingsOfAddress() {
+        when(fireStationRepository.getFireStationsByAddress("1509 Culver St"))
+                .thenReturn(List.of(new FireStation("1509 Culver St", "3"), new FireStation("1509 Culver St", "4")));
+
+        jsonWriterService.saveFireStation(new FireStation("1509 Culver St", "4"), () -> {});
+
+        List<JournalEntry> entries = journal();
+        assertEquals(1, entries.size());
+        JournalEntry entry = entries.get(0);
+        assertEquals(DataSection.FIRE_STATIONS, entry.getSection());
+        assertEquals(JournalEntry.Operation.PUT, entry.getOp());
+        assertEquals(List.of("1509 Culver St"), entry.getKey());
+        assertEquals(2, entry.getValue().size());
+        assertEquals("4", entry.getValue().get(1).get("station").asText());
     }
 
     /**
      * Test updating a FireStation:
-     * updates station number if found.
+     * journals the updated station number.
      */
     @Test
-    void testUpdateFireStation_shouldUpdateStationNumber() throws IOException {
-        FireStation updated = new FireStation("1509 Culver St", "6");
-        when(fireStationRepository.getAllFireStation()).thenReturn(List.of(new FireStation("1509 Culver St", "3")));
-        jsonWriterService.updateFireStation(updated);
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode stations = root.get("firestations");
-        assertEquals("6", stations.get(0).get("station").asText());
-    }
+    void testUpdateFireStation_shouldJournalUpdatedStationNumber() {
+        when(fireStationRepository.getFireStationsByAddress("1509 Culver St")).thenReturn(List.of(new FireStation("1509 Culver St", "6")));
 
-    /**
-     * Test updating a FireStation:
-     * does nothing if address not found.
-     */
-    @Test
-    void testUpdateFireStation_shouldDoNothingIfNotFound() throws IOException {
-        FireStation updated = new FireStation("Unknown St", "7");
-        when(fireStationRepository.getAllFireStation()).thenReturn(List.of(new FireStation("1509 Culver St", "3")));
-        jsonWriterService.updateFireStation(updated);
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode stations = root.get("firestations");
-        assertEquals(1, stations.size());
-        assertEquals("3", stations.get(0).get("station").asText());
-    }
+        jsonWriterService.updateFireStation(new FireStation("1509 Culver St", "6"), () -> {});
 
-    /**
-     * Test deleting a FireStation:
-     * removes entry by address.
-     */
-    @Test
-    void testDeleteFireStation_shouldRemoveStation() throws IOException {
-        when(fireStationRepository.getAllFireStation()).thenReturn(List.of(new FireStation("1509 Culver St", "3")));
-        jsonWriterService.deleteFireStation("1509 Culver St");
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode stations = root.get("firestations");
-        assertEquals(0, stations.size());
+        JournalEntry entry = journal().get(0);
+        assertEquals(JournalEntry.Operation.PUT, entry.getOp());
+        assertEquals("6", entry.getValue().get(0).get("station").asText());
     }
 
     /**
      * Test deleting a FireStation:
-     * does nothing if address not found.
+     * journals a DELETE once the address has no mapping left.
      */
     @Test
-    void testDeleteFireStation_shouldDoNothingIfAddressNotFound() throws IOException {
-        when(fireStationRepository.getAllFireStation()).thenReturn(List.of(new FireStation("1509 Culver St", "3")));
-        jsonWriterService.deleteFireStation("Nonexistent St");
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode stations = root.get("firestations");
-        assertEquals(1, stations.size());
-        assertEquals("1509 Culver St", stations.get(0).get("address").asText());
-    }
+    void testDeleteFireStation_shouldJournalDelete() {
+        when(fireStationRepository.getFireStationsByAddress("1509 Culver St")).thenReturn(List.of());
 
-    /**
-     * Test saving a Person:
-     * replaces existing person if names match.
-     */
-    @Test
-    void testSavePerson_shouldReplaceExistingPerson() throws IOException {
-        Person updated = new Person("John", "Doe", "newAddress", "newCity", "newZip", "newPhone", "newEmail");
+        jsonWriterService.deleteFireStation("1509 Culver St", () -> {});
 
-        jsonWriterService.savePerson(updated);
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode persons = root.get("persons");
-        assertEquals(1, persons.size());
-        assertEquals("newAddress", persons.get(0).get("address").asText());
+        JournalEntry entry = journal().get(0);
+        assertEquals(JournalEntry.Operation.DELETE, entry.getOp());
+        assertEquals(List.of("1509 Culver St"), entry.getKey());
+        assertNull(entry.getValue());
     }
 
     /**
      * Test saving a Person:
-     * adds new person if not found.
+     * journals the stored person.
      */
     @Test
-    void testSavePerson_shouldAddNewPersonIfNotExists() throws IOException {
-        when(personRepository.getAllPersons()).thenReturn(List.of(new Person("John", "Doe", "address", "city", "zip", "phone", "email")));
-        Person newPerson = new Person("Jane", "Smith", "addr2", "city2", "zip2", "phone2", "email2");
-
-        jsonWriterService.savePerson(newPerson);
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode persons = root.get("persons");
-        assertEquals(2, persons.size());
-
-        boolean found = false;
-        for (JsonNode person : persons) {
-            if (person.get("firstName").asText().equals("Jane") && person.get("lastName").asText().equals("Smith")) {
-                found = true;
-                break;
-            }
-        }
-        assertTrue(found);
-    }
+    void testSavePerson_shouldJournalStoredPerson() {
+        Person person = new Person("John", "Doe", "newAddress", "newCity", "newZip", "newPhone", "newEmail");
+        when(personRepository.getPerson("John", "Doe")).thenReturn(Optional.of(person));
 
-    /**
-     * Test updating a Person:
-     * updates person details if found.
-     */
-    @Test
-    void testUpdatePerson_shouldUpdateExistingPerson() throws IOException {
-        Person updated = new Person("John", "Doe", "updatedAddress", "updatedCity", "updatedZip", "updatedPhone", "updatedEmail");
+        jsonWriterService.savePerson(person, () -> {});
 
-        when(personRepository.getAllPersons()).thenReturn(List.of(new Person("John", "Doe", "address", "city", "zip", "phone", "email")));
-
-        jsonWriterService.updatePerson(updated);
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode persons = root.get("persons");
-        assertEquals("updatedAddress", persons.get(0).get("address").asText());
+        JournalEntry entry = journal().get(0);
+        assertEquals(DataSection.PERSONS, entry.getSection());
+        assertEquals(JournalEntry.Operation.PUT, entry.getOp());
+        assertEquals(List.of("John", "Doe"), entry.getKey());
+        assertEquals("newAddress", entry.getValue().get("address").asText());
     }
 
     /**
      * Test updating a Person:
-     * does nothing if person not found.
+     * journals the state held by the repository, not the request body.
      */
     @Test
-    void testUpdatePerson_shouldDoNothingIfNotFound() throws IOException {
-        Person updated = new Person("Nonexistent", "Person", "addr", "city", "zip", "phone", "email");
+    void testUpdatePerson_shouldJournalRepositoryState() {
+        Person stored = new Person("John", "Doe", "updatedAddress", "updatedCity", "updatedZip", "updatedPhone", "updatedEmail");
+        when(personRepository.getPerson("john", "doe")).thenReturn(Optional.of(stored));
 
-        when(personRepository.getAllPersons()).thenReturn(List.of(new Person("John", "Doe", "address", "city", "zip", "phone", "email")));
+        jsonWriterService.updatePerson(new Person("john", "doe", "updatedAddress", null, null, null, null), () -> {});
 
-        jsonWriterService.updatePerson(updated);
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode persons = root.get("persons");
-        assertEquals(1, persons.size());
-        assertEquals("John", persons.get(0).get("firstName").asText());
+        JournalEntry entry = journal().get(0);
+        assertEquals("updatedCity", entry.getValue().get("city").asText());
     }
 
     /**
      * Test deleting a Person:
-     * removes person by first and last name.
+     * journals a DELETE.
      */
     @Test
-    void testDeletePerson_shouldRemovePerson() throws IOException {
-        when(personRepository.getAllPersons()).thenReturn(List.of(new Person("John", "Doe", "address", "city", "zip", "phone", "email")));
+    void testDeletePerson_shouldJournalDelete() {
+        when(personRepository.getPerson("John", "Doe")).thenReturn(Optional.empty());
 
-        jsonWriterService.deletePerson("John", "Doe");
+        jsonWriterService.deletePerson("John", "Doe", () -> {});
 
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode persons = root.get("persons");
-        assertEquals(0, persons.size());
-    }
-
-    /**
-     * Test deleting a Person:
-     * does nothing if person not found.
-     */
-    @Test
-    void testDeletePerson_shouldDoNothingIfNotFound() throws IOException {
-        jsonWriterService.deletePerson("Nonexistent", "Person");
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode persons = root.get("persons");
-        assertEquals(1, persons.size());
-        assertEquals("John", persons.get(0).get("firstName").asText());
+        JournalEntry entry = journal().get(0);
+        assertEquals(JournalEntry.Operation.DELETE, entry.getOp());
+        assertEquals(List.of("John", "Doe"), entry.getKey());
     }
 
     /**
      * Test saving a MedicalRecord:
-     * replaces existing record if names match.
+     * journals the stored record.
      */
     @Test
-    void testSaveMedicalRecord_shouldReplaceExistingRecord() throws IOException {
-        MedicalRecords updated = new MedicalRecords("John", "Doe", "01/01/1990", List.of("med2"), List.of("allergy2"));
-        jsonWriterService.saveMedicalRecord(updated);
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode medicalRecords = root.get("medicalrecords");
-        assertEquals(1, medicalRecords.size());
-        assertEquals("med2", medicalRecords.get(0).get("medications").get(0).asText());
-    }
+    void testSaveMedicalRecord_shouldJournalStoredRecord() {
+        MedicalRecords record = new MedicalRecords("John", "Doe", "01/01/1990", List.of("med2"), List.of("allergy2"));
+        when(medicalRecordsRepository.getMedicalRecords("John", "Doe")).thenReturn(Optional.of(record));
 
-    /**
-     * Test saving a MedicalRecord:
-     * adds new record if not found.
-     */
-    @Test
-    void testSaveMedicalRecord_shouldAddNewRecordIfNotExists() throws IOException {
-        MedicalRecords newRecord = new MedicalRecords("Jane", "Smith", "02/02/1985", List.of("medA"), List.of("allergyA"));
-        jsonWriterService.saveMedicalRecord(newRecord);
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode medicalRecords = root.get("medicalrecords");
-        assertEquals(2, medicalRecords.size());
-
-        boolean found = false;
-        for (JsonNode medicalRecord : medicalRecords) {
-            if (medicalRecord.get("firstName").asText().equals("Jane") && medicalRecord.get("lastName").asText().equals("Smith")) {
-                found = true;
-                break;
-            }
-        }
-        assertTrue(found);
+        jsonWriterService.saveMedicalRecord(record, () -> {});
+
+        JournalEntry entry = journal().get(0);
+        assertEquals(DataSection.MEDICAL_RECORDS, entry.getSection());
+        assertEquals(JournalEntry.Operation.PUT, entry.getOp());
+        assertEquals("med2", entry.getValue().get("medications").get(0).asText());
     }
 
     /**
      * Test updating a MedicalRecord:
-     * updates record details if found.
+     * journals the updated record.
      */
     @Test
-    void testUpdateMedicalRecord_shouldUpdateExistingRecord() throws IOException {
+    void testUpdateMedicalRecord_shouldJournalUpdatedRecord() {
         MedicalRecords updated = new MedicalRecords("John", "Doe", "01/01/1990", List.of("medUpdated"), List.of("allergyUpdated"));
+        when(medicalRecordsRepository.getMedicalRecords("John", "Doe")).thenReturn(Optional.of(updated));
 
-        when(medicalRecordsRepository.getAllMedicalRecords()).thenReturn(List.of(new MedicalRecords("John", "Doe", "01/01/1990", List.of("med1"), List.of("allergy1"))));
-
-        jsonWriterService.updateMedicalRecords(updated);
+        jsonWriterService.updateMedicalRecords(updated, () -> {});
 
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode medicalRecords = root.get("medicalrecords");
-        assertEquals("medUpdated", medicalRecords.get(0).get("medications").get(0).asText());
+        JournalEntry entry = journal().get(0);
+        assertEquals("medUpdated", entry.getValue().get("medications").get(0).asText());
     }
 
     /**
-     * Test updating a MedicalRecord:
-     * does nothing if record not found.
+     * Test deleting a MedicalRecord:
+     * journals a DELETE.
      */
     @Test
-    void testUpdateMedicalRecord_shouldDoNothingIfNotFound() throws IOException {
-        MedicalRecords updated = new MedicalRecords("Nonexistent", "Person", "01/01/1990", List.of(), List.of());
-
-        when(medicalRecordsRepository.getAllMedicalRecords()).thenReturn(List.of(new MedicalRecords("John", "Doe", "01/01/1990", List.of("med1"), List.of("allergy1"))));
+    void testDeleteMedicalRecord_shouldJournalDelete() {
+        when(medicalRecordsRepository.getMedicalRecords("John", "Doe")).thenReturn(Optional.empty());
 
-        jsonWriterService.updateMedicalRecords(updated);
+        jsonWriterService.deleteMedicalRecord("John", "Doe", () -> {});
 
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode medicalRecords = root.get("medicalrecords");
-        assertEquals(1, medicalRecords.size());
-        assertEquals("John", medicalRecords.get(0).get("firstName").asText());
+        JournalEntry entry = journal().get(0);
+        assertEquals(DataSection.MEDICAL_RECORDS, entry.getSection());
+        assertEquals(JournalEntry.Operation.DELETE, entry.getOp());
     }
 
     /**
-     * Test deleting a MedicalRecord:
-     * removes record by first and last name.
+     * Test that successive mutations are appended in order.
      */
     @Test
-    void testDeleteMedicalRecord_shouldRemoveRecord() throws IOException {
-        when(medicalRecordsRepository.getAllMedicalRecords()).thenReturn(List.of(new MedicalRecords("John", "Doe", "01/01/1990", List.of("med1"), List.of("allergy1"))));
-
-        jsonWriterService.deleteMedicalRecord("John", "Doe");
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode medicalRecords = root.get("medicalrecords");
-        assertEquals(0, medicalRecords.size());
+    void testMutations_shouldBeAppendedInOrder() {
+        Person person = new Person("John", "Doe", "address", "city", "zip", "phone", "email");
+        AtomicReference<Optional<Person>> stored = new AtomicReference<>(Optional.empty());
+        when(personRepository.getPerson("John", "Doe")).thenAnswer(invocation -> stored.get());
+
+        jsonWriterService.savePerson(person, () -> stored.set(Optional.of(person)));
+        jsonWriterService.deletePerson("John", "Doe", () -> stored.set(Optional.empty()));
+
+        List<JournalEntry> entries = journal();
+        assertEquals(2, entries.size());
+        assertEquals(JournalEntry.Operation.PUT, entries.get(0).getOp());
+        assertEquals(JournalEntry.Operation.DELETE, entries.get(1).getOp());
     }
 
     /**
-     * Test deleting a MedicalRecord:
-     * does nothing if record not found.
+     * Test that a mutation whose journal append fails is undone in the repositories.
      */
     @Test
-    void testDeleteMedicalRecord_shouldDoNothingIfNotFound() throws IOException {
-        when(medicalRecordsRepository.getAllMedicalRecords()).thenReturn(List.of(new MedicalRecords("John", "Doe", "01/01/1990", List.of("med1"), List.of("allergy1"))));
-
-        jsonWriterService.deleteMedicalRecord("Nonexistent", "Person");
-
-        JsonNode root = objectMapper.readTree(new File(TEMP_FILE_PATH));
-        JsonNode medicalRecords = root.get("medicalrecords");
-        assertEquals(1, medicalRecords.size());
-        assertEquals("John", medicalRecords.get(0).get("firstName").asText());
+    void testFailedAppend_shouldUndoMutation(@TempDir Path tempDir) {
+        RepositoryLock repositoryLock = new RepositoryLock();
+        PersonRepository persons = new PersonRepository(repositoryLock);
+        FireStationRepository fireStations = new FireStationRepository(repositoryLock);
+        MedicalRecordsRepository medicalRecords = new MedicalRecordsRepository(repositoryLock);
+        Person stored = new Person("John", "Doe", "address", "city", "zip", "phone", "email");
+        persons.addPerson(stored);
+        fireStations.addFireStation(new FireStation("1509 Culver St", "3"));
+        journalService.close();
+        ReflectionTestUtils.setField(journalService, "journalPath", tempDir.toString());
+        JSONWriterService writer = new JSONWriterService(persons, fireStations, medicalRecords, journalService, repositoryLock);
+
+        Person updated = new Person("John", "Doe", "otherAddress", "city", "zip", "phone", "email");
+        assertThrows(RuntimeException.class, () -> writer.updatePerson(updated, () -> persons.updatePerson(updated)));
+        assertThrows(RuntimeException.class, () -> writer.deleteFireStation("1509 Culver St",
+                () -> fireStations.deleteFireStation("1509 Culver St")));
+        MedicalRecords record = new MedicalRecords("John", "Doe", "01/01/1990", List.of(), List.of());
+        assertThrows(RuntimeException.class, () -> writer.saveMedicalRecord(record, () -> medicalRecords.addMedicalRecords(record)));
+
+        assertEquals("address", persons.getPerson("John", "Doe").orElseThrow().getAddress());
+        assertEquals(Set.of("3"), fireStations.getStationsByAddress("1509 Culver St"));
+        assertTrue(medicalRecords.getMedicalRecords("John", "Doe").isEmpty());
     }
 }
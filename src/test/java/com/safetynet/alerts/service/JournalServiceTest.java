@@ -0,0 +1,293 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.JournalEntry;
+import com.safetynet.alerts.utils.KeyUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JournalService.
+ */
+class JournalServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path journalPath;
+    private JournalService journalService;
+
+    @BeforeEach
+    void setUp() {
+        journalPath = tempDir.resolve("data.json.journal");
+        journalService = new JournalService();
+        ReflectionTestUtils.setField(journalService, "journalPath", journalPath.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        journalService.close();
+    }
+
+    private List<JournalEntry> replay() {
+        List<JournalEntry> entries = new ArrayList<>();
+        journalService.replay(entries::add);
+        return entries;
+    }
+
+    /**
+     * Test that appended entries are replayed in order, one line each.
+     */
+    @Test
+    void testAppendThenReplay() throws IOException {
+        journalService.append(JournalEntry.put(DataSection.PERSONS, List.of("John", "Boyd"), JsonNodeFactory.instance.objectNode().put("city", "Culver")));
+        journalService.append(List.of(
+                JournalEntry.delete(DataSection.FIRE_STATIONS, List.of("29 15th St")),
+                JournalEntry.delete(DataSection.MEDICAL_RECORDS, List.of("John", "Boyd"))));
+
+        assertTrue(Files.readAllLines(journalPath).stream().allMatch(line -> line.startsWith("{\"")));
+        assertEquals(3, Files.readAllLines(journalPath).size());
+        List<JournalEntry> entries = replay();
+        assertEquals(3, entries.size());
+        assertEquals(DataSection.PERSONS, entries.get(0).getSection());
+        assertEquals("Culver", entries.get(0).getValue().get("city").asText());
+        assertEquals(List.of("29 15th St"), entries.get(1).getKey());
+        assertEquals(JournalEntry.Operation.DELETE, entries.get(2).getOp());
+    }
+
+    /**
+     * Test that the state after a rotation is captured under the journal lock, with the sections of the rotated journal.
+     */
+    @Test
+    void testRotate_capturesUnderJournalLock() {
+        journalService.append(List.of(JournalEntry.delete(DataSection.FIRE_STATIONS, List.of("29 15th St"))));
+        ReentrantLock lock = (ReentrantLock) ReflectionTestUtils.getField(journalService, "lock");
+
+        boolean held = journalService.rotate(sections -> {
+            assertEquals(Set.of(DataSection.FIRE_STATIONS), sections);
+            return lock.isHeldByCurrentThread();
+        });
+
+        assertTrue(held);
+    }
+
+    /**
+     * Test that replaying a missing journal does nothing.
+     */
+    @Test
+    void testReplayMissingJournal() {
+        assertEquals(0, journalService.replay(entry -> fail("no entry expected")));
+        assertEquals(0L, journalService.size());
+    }
+
+    /**
+     * Test that a truncated last line, left by a crash during an append, is ignored.
+     */
+    @Test
+    void testReplayIgnoresTruncatedLastLine() throws IOException {
+        journalService.append(JournalEntry.delete(DataSection.PERSONS, List.of("John", "Boyd")));
+        Files.writeString(journalPath, "{\"section\":\"persons\",\"op\":\"PU", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(1, replay().size());
+    }
+
+    /**
+     * Test that a corrupted line followed by other entries is reported.
+     */
+    @Test
+    void testReplayFailsOnCorruptedMiddleLine() throws IOException {
+        Files.writeString(journalPath, "not json\n{\"section\":\"persons\",\"op\":\"DELETE\",\"key\":[\"a\",\"b\"]}\n");
+
+        assertThrows(RuntimeException.class, this::replay);
+    }
+
+    /**
+     * Test that size follows the appended bytes.
+     */
+    @Test
+    void testSize() throws IOException {
+        journalService.append(JournalEntry.delete(DataSection.PERSONS, List.of("John", "Boyd")));
+
+        assertEquals(Files.size(journalPath), journalService.size());
+        assertTrue(journalService.size() > 0);
+    }
+
+    /**
+     * Test that concurrent submissions in group-commit mode all become durable.
+     */
+    @Test
+    void testGroupCommit_concurrentSubmissions() throws Exception {
+        ReflectionTestUtils.setField(journalService, "groupCommit", true);
+        ReflectionTestUtils.setField(journalService, "maxDelayMillis", 5L);
+        ReflectionTestUtils.setField(journalService, "queueCapacity", 64);
+        journalService.start();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CompletableFuture<Void>>> submitted = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String firstName = "Person" + i;
+                submitted.add(executor.submit(() -> journalService.submit(
+                        () -> JournalEntry.delete(DataSection.PERSONS, List.of(firstName, "Boyd")))));
+            }
+            for (Future<CompletableFuture<Void>> future : submitted) {
+                futures.add(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(400, replay().size());
+    }
+
+    /**
+     * Test that submissions of the same key within one group commit are coalesced into one line.
+     */
+    @Test
+    void testGroupCommit_coalescesSameKey() throws Exception {
+        ReflectionTestUtils.setField(journalService, "groupCommit", true);
+        ReflectionTestUtils.setField(journalService, "maxDelayMillis", 200L);
+        ReflectionTestUtils.setField(journalService, "queueCapacity", 2048);
+        journalService.start();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(journalService.submit(() -> JournalEntry.delete(DataSection.PERSONS, List.of("John", "Boyd"))));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertTrue(Files.readAllLines(journalPath).size() < 10);
+    }
+
+    /**
+     * Test that entries naming the same record with a different case are coalesced at the position of the last one,
+     * so that replaying the journal gives the state of the last write.
+     */
+    @Test
+    void testGroupCommit_coalescesCaseVariantKeysInWriteOrder() throws Exception {
+        ReflectionTestUtils.setField(journalService, "groupCommit", true);
+        ReflectionTestUtils.setField(journalService, "maxDelayMillis", 1000L);
+        ReflectionTestUtils.setField(journalService, "queueCapacity", 16);
+        journalService.start();
+
+        List<CompletableFuture<Void>> futures = List.of(
+                journalService.submit(() -> JournalEntry.put(DataSection.PERSONS, List.of("John", "Boyd"), JsonNodeFactory.instance.textNode("first"))),
+                journalService.submit(() -> JournalEntry.delete(DataSection.PERSONS, List.of("john", "boyd"))),
+                journalService.submit(() -> JournalEntry.put(DataSection.PERSONS, List.of("John", "Boyd"), JsonNodeFactory.instance.textNode("last"))));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        Map<String, String> state = new HashMap<>();
+        for (JournalEntry entry : replay()) {
+            String key = KeyUtils.nameKey(entry.getKey().get(0), entry.getKey().get(1));
+            if (entry.getOp() == JournalEntry.Operation.PUT) {
+                state.put(key, entry.getValue().asText());
+            } else {
+                state.remove(key);
+            }
+        }
+        assertEquals(Map.of(KeyUtils.nameKey("John", "Boyd"), "last"), state);
+    }
+
+    /**
+     * Test that a failing entry fails its own future only.
+     */
+    @Test
+    void testGroupCommit_failingEntry() throws Exception {
+        ReflectionTestUtils.setField(journalService, "groupCommit", true);
+        ReflectionTestUtils.setField(journalService, "maxDelayMillis", 50L);
+        ReflectionTestUtils.setField(journalService, "queueCapacity", 16);
+        journalService.start();
+
+        CompletableFuture<Void> failing = journalService.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Void> ok = journalService.submit(() -> JournalEntry.delete(DataSection.PERSONS, List.of("John", "Boyd")));
+
+        ok.get(10, TimeUnit.SECONDS);
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        assertEquals(1, replay().size());
+    }
+
+    /**
+     * Test that close commits entries still queued.
+     */
+    @Test
+    void testGroupCommit_closeFlushesQueue() {
+        ReflectionTestUtils.setField(journalService, "groupCommit", true);
+        ReflectionTestUtils.setField(journalService, "maxDelayMillis", 1000L);
+        ReflectionTestUtils.setField(journalService, "queueCapacity", 16);
+        journalService.start();
+
+        CompletableFuture<Void> future = journalService.submit(() -> JournalEntry.delete(DataSection.PERSONS, List.of("John", "Boyd")));
+        journalService.close();
+
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+        assertEquals(1, replay().size());
+    }
+
+    /**
+     * Test that the changes of a batch whose write fails are undone, last applied first.
+     */
+    @Test
+    void testGroupCommit_failedWriteUndoesChanges() {
+        ReflectionTestUtils.setField(journalService, "journalPath", tempDir.toString());
+        ReflectionTestUtils.setField(journalService, "groupCommit", true);
+        ReflectionTestUtils.setField(journalService, "maxDelayMillis", 1000L);
+        ReflectionTestUtils.setField(journalService, "queueCapacity", 16);
+        journalService.start();
+        List<String> undone = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<Void> first = journalService.submitChange(() -> new JournalService.Change(
+                List.of(JournalEntry.delete(DataSection.PERSONS, List.of("John", "Boyd"))), () -> undone.add("first")));
+        CompletableFuture<Void> second = journalService.submitChange(() -> new JournalService.Change(
+                List.of(JournalEntry.delete(DataSection.PERSONS, List.of("Jacob", "Boyd"))), () -> undone.add("second")));
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        assertEquals(List.of("second", "first"), undone);
+    }
+
+    /**
+     * Test that a change applied on the calling thread is undone when its write fails.
+     */
+    @Test
+    void testApply_failedWriteUndoesChange() {
+        ReflectionTestUtils.setField(journalService, "journalPath", tempDir.toString());
+        List<String> undone = new ArrayList<>();
+
+        assertThrows(RuntimeException.class, () -> journalService.apply(() -> new JournalService.Change(
+                List.of(JournalEntry.delete(DataSection.PERSONS, List.of("John", "Boyd"))), () -> undone.add("change"))));
+
+        assertEquals(List.of("change"), undone);
+    }
+}
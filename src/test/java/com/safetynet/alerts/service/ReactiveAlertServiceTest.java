@@ -0,0 +1,109 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.CommunityEmailDTO;
+import com.safetynet.alerts.dto.FireDTO;
+import com.safetynet.alerts.dto.FloodStationsDTO;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecords;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for ReactiveAlertService, run against real repositories.
+ */
+class ReactiveAlertServiceTest {
+
+    private ReactiveAlertService reactiveAlertService;
+
+    @BeforeEach
+    void setUp() {
+        PersonRepository personRepository = new PersonRepository();
+        FireStationRepository fireStationRepository = new FireStationRepository();
+        MedicalRecordsRepository medicalRecordsRepository = new MedicalRecordsRepository();
+        MedicalRecordsService medicalRecordsService = new MedicalRecordsService(medicalRecordsRepository, mock(JSONWriterService.class));
+        AlertService alertService = new AlertService(personRepository, fireStationRepository, medicalRecordsService);
+        reactiveAlertService = new ReactiveAlertService(personRepository, fireStationRepository, alertService);
+
+        String childBirthdate = LocalDate.now().minusYears(8).format(DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+        personRepository.addPerson(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "boyd@email.com"));
+        personRepository.addPerson(new Person("Tenley", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "boyd@email.com"));
+        personRepository.addPerson(new Person("Peter", "Duncan", "644 Gershwin Cir", "Culver", "97451", "841-874-6514", "duncan@email.com"));
+        personRepository.addPerson(new Person("Ron", "Peters", "112 Steppes Pl", "Paris", "75000", "841-874-6515", "peters@email.com"));
+        fireStationRepository.addFireStation(new FireStation("1509 Culver St", "3"));
+        fireStationRepository.addFireStation(new FireStation("644 Gershwin Cir", "3"));
+        fireStationRepository.addFireStation(new FireStation("644 Gershwin Cir", "1"));
+        fireStationRepository.addFireStation(new FireStation("112 Steppes Pl", "4"));
+        medicalRecordsRepository.addMedicalRecords(new MedicalRecords("John", "Boyd", "03/06/1984", List.of(), List.of()));
+        medicalRecordsRepository.addMedicalRecords(new MedicalRecords("Tenley", "Boyd", childBirthdate, List.of(), List.of("peanut")));
+        medicalRecordsRepository.addMedicalRecords(new MedicalRecords("Peter", "Duncan", "09/06/2000", List.of(), List.of()));
+    }
+
+    /**
+     * Test that a stream only emits what its subscriber requested.
+     */
+    @Test
+    void testPhoneAlertHonoursBackpressure() {
+        StepVerifier.create(reactiveAlertService.getPhoneNumberByFireStation("3"), 1)
+                .assertNext(phone -> assertEquals("841-874-6512", phone.getPhone()))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    /**
+     * Test that the residents of several addresses are streamed address by address.
+     */
+    @Test
+    void testFireForSeveralAddresses() {
+        StepVerifier.create(reactiveAlertService.getPersonByAddress(List.of("644 Gershwin Cir", "1509 Culver St", "unknown")).map(FireDTO::getFirstName))
+                .expectNext("Peter", "John", "Tenley")
+                .verifyComplete();
+    }
+
+    /**
+     * Test that only children are streamed, with their household.
+     */
+    @Test
+    void testChildAlert() {
+        StepVerifier.create(reactiveAlertService.getChildByAddress(List.of("1509 Culver St")))
+                .assertNext(child -> {
+                    assertEquals("Tenley", child.getFirstName());
+                    assertEquals(2, child.getFamilyMember().size());
+                })
+                .verifyComplete();
+    }
+
+    /**
+     * Test that an address served by several requested stations is streamed once.
+     */
+    @Test
+    void testFloodStationsStreamsEachAddressOnce() {
+        StepVerifier.create(reactiveAlertService.getPersonByListOfStations(List.of("3", "1")).map(FloodStationsDTO::getFirstName))
+                .expectNext("John", "Tenley", "Peter")
+                .verifyComplete();
+    }
+
+    /**
+     * Test that each email of a city is streamed once.
+     */
+    @Test
+    void testCommunityEmailIsDistinct() {
+        StepVerifier.create(reactiveAlertService.getEmailByCity("culver").map(CommunityEmailDTO::getEmail))
+                .expectNext("boyd@email.com", "duncan@email.com")
+                .verifyComplete();
+    }
+}
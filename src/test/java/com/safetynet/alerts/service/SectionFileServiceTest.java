@@ -0,0 +1,152 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSection;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FireStationRepository;
+import com.safetynet.alerts.repository.MedicalRecordsRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for SectionFileService.
+ */
+class SectionFileServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path dataPath;
+    private SectionFileService sectionFileService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataPath = tempDir.resolve("data.json");
+        Files.writeString(dataPath, """
+                {
+                  "persons": [
+                    { "firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver", "zip": "97451", "phone": "841-874-6512", "email": "jaboyd@email.com" }
+                  ],
+                  "firestations": [ { "address": "1509 Culver St", "station": "3" } ],
+                  "medicalrecords": []
+                }
+                """);
+        sectionFileService = new SectionFileService(new BinarySnapshotService());
+        ReflectionTestUtils.setField(sectionFileService, "sectionsPath", tempDir.resolve("data.json.d").toString());
+    }
+
+    private JSONReaderService reader(PersonRepository persons, FireStationRepository fireStations) {
+        JSONReaderService reader = new JSONReaderService(persons, fireStations, new MedicalRecordsRepository(), mock(JournalService.class), sectionFileService);
+        ReflectionTestUtils.setField(reader, "dataPath", dataPath.toString());
+        ReflectionTestUtils.setField(reader, "loadThreads", 3);
+        return reader;
+    }
+
+    /**
+     * Test that writing a section only creates that section's files.
+     */
+    @Test
+    void testWriteOnlyTouchesItsSection() throws IOException {
+        sectionFileService.write(DataSection.FIRE_STATIONS, List.of(new FireStation("1509 Culver St", "4")));
+
+        assertTrue(Files.exists(sectionFileService.jsonPath(DataSection.FIRE_STATIONS)));
+        assertTrue(Files.exists(sectionFileService.binaryPath(DataSection.FIRE_STATIONS)));
+        assertFalse(Files.exists(sectionFileService.jsonPath(DataSection.PERSONS)));
+        assertFalse(Files.exists(sectionFileService.binaryPath(DataSection.PERSONS)));
+        assertEquals("4", new ObjectMapper().readTree(sectionFileService.jsonPath(DataSection.FIRE_STATIONS).toFile()).get(0).get("station").asText());
+    }
+
+    /**
+     * Test that section JSON is compact by default and indented when pretty-printing is enabled.
+     */
+    @Test
+    void testJsonIsCompactUnlessPrettyPrinted() throws IOException {
+        List<FireStation> fireStations = List.of(new FireStation("1509 Culver St", "3"), new FireStation("29 15th St", "2"));
+
+        sectionFileService.write(DataSection.FIRE_STATIONS, fireStations);
+        String compact = Files.readString(sectionFileService.jsonPath(DataSection.FIRE_STATIONS));
+        ReflectionTestUtils.setField(sectionFileService, "prettyPrint", true);
+        sectionFileService.write(DataSection.FIRE_STATIONS, fireStations);
+        String pretty = Files.readString(sectionFileService.jsonPath(DataSection.FIRE_STATIONS));
+
+        assertEquals("[{\"address\":\"1509 Culver St\",\"station\":\"3\"},{\"address\":\"29 15th St\",\"station\":\"2\"}]", compact);
+        assertTrue(pretty.contains("\n"));
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals(objectMapper.readTree(compact), objectMapper.readTree(pretty));
+    }
+
+    /**
+     * Test that the manifest records the generation of the section files.
+     */
+    @Test
+    void testManifest() {
+        assertEquals(0L, sectionFileService.generation());
+
+        sectionFileService.writeManifest(1L);
+        sectionFileService.writeManifest(2L);
+
+        assertEquals(2L, sectionFileService.generation());
+        assertFalse(Files.exists(tempDir.resolve("data.json.d").resolve("manifest.json.tmp")));
+    }
+
+    /**
+     * Test that JSONReaderService reads data.json until a manifest is written, then the section files only.
+     */
+    @Test
+    void testReaderLoadsSectionFilesOnceManifestIsWritten() throws IOException {
+        sectionFileService.write(DataSection.PERSONS, List.of());
+        sectionFileService.write(DataSection.FIRE_STATIONS, List.of(new FireStation("1509 Culver St", "4"), new FireStation("29 15th St", "2")));
+        sectionFileService.write(DataSection.MEDICAL_RECORDS, List.of());
+        PersonRepository persons = new PersonRepository();
+        FireStationRepository fireStations = new FireStationRepository();
+
+        reader(persons, fireStations).loadData();
+
+        assertEquals(List.of("John"), persons.getAllPersons().stream().map(Person::getFirstName).toList());
+        assertEquals(List.of("3"), fireStations.getAllFireStation().stream().map(FireStation::getStation).toList());
+
+        sectionFileService.writeManifest(1L);
+        // A data.json touched after the compaction is not read again
+        Files.setLastModifiedTime(dataPath, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        persons = new PersonRepository();
+        fireStations = new FireStationRepository();
+        long version = fireStations.getVersion();
+
+        reader(persons, fireStations).loadData();
+
+        assertEquals(List.of(), persons.getAllPersons());
+        assertEquals(List.of("4", "2"), fireStations.getAllFireStation().stream().map(FireStation::getStation).toList());
+        // The binary section is published in a single write
+        assertEquals(version + 1, fireStations.getVersion());
+    }
+
+    /**
+     * Test that an unreadable binary file falls back to the section's JSON file.
+     */
+    @Test
+    void testReaderFallsBackToJsonSectionFile() throws IOException {
+        sectionFileService.write(DataSection.PERSONS, List.of());
+        sectionFileService.write(DataSection.FIRE_STATIONS, List.of(new FireStation("1509 Culver St", "4")));
+        sectionFileService.write(DataSection.MEDICAL_RECORDS, List.of());
+        sectionFileService.writeManifest(1L);
+        Files.write(sectionFileService.binaryPath(DataSection.FIRE_STATIONS), new byte[]{1, 2, 3});
+        FireStationRepository fireStations = new FireStationRepository();
+
+        reader(new PersonRepository(), fireStations).loadData();
+
+        assertEquals("4", fireStations.getAllFireStation().get(0).getStation());
+    }
+}
@@ -0,0 +1,80 @@
+package com.safetynet.alerts.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AtomicFileUtils.
+ */
+class AtomicFileUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test that a write replaces the previous content and leaves no temporary file.
+     */
+    @Test
+    void testWriteReplacesContent() throws IOException {
+        Path target = tempDir.resolve("data.json");
+        Files.writeString(target, "old content, longer than the new one");
+
+        AtomicFileUtils.write(target, out -> out.write("new".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("new", Files.readString(target));
+        assertFalse(Files.exists(tempDir.resolve("data.json.tmp")));
+    }
+
+    /**
+     * Test that a failing writer leaves the target untouched and removes the temporary file.
+     */
+    @Test
+    void testFailedWriteKeepsPreviousContent() throws IOException {
+        Path target = tempDir.resolve("data.json");
+        Files.writeString(target, "old");
+
+        assertThrows(IOException.class, () -> AtomicFileUtils.write(target, out -> {
+            out.write("partial".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("disk full");
+        }));
+
+        assertEquals("old", Files.readString(target));
+        assertFalse(Files.exists(tempDir.resolve("data.json.tmp")));
+    }
+
+    /**
+     * Test that a temporary file left by a crash is overwritten by the next write.
+     */
+    @Test
+    void testWriteOverwritesStaleTemporaryFile() throws IOException {
+        Path target = tempDir.resolve("data.json");
+        Files.writeString(tempDir.resolve("data.json.tmp"), "stale content from a crashed write");
+
+        AtomicFileUtils.write(target, out -> out.write("new".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("new", Files.readString(target));
+    }
+
+    /**
+     * Test that a move replaces an existing target.
+     */
+    @Test
+    void testMoveReplacesTarget() throws IOException {
+        Path source = tempDir.resolve("data.json.journal");
+        Path target = tempDir.resolve("data.json.journal.compacting");
+        Files.writeString(source, "new");
+        Files.writeString(target, "old");
+
+        AtomicFileUtils.move(source, target);
+
+        assertFalse(Files.exists(source));
+        assertEquals("new", Files.readString(target));
+    }
+}